@@ -12,6 +12,7 @@ import org.xbib.config.SystemConfigLogger;
 import org.xbib.net.NetworkClass;
 import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.HttpVersion;
 import org.xbib.net.http.server.BaseHttpDomain;
@@ -180,6 +181,7 @@ public final class Bootstrap {
                                         .addService(GroovyTemplateService.builder()
                                                 .setTemplateName("index.gtpl")
                                                 .setSecurityDomain(securityDomain)
+                                                .setMethod(HttpMethod.GET, HttpMethod.POST)
                                                 .setPath("glob:**")
                                                 .setHandler(new GroovyTemplateResourceHandler())
                                                 .build())
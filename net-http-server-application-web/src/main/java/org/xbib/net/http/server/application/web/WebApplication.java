@@ -4,7 +4,6 @@ import java.nio.file.Paths;
 import java.time.Duration;
 import org.xbib.net.http.server.BaseApplication;
 import org.xbib.net.http.server.HttpHandler;
-import org.xbib.net.http.server.HttpServerContext;
 import org.xbib.net.http.server.persist.Codec;
 import org.xbib.net.http.server.session.IncomingSessionHandler;
 import org.xbib.net.http.server.session.OutgoingSessionHandler;
@@ -25,14 +24,14 @@ public class WebApplication extends BaseApplication {
         }
     }
 
-    protected Codec<Session> buildSessionCodec(HttpServerContext httpServerContext) {
+    @Override
+    protected Codec<Session> buildSessionCodec() {
         return new FileJsonSessionCodec(this, 1024, Duration.ofDays(1),
                 Paths.get("/var/tmp/session"));
     }
 
-    protected HttpHandler buildIncomingSessionHandler(HttpServerContext httpServerContext) {
-        @SuppressWarnings("unchecked")
-        Codec<Session> sessionCodec = httpServerContext.attributes().get(Codec.class, "sessioncodec");
+    @Override
+    protected HttpHandler buildIncomingSessionHandler(Codec<Session> sessionCodec) {
         return new IncomingSessionHandler(
                 getSecret(),
                 "HmacSHA1",
@@ -43,9 +42,8 @@ public class WebApplication extends BaseApplication {
                 "e_user_id");
     }
 
-    protected OutgoingSessionHandler buildOutgoingSessionHandler(HttpServerContext httpServerContext) {
-        @SuppressWarnings("unchecked")
-        Codec<Session> sessionCodec = httpServerContext.attributes().get(Codec.class, "sessioncodec");
+    @Override
+    protected OutgoingSessionHandler buildOutgoingSessionHandler(Codec<Session> sessionCodec) {
         return new OutgoingSessionHandler(
                 getSecret(),
                 "HmacSHA1",
@@ -2,7 +2,6 @@ package org.xbib.net.http.server.netty.secure.http1;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
@@ -23,10 +22,13 @@ import java.util.logging.Logger;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.server.netty.HttpChannelInitializer;
 import org.xbib.net.http.server.netty.NettyCustomizer;
+import org.xbib.net.http.server.netty.NettyHttpContentCompressor;
 import org.xbib.net.http.server.netty.NettyHttpServer;
 import org.xbib.net.http.server.netty.NettyHttpServerConfig;
 import org.xbib.net.http.server.netty.http1.HttpPipeliningHandler;
 import org.xbib.net.http.server.netty.IdleTimeoutHandler;
+import org.xbib.net.http.server.netty.MultipartRequestHandler;
+import org.xbib.net.http.server.netty.StreamingRequestHandler;
 import org.xbib.net.http.server.netty.TrafficLoggingHandler;
 import org.xbib.net.http.server.netty.secure.NettyHttpsServerConfig;
 import org.xbib.net.http.server.netty.secure.ServerNameIndicationHandler;
@@ -56,17 +58,24 @@ public class Https1ChannelInitializer implements HttpChannelInitializer {
         pipeline.addLast("server-sni", serverNameIndicationHandler);
         HttpServerCodec httpServerCodec = new HttpServerCodec(nettyHttpsServerConfig.getMaxInitialLineLength(),
                 nettyHttpsServerConfig.getMaxHeadersSize(), nettyHttpsServerConfig.getMaxChunkSize());
-        pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
         pipeline.addLast("server-codec", httpServerCodec);
         if (nettyHttpsServerConfig.isCompressionEnabled()) {
-            pipeline.addLast("server-compressor", new HttpContentCompressor());
+            pipeline.addLast("server-compressor", new NettyHttpContentCompressor(nettyHttpsServerConfig.getCompressionPolicy()));
         }
         if (nettyHttpsServerConfig.isDecompressionEnabled()) {
             pipeline.addLast("server-decompressor", new HttpContentDecompressor());
         }
+        if (nettyHttpsServerConfig.isMultipartDecodingEnabled()) {
+            pipeline.addLast("server-multipart", new MultipartRequestHandler(nettyHttpsServerConfig));
+        }
+        if (nettyHttpsServerConfig.isRequestStreamingEnabled()) {
+            pipeline.addLast("server-request-streaming", new StreamingRequestHandler(nettyHttpsServerConfig));
+        }
         HttpObjectAggregator httpObjectAggregator = new HttpObjectAggregator(nettyHttpsServerConfig.getMaxContentLength());
         httpObjectAggregator.setMaxCumulationBufferComponents(nettyHttpsServerConfig.getMaxCompositeBufferComponents());
         pipeline.addLast("server-aggregator", httpObjectAggregator);
+        // chunked HTTP content must pass the compressor and the codec
+        pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
         if (nettyHttpsServerConfig.isPipeliningEnabled()) {
             pipeline.addLast("server-pipelining", new HttpPipeliningHandler(nettyHttpsServerConfig.getPipeliningCapacity()));
         }
@@ -69,15 +69,17 @@ public class Https1Handler extends ChannelDuplexHandler {
 
     protected void requestReceived(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest, Integer sequenceId) {
         HttpAddress httpAddress = ctx.channel().attr(NettyHttpsServerConfig.ATTRIBUTE_KEY_HTTP_ADDRESS).get();
+        HttpsRequestBuilder serverRequestBuilder = null;
         try {
             HttpResponseBuilder serverResponseBuilder = HttpResponse.builder()
-                    .setChannelHandlerContext(ctx);
+                    .setChannelHandlerContext(ctx)
+                    .setHttpServerConfig(nettyHttpServer.getNettyHttpServerConfig());
             if (nettyHttpServer.getNettyHttpServerConfig().isPipeliningEnabled()) {
                 serverResponseBuilder.setSequenceId(sequenceId);
             }
             // host header present? RFC2616#14.23: missing Host header gets 400
-            HttpsRequestBuilder serverRequestBuilder = HttpsRequest.builder()
-                    .setLocalAddress((InetSocketAddress) ctx.channel().localAddress())
+            serverRequestBuilder = HttpsRequest.builder();
+            serverRequestBuilder.setLocalAddress((InetSocketAddress) ctx.channel().localAddress())
                     .setRemoteAddress((InetSocketAddress) ctx.channel().remoteAddress())
                     .setSequenceId(sequenceId)
                     .setFullHttpRequest(fullHttpRequest)
@@ -95,6 +97,9 @@ public class Https1Handler extends ChannelDuplexHandler {
             nettyHttpServer.getApplication().dispatch(serverRequestBuilder, serverResponseBuilder);
         } catch (Exception e) {
             logger.log(Level.SEVERE, "bad request: " + e.getMessage(), e);
+            if (serverRequestBuilder != null) {
+                serverRequestBuilder.release();
+            }
             DefaultFullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(io.netty.handler.codec.http.HttpVersion.valueOf(httpAddress.getVersion().text()),
                     HttpResponseStatus.BAD_REQUEST);
             ctx.writeAndFlush(fullHttpResponse);
@@ -22,9 +22,11 @@ import java.util.logging.Logger;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.server.netty.HttpChannelInitializer;
 import org.xbib.net.http.server.netty.IdleTimeoutHandler;
+import org.xbib.net.http.server.netty.MultipartRequestHandler;
 import org.xbib.net.http.server.netty.NettyCustomizer;
 import org.xbib.net.http.server.netty.NettyHttpServer;
 import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.netty.StreamingRequestHandler;
 import org.xbib.net.http.server.netty.TrafficLoggingHandler;
 import org.xbib.net.http.server.netty.secure.NettyHttpsServerConfig;
 import org.xbib.net.http.server.netty.secure.ServerNameIndicationHandler;
@@ -56,6 +58,12 @@ public class Https2ChannelInitializer implements HttpChannelInitializer {
         }
         pipeline.addLast("server-upgrade", createUpgradeHandler(nettyHttpServer, httpAddress, serverNameIndicationHandler));
         // handler for HTTP1
+        if (nettyHttpsServerConfig.isMultipartDecodingEnabled()) {
+            pipeline.addLast("server-multipart", new MultipartRequestHandler(nettyHttpsServerConfig));
+        }
+        if (nettyHttpsServerConfig.isRequestStreamingEnabled()) {
+            pipeline.addLast("server-request-streaming", new StreamingRequestHandler(nettyHttpsServerConfig));
+        }
         pipeline.addLast("server-object-aggregator", new HttpObjectAggregator(nettyHttpsServerConfig.getMaxContentLength()));
         pipeline.addLast("server-requests", new Https2Handler(nettyHttpServer));
         pipeline.addLast("server-messages", new Https2Messages());
@@ -3,14 +3,16 @@ package org.xbib.net.http.server.netty.secure.http2;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.server.netty.IdleTimeoutHandler;
+import org.xbib.net.http.server.netty.MultipartRequestHandler;
+import org.xbib.net.http.server.netty.NettyHttpContentCompressor;
 import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.StreamingRequestHandler;
 import org.xbib.net.http.server.netty.secure.NettyHttpsServerConfig;
 import org.xbib.net.http.server.netty.secure.ServerNameIndicationHandler;
 
@@ -38,11 +40,17 @@ public class Https2ChildChannelInitializer extends ChannelInitializer<Channel> {
         ChannelPipeline pipeline = channel.pipeline();
         pipeline.addLast("server-frame-converter", new Http2StreamFrameToHttpObjectCodec(true));
         if (nettyHttpsServerConfig.isCompressionEnabled()) {
-            pipeline.addLast("server-compressor", new HttpContentCompressor());
+            pipeline.addLast("server-compressor", new NettyHttpContentCompressor(nettyHttpsServerConfig.getCompressionPolicy()));
         }
         if (nettyHttpsServerConfig.isDecompressionEnabled()) {
             pipeline.addLast("server-decompressor", new HttpContentDecompressor());
         }
+        if (nettyHttpsServerConfig.isMultipartDecodingEnabled()) {
+            pipeline.addLast("server-multipart", new MultipartRequestHandler(nettyHttpsServerConfig));
+        }
+        if (nettyHttpsServerConfig.isRequestStreamingEnabled()) {
+            pipeline.addLast("server-request-streaming", new StreamingRequestHandler(nettyHttpsServerConfig));
+        }
         pipeline.addLast("server-object-aggregator", new HttpObjectAggregator(nettyHttpsServerConfig.getMaxContentLength()));
         pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
         pipeline.addLast("server-request", new Https2Handler(server));
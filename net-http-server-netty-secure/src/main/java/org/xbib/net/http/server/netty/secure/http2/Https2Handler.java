@@ -39,16 +39,18 @@ public class Https2Handler extends ChannelDuplexHandler {
         if (msg instanceof FullHttpRequest) {
             FullHttpRequest fullHttpRequest = (FullHttpRequest) msg;
             HttpAddress httpAddress = ctx.channel().attr(NettyHttpsServerConfig.ATTRIBUTE_KEY_HTTP_ADDRESS).get();
+            HttpsRequestBuilder httpsRequestBuilder = null;
             try {
                 Integer streamId = fullHttpRequest.headers().getInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
                 HttpResponseBuilder httpsResponseBuilder = HttpResponse.builder()
                         .setChannelHandlerContext(ctx)
+                        .setHttpServerConfig(nettyHttpServer.getNettyHttpServerConfig())
                         .setVersion(HttpVersion.HTTP_2_0);
                 if (streamId != null) {
                     httpsResponseBuilder.setStreamId(streamId + 1);
                 }
-                HttpsRequestBuilder httpsRequestBuilder = HttpsRequest.builder()
-                        .setFullHttpRequest(fullHttpRequest)
+                httpsRequestBuilder = HttpsRequest.builder();
+                httpsRequestBuilder.setFullHttpRequest(fullHttpRequest)
                         .setBaseURL(httpAddress,
                                 fullHttpRequest.uri(),
                                 fullHttpRequest.headers().get(HttpHeaderNames.HOST))
@@ -69,6 +71,9 @@ public class Https2Handler extends ChannelDuplexHandler {
                 nettyHttpServer.getApplication().dispatch(httpsRequestBuilder, httpsResponseBuilder);
             } catch (Exception e) {
                 logger.log(Level.SEVERE, "bad request: " + e.getMessage(), e);
+                if (httpsRequestBuilder != null) {
+                    httpsRequestBuilder.release();
+                }
                 DefaultFullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(io.netty.handler.codec.http.HttpVersion.valueOf(httpAddress.getVersion().text()),
                         io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST);
                 ctx.writeAndFlush(fullHttpResponse);
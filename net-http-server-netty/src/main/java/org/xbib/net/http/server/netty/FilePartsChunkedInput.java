@@ -0,0 +1,110 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import org.xbib.net.http.server.FilePart;
+import org.xbib.net.http.server.netty.buffer.NettyDataBufferFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * Reads the headers and file regions of file parts as a sequence of chunks, for channels where
+ * the file regions can not be sent by the kernel. Closes the file channel when closed.
+ */
+final class FilePartsChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private final FileChannel fileChannel;
+
+    private final List<FilePart> parts;
+
+    private final int chunkSize;
+
+    private final long length;
+
+    private long progress;
+
+    private int index;
+
+    private long offset;
+
+    private boolean headerSent;
+
+    FilePartsChunkedInput(FileChannel fileChannel, List<FilePart> parts, int chunkSize) {
+        this.fileChannel = fileChannel;
+        this.parts = parts;
+        this.chunkSize = chunkSize;
+        this.length = parts.stream().mapToLong(FilePart::getLength).sum();
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return index >= parts.size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        fileChannel.close();
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        while (index < parts.size()) {
+            FilePart part = parts.get(index);
+            if (!headerSent) {
+                headerSent = true;
+                if (part.getHeader() != null && part.getHeader().readableByteCount() > 0) {
+                    ByteBuf byteBuf = NettyDataBufferFactory.toByteBuf(part.getHeader()).retainedDuplicate();
+                    progress += byteBuf.readableBytes();
+                    return byteBuf;
+                }
+            }
+            if (offset < part.getCount()) {
+                int size = (int) Math.min(chunkSize, part.getCount() - offset);
+                ByteBuf byteBuf = allocator.buffer(size);
+                boolean release = true;
+                try {
+                    int read = 0;
+                    while (read < size) {
+                        int n = byteBuf.writeBytes(fileChannel, part.getPosition() + offset + read, size - read);
+                        if (n < 0) {
+                            throw new IOException("unexpected end of file at position " + (part.getPosition() + offset + read));
+                        }
+                        read += n;
+                    }
+                    offset += size;
+                    progress += size;
+                    release = false;
+                    return byteBuf;
+                } finally {
+                    if (release) {
+                        byteBuf.release();
+                    }
+                }
+            }
+            index++;
+            offset = 0L;
+            headerSent = false;
+        }
+        return null;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+}
@@ -8,6 +8,7 @@ import org.xbib.net.http.server.BaseHttpRequest;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.util.Objects;
 
@@ -26,7 +27,19 @@ public class HttpRequest extends BaseHttpRequest {
 
     @Override
     public InputStream getInputStream() {
-        return new ByteBufInputStream(builder.fullHttpRequest.content());
+        if (builder.getRequestBody() != null) {
+            return builder.getRequestBody().getInputStream();
+        }
+        // a duplicate, so reading the stream does not move the reader index of the body
+        return new ByteBufInputStream(builder.fullHttpRequest.content().duplicate());
+    }
+
+    @Override
+    public ReadableByteChannel getBodyChannel() {
+        if (builder.getRequestBody() != null) {
+            return builder.getRequestBody().getChannel();
+        }
+        return super.getBodyChannel();
     }
 
     @Override
@@ -50,6 +63,10 @@ public class HttpRequest extends BaseHttpRequest {
         return "HttpRequest[request=" + builder.fullHttpRequest + "]";
     }
 
+    /**
+     * The body of the request as a Netty buffer. The buffer is valid until the request is released.
+     * @return the body
+     */
     public ByteBuf getByteBuf() {
         return builder.fullHttpRequest.content();
     }
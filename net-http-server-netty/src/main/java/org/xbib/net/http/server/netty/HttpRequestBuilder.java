@@ -1,54 +1,137 @@
 package org.xbib.net.http.server.netty;
 
-import io.netty.buffer.ByteBufUtil;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
+import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import org.xbib.net.URL;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.HttpVersion;
 import org.xbib.net.http.server.BaseHttpRequestBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class HttpRequestBuilder extends BaseHttpRequestBuilder {
 
+    private final AtomicBoolean released;
+
     FullHttpRequest fullHttpRequest;
 
     ByteBuffer byteBuffer;
 
+    private CharBuffer charBuffer;
+
+    private Charset charBufferCharset;
+
+    private HttpPostMultipartRequestDecoder multipartDecoder;
+
     protected HttpRequestBuilder() {
+        this.released = new AtomicBoolean();
     }
 
+    /**
+     * Set the Netty request. The request is retained until {@link #release()}, so the body can be read
+     * after the transport has released the request.
+     * @param fullHttpRequest the Netty request
+     * @return this builder
+     */
     public HttpRequestBuilder setFullHttpRequest(FullHttpRequest fullHttpRequest) {
         if (fullHttpRequest != null) {
-            this.fullHttpRequest = fullHttpRequest;
+            this.fullHttpRequest = fullHttpRequest.retain();
             setVersion(HttpVersion.valueOf(fullHttpRequest.protocolVersion().text()));
             setMethod(HttpMethod.valueOf(fullHttpRequest.method().name()));
             setRequestURI(fullHttpRequest.uri());
-            fullHttpRequest.headers().entries().forEach(e -> addHeader(e.getKey(), e.getValue()));
+            // a view of the Netty headers, nothing is copied before the headers are read
+            setHeaders(new NettyHttpHeaders(fullHttpRequest.headers()));
+            if (fullHttpRequest instanceof StreamingFullHttpRequest) {
+                setRequestBody(((StreamingFullHttpRequest) fullHttpRequest).getRequestBody());
+            }
+            if (fullHttpRequest instanceof MultipartFullHttpRequest) {
+                setMultipartDecoder(((MultipartFullHttpRequest) fullHttpRequest).getDecoder());
+            }
         }
         return this;
     }
 
+    /**
+     * Take the parts of a decoded multipart body. Fields become form fields, files become uploaded files.
+     * The decoder is destroyed on {@link #release()}, which deletes the files on disk.
+     */
+    private void setMultipartDecoder(HttpPostMultipartRequestDecoder multipartDecoder) {
+        this.multipartDecoder = multipartDecoder;
+        try {
+            for (InterfaceHttpData httpData : multipartDecoder.getBodyHttpDatas()) {
+                if (httpData instanceof Attribute) {
+                    Attribute attribute = (Attribute) httpData;
+                    addFormField(attribute.getName(), attribute.getValue());
+                } else if (httpData instanceof FileUpload) {
+                    addUploadedFile(new NettyUploadedFile((FileUpload) httpData));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The request body as a read-only view of the Netty buffer, without copying. Only an aggregated body of
+     * many buffers is merged into one buffer. The view is valid until the request is released.
+     * @return the request body
+     */
     @Override
     public ByteBuffer getBody() {
-        if (byteBuffer != null) {
-            return byteBuffer;
+        if (byteBuffer == null) {
+            if (requestBody != null) {
+                try {
+                    byteBuffer = requestBody.toByteBuffer().asReadOnlyBuffer();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else if (fullHttpRequest != null) {
+                byteBuffer = fullHttpRequest.content().nioBuffer().asReadOnlyBuffer();
+            }
         }
-        // read all bytes from request into a JDK ByteBuffer. This might be expensive.
-        if (fullHttpRequest.content() != null) {
-            byteBuffer = ByteBuffer.wrap(ByteBufUtil.getBytes(fullHttpRequest.content()));
-        }
-        return byteBuffer;
+        return byteBuffer != null ? byteBuffer.duplicate() : null;
     }
 
+    /**
+     * The request body as characters. The body is decoded once, later calls with the same charset
+     * return the same characters.
+     * @param charset the charset
+     * @return the request body
+     */
     @Override
     public CharBuffer getBodyAsChars(Charset charset) {
-        return fullHttpRequest.content() != null ?
-                CharBuffer.wrap(fullHttpRequest.content().toString(charset)) : null;
+        if (charBuffer == null || !charset.equals(charBufferCharset)) {
+            ByteBuffer body = getBody();
+            if (body == null) {
+                return null;
+            }
+            charBuffer = charset.decode(body);
+            charBufferCharset = charset;
+        }
+        return charBuffer.duplicate();
+    }
+
+    @Override
+    public void release() {
+        super.release();
+        if (released.compareAndSet(false, true)) {
+            if (fullHttpRequest != null) {
+                fullHttpRequest.release();
+            }
+            if (multipartDecoder != null) {
+                multipartDecoder.destroy();
+            }
+        }
     }
 
     @Override
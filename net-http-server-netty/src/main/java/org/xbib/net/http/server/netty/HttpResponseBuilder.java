@@ -4,18 +4,21 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.http.DefaultFullHttpResponse;
-import io.netty.handler.codec.http.DefaultHttpHeaders;
-import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpContentEncoder;
 import io.netty.handler.codec.http.HttpHeaderNames;
-import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
-import io.netty.handler.codec.http.HttpResponseStatus;
-import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedNioFile;
 import io.netty.handler.stream.ChunkedStream;
 import org.xbib.net.buffer.DataBuffer;
@@ -23,19 +26,26 @@ import org.xbib.net.http.server.netty.buffer.NettyDataBuffer;
 import org.xbib.net.http.server.netty.buffer.NettyDataBufferFactory;
 import org.xbib.net.http.server.netty.http1.HttpPipelinedResponse;
 import org.xbib.net.http.server.BaseHttpResponseBuilder;
+import org.xbib.net.http.server.FilePart;
+import org.xbib.net.http.server.HttpServerConfig;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static io.netty.channel.ChannelFutureListener.CLOSE;
+import static org.xbib.net.http.server.netty.NettyHttpMapping.toNettyStatus;
+import static org.xbib.net.http.server.netty.NettyHttpMapping.toNettyVersion;
 
 public class HttpResponseBuilder extends BaseHttpResponseBuilder {
 
@@ -43,6 +53,8 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
 
     private ChannelHandlerContext ctx;
 
+    private ChannelFutureListener channelCloseListener;
+
     HttpResponseBuilder() {
         super();
     }
@@ -50,6 +62,8 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
     @Override
     public void reset() {
         super.reset();
+        this.headers = new NettyHttpHeaders();
+        this.trailingHeaders = new NettyHttpHeaders();
         this.dataBufferFactory = NettyDataBufferFactory.getInstance();
     }
 
@@ -119,6 +133,34 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
         return this;
     }
 
+    /**
+     * Notify the listener when the channel closes, for example after the client disconnected
+     * or the idle timeout handler closed the connection.
+     * @param closeListener the listener, or null to remove the listener
+     * @return this builder
+     */
+    @Override
+    public HttpResponseBuilder setCloseListener(Runnable closeListener) {
+        super.setCloseListener(closeListener);
+        Objects.requireNonNull(ctx);
+        if (channelCloseListener != null) {
+            ctx.channel().closeFuture().removeListener(channelCloseListener);
+            channelCloseListener = null;
+        }
+        if (closeListener != null) {
+            channelCloseListener = future -> closeListener.run();
+            // runs immediately if the channel is already closed
+            ctx.channel().closeFuture().addListener(channelCloseListener);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpResponseBuilder setHttpServerConfig(HttpServerConfig httpServerConfig) {
+        super.setHttpServerConfig(httpServerConfig);
+        return this;
+    }
+
     public HttpResponseBuilder setChannelHandlerContext(ChannelHandlerContext ctx) {
         this.ctx = ctx;
         return this;
@@ -127,6 +169,10 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
     @Override
     public HttpResponse build() {
         Objects.requireNonNull(ctx);
+        if (streaming) {
+            endStreaming();
+            return new HttpResponse(this);
+        }
         //if (shouldFlush()) {
         //    internalFlush();
         //}
@@ -154,6 +200,121 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
     //    ctx.close();
     //}
 
+    @Override
+    protected void startStream() {
+        super.buildServerHeaders();
+        streamWrite(NettyHttpContentCompressor.createResponse(toNettyVersion(version), toNettyStatus(status),
+                nettyHeaders(), compressionPolicy));
+    }
+
+    @Override
+    protected void writeStream(DataBuffer dataBuffer) {
+        // retain Netty byteBuf because the content will be released in writeAndFlush()
+        streamWrite(new DefaultHttpContent(NettyDataBufferFactory.toByteBuf(dataBuffer).retain()));
+    }
+
+    @Override
+    protected void endStream() {
+        LastHttpContent lastHttpContent = new DefaultLastHttpContent();
+        HttpHeaders trailingHeaders = nettyTrailingHeaders();
+        if (!trailingHeaders.isEmpty()) {
+            lastHttpContent.trailingHeaders().set(trailingHeaders);
+        }
+        ChannelFuture channelFuture = writeAndFlush(lastHttpContent, true);
+        if (shouldClose()) {
+            channelFuture.addListener(CLOSE);
+        }
+    }
+
+    /**
+     * Write a part of a streaming response. If the channel is not writable, wait until the part has been
+     * written to the socket. On the event loop there is no waiting, the event loop must not block.
+     */
+    private void streamWrite(Object msg) {
+        if (!ctx.channel().isActive()) {
+            throw new UncheckedIOException(new ClosedChannelException());
+        }
+        awaitWritable(writeAndFlush(msg, false));
+    }
+
+    /**
+     * If the channel is not writable, wait until the write has reached the socket. On the event loop
+     * there is no waiting, the event loop must not block, and Netty queues the write.
+     */
+    private void awaitWritable(ChannelFuture channelFuture) {
+        if (!ctx.channel().isWritable() && !ctx.executor().inEventLoop()) {
+            try {
+                channelFuture.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("interrupted while writing to " + ctx.channel()));
+            }
+            if (!channelFuture.isSuccess()) {
+                throw new UncheckedIOException(new IOException(channelFuture.cause()));
+            }
+        }
+    }
+
+    /**
+     * Write a message of the response. With pipelining, the message carries the sequence id of the request,
+     * and the response of the next request follows after the last message of this response.
+     * @param msg the message
+     * @param last true if this is the last message of the response
+     * @return the future of the write
+     */
+    private ChannelFuture write(Object msg, boolean last) {
+        if (sequenceId != null) {
+            return ctx.write(new HttpPipelinedResponse(msg, ctx.channel().newPromise(), sequenceId, last));
+        }
+        return ctx.write(msg);
+    }
+
+    private ChannelFuture writeAndFlush(Object msg, boolean last) {
+        ChannelFuture channelFuture = write(msg, last);
+        ctx.flush();
+        return channelFuture;
+    }
+
+    /**
+     * The response headers in Netty's header structure, with the stream id for HTTP/2.
+     * The headers are handed to the Netty response as they are, without copying.
+     */
+    private HttpHeaders nettyHeaders() {
+        HttpHeaders headers = ((NettyHttpHeaders) super.headers).getNettyHeaders();
+        if (streamId != null) {
+            headers.set(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), String.valueOf(streamId));
+        }
+        return headers;
+    }
+
+    private HttpHeaders nettyTrailingHeaders() {
+        return ((NettyHttpHeaders) super.trailingHeaders).getNettyHeaders();
+    }
+
+    private static void closeQuietly(FileChannel fileChannel) {
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A file region can be sent by the kernel only if the bytes of the file go to the socket unchanged,
+     * that is, without TLS, without content compression, and not inside HTTP/2 frames.
+     * A compressor passes the response through if the compression policy does not allow compression.
+     */
+    private boolean isZeroCopy(io.netty.handler.codec.http.HttpResponse httpResponse) {
+        ChannelPipeline pipeline = ctx.pipeline();
+        if (ctx.channel() instanceof Http2StreamChannel || pipeline.get(SslHandler.class) != null) {
+            return false;
+        }
+        HttpContentEncoder httpContentEncoder = pipeline.get(HttpContentEncoder.class);
+        return httpContentEncoder == null ||
+                (httpContentEncoder instanceof NettyHttpContentCompressor &&
+                        !((NettyHttpContentCompressor) httpContentEncoder).isCompressible(httpResponse));
+    }
+
     private void internalWrite(String body) {
         internalWrite(dataBufferFactory.wrap(StandardCharsets.UTF_8.encode(body)));
     }
@@ -173,113 +334,116 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
 
     private void internalBufferWrite(ByteBuf byteBuf, int length) {
         super.buildHeaders(length);
-        HttpResponseStatus responseStatus = HttpResponseStatus.valueOf(status.code());
-        HttpHeaders headers = new DefaultHttpHeaders();
-        super.headers.entries().forEach(e -> headers.add(e.getKey(), e.getValue()));
+        HttpHeaders headers = nettyHeaders();
         // fix headers
-        if (streamId != null) {
-            headers.add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), String.valueOf(streamId));
-        }
         if (!headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
             headers.remove(HttpHeaderNames.TRANSFER_ENCODING);
             headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
         }
-        HttpHeaders trailingHeaders = new DefaultHttpHeaders();
-        super.trailingHeaders.entries().forEach(e -> trailingHeaders.add(e.getKey(), e.getValue()));
         // retain Netty byteBuf because FullHttpResponse will be released in writeAndFlush()
-        FullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(HttpVersion.valueOf(version.text()),
-                responseStatus, byteBuf.retain(), headers, trailingHeaders);
-        if (!ctx.channel().isWritable()) {
-            logger.log(Level.WARNING, "we have a problem, the channel " + ctx.channel() + " is not writable");
-            return;
-        }
-        if (sequenceId != null) {
-            HttpPipelinedResponse httpPipelinedResponse = new HttpPipelinedResponse(fullHttpResponse,
-                    ctx.channel().newPromise(), sequenceId);
-            ctx.write(httpPipelinedResponse);
-        } else {
-            ctx.write(fullHttpResponse);
-        }
-        ctx.flush();
+        FullHttpResponse fullHttpResponse = NettyHttpContentCompressor.createResponse(toNettyVersion(version),
+                toNettyStatus(status), byteBuf.retain(), headers, nettyTrailingHeaders(), compressionPolicy);
+        // the response is always written, also when the channel is not writable, because the responses
+        // of pipelined requests wait for it
+        awaitWritable(writeAndFlush(fullHttpResponse, true));
     }
 
+    /**
+     * Write a file response. The parts are written on the event loop, where they can not wait for the channel
+     * to become writable. The file regions and chunked inputs are read only when the channel can take them.
+     */
     private void internalWrite(FileChannel fileChannel, int bufferSize, boolean keepAlive) {
-        if (!ctx.channel().isWritable()) {
-            logger.log(Level.WARNING, "we have a problem, the channel " + ctx.channel() + " is not writable");
-        }
-        HttpResponseStatus responseStatus = HttpResponseStatus.valueOf(status.code());
-        DefaultHttpResponse rsp = new DefaultHttpResponse(HttpVersion.HTTP_1_1, responseStatus);
-        ctx.channel().eventLoop().execute(() -> {
-            ctx.write(rsp);
-            try {
-                ctx.write(new ChunkedNioFile(fileChannel, bufferSize));
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-            ChannelFuture channelFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
-            if (headers.containsHeader(HttpHeaderNames.CONTENT_LENGTH)) {
-                if (!keepAlive) {
-                    channelFuture.addListener(CLOSE);
+        super.buildHeaders(fileCount);
+        io.netty.handler.codec.http.HttpResponse rsp = NettyHttpContentCompressor.createResponse(toNettyVersion(version),
+                toNettyStatus(status), nettyHeaders(), compressionPolicy);
+        long position = filePosition;
+        long count = fileCount;
+        List<FilePart> parts = fileParts;
+        boolean zeroCopy = isZeroCopy(rsp);
+        Runnable runnable = () -> {
+            write(rsp, false);
+            ChannelFuture channelFuture;
+            if (zeroCopy) {
+                // sendfile, the region closes the file channel when it is released
+                if (parts != null) {
+                    int last = -1;
+                    for (int i = 0; i < parts.size(); i++) {
+                        if (parts.get(i).getCount() > 0L) {
+                            last = i;
+                        }
+                    }
+                    for (int i = 0; i < parts.size(); i++) {
+                        FilePart part = parts.get(i);
+                        if (part.getHeader() != null) {
+                            write(new DefaultHttpContent(NettyDataBufferFactory.toByteBuf(part.getHeader()).retain()), false);
+                        }
+                        if (part.getCount() > 0L) {
+                            write(new SharedFileRegion(fileChannel, part.getPosition(), part.getCount(), i == last), false);
+                        }
+                    }
+                    if (last == -1) {
+                        closeQuietly(fileChannel);
+                    }
+                } else {
+                    write(new DefaultFileRegion(fileChannel, position, count), false);
                 }
+                channelFuture = writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT, true);
+            } else if (parts != null) {
+                channelFuture = writeAndFlush(new HttpChunkedInput(new FilePartsChunkedInput(fileChannel,
+                        parts, bufferSize)), true);
             } else {
+                try {
+                    channelFuture = writeAndFlush(new HttpChunkedInput(new ChunkedNioFile(fileChannel,
+                            position, count, bufferSize)), true);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (!keepAlive || shouldClose()) {
                 channelFuture.addListener(CLOSE);
             }
-        });
+        };
+        // non-blocking services run on the event loop, no need for a handoff
+        if (ctx.executor().inEventLoop()) {
+            runnable.run();
+        } else {
+            ctx.channel().eventLoop().execute(runnable);
+        }
     }
 
+    /**
+     * Write an input stream response. A stream that fits into the first buffer is written as a full response
+     * with a content length, a longer stream is written in chunks while it is read.
+     */
     private void internalWrite(InputStream inputStream, int bufferSize, boolean keepAlive) {
-        if (!ctx.channel().isWritable()) {
-            logger.log(Level.WARNING, "channel not writeable: " + ctx.channel());
-            return;
-        }
-        // TODO we write a single chunk, but we should use chunked output here.
         ByteBuf buffer;
         int count;
         try {
             byte[] chunk = new byte[bufferSize];
-            count = inputStream.read(chunk, 0, bufferSize);
-            if (count <= 0) {
-                return;
-            }
+            count = inputStream.readNBytes(chunk, 0, bufferSize);
             buffer = Unpooled.wrappedBuffer(chunk, 0, count);
         } catch (IOException e) {
-            logger.log(Level.SEVERE, e.getMessage(), e);
-            return;
+            throw new UncheckedIOException(e);
         }
         if (count < bufferSize) {
-            // not chunked, no headers (???)
-            internalBufferWrite(buffer, count);
-        } else {
-            // chunked
-            super.buildHeaders(0);
-            HttpResponseStatus responseStatus = HttpResponseStatus.valueOf(status.code());
-            HttpHeaders headers = new DefaultHttpHeaders();
-            super.headers.entries().forEach(e -> headers.add(e.getKey(), e.getValue()));
-            if (streamId != null) {
-                headers.add(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), String.valueOf(streamId));
-            }
-            HttpHeaders trailingHeaders = new DefaultHttpHeaders();
-            super.trailingHeaders.entries().forEach(e -> trailingHeaders.add(e.getKey(), e.getValue()));
-            DefaultHttpResponse defaultHttpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, responseStatus);
-            if (!headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
-                headers.set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
-            } else {
-                if (keepAlive) {
-                    headers.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
-                }
-            }
-            defaultHttpResponse.headers().set(headers);
-            ctx.write(defaultHttpResponse);
-            //ctx.write(buffer); ???
-            ctx.write(new ChunkedStream(inputStream, bufferSize));
-            ChannelFuture channelFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
-            if (headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
-                if (!keepAlive) {
-                    channelFuture.addListener(CLOSE);
-                }
-            } else {
-                channelFuture.addListener(CLOSE);
+            try {
+                internalBufferWrite(buffer, count);
+            } finally {
+                // the full response holds its own reference
+                buffer.release();
             }
+            return;
+        }
+        // the length is unknown, the headers declare a chunked body, or a close for HTTP/1.0
+        super.buildHeaders(-1L);
+        write(NettyHttpContentCompressor.createResponse(toNettyVersion(version), toNettyStatus(status),
+                nettyHeaders(), compressionPolicy), false);
+        // the first chunk has already been read from the stream
+        write(new DefaultHttpContent(buffer), false);
+        ChannelFuture channelFuture = writeAndFlush(new HttpChunkedInput(new ChunkedStream(inputStream,
+                bufferSize)), true);
+        if (!keepAlive || shouldClose()) {
+            channelFuture.addListener(CLOSE);
         }
     }
 }
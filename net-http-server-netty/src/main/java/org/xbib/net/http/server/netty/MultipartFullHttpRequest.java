@@ -0,0 +1,27 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
+
+/**
+ * A request with a decoded {@code multipart/form-data} body. The content is empty, the parts of the body
+ * are held by the decoder, which must be destroyed when the request has been handled.
+ */
+class MultipartFullHttpRequest extends DefaultFullHttpRequest {
+
+    private final HttpPostMultipartRequestDecoder decoder;
+
+    MultipartFullHttpRequest(HttpRequest httpRequest, HttpPostMultipartRequestDecoder decoder) {
+        super(httpRequest.protocolVersion(), httpRequest.method(), httpRequest.uri(), Unpooled.EMPTY_BUFFER,
+                httpRequest.headers(), new DefaultHttpHeaders());
+        setDecoderResult(httpRequest.decoderResult());
+        this.decoder = decoder;
+    }
+
+    HttpPostMultipartRequestDecoder getDecoder() {
+        return decoder;
+    }
+}
@@ -0,0 +1,110 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
+import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decodes {@code multipart/form-data} request bodies while they are received. Each chunk of the body is
+ * offered to a Netty multipart decoder, so the body is never aggregated. Fields and files up to the request
+ * body threshold are kept in memory, larger ones are written to disk. When the body is complete, the request
+ * is passed on with empty content, carrying the decoded parts. The decoded parts, including the files on disk,
+ * are destroyed when the request has been handled.
+ */
+public class MultipartRequestHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = Logger.getLogger(MultipartRequestHandler.class.getName());
+
+    private final NettyHttpServerConfig nettyHttpServerConfig;
+
+    private final DefaultHttpDataFactory httpDataFactory;
+
+    private HttpRequest httpRequest;
+
+    private HttpPostMultipartRequestDecoder decoder;
+
+    public MultipartRequestHandler(NettyHttpServerConfig nettyHttpServerConfig) {
+        this.nettyHttpServerConfig = nettyHttpServerConfig;
+        this.httpDataFactory = new DefaultHttpDataFactory(nettyHttpServerConfig.getRequestBodyThreshold());
+        httpDataFactory.setMaxLimit(nettyHttpServerConfig.getMaxContentLength());
+        if (nettyHttpServerConfig.getRequestBodyDirectory() != null) {
+            httpDataFactory.setBaseDir(nettyHttpServerConfig.getRequestBodyDirectory().toString());
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest) &&
+                HttpPostRequestDecoder.isMultipart((HttpRequest) msg)) {
+            HttpRequest httpRequest = (HttpRequest) msg;
+            if (HttpUtil.is100ContinueExpected(httpRequest)) {
+                ctx.writeAndFlush(new DefaultFullHttpResponse(httpRequest.protocolVersion(),
+                        HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+                httpRequest.headers().remove(HttpHeaderNames.EXPECT);
+            }
+            try {
+                decoder = new HttpPostMultipartRequestDecoder(httpDataFactory, httpRequest);
+                // keep the undecoded bytes of the body bounded
+                decoder.setDiscardThreshold(nettyHttpServerConfig.getRequestBodyThreshold());
+                this.httpRequest = httpRequest;
+            } catch (HttpPostRequestDecoder.ErrorDataDecoderException e) {
+                reject(ctx, httpRequest, e);
+            }
+        } else if (msg instanceof HttpContent && decoder != null) {
+            HttpContent httpContent = (HttpContent) msg;
+            try {
+                decoder.offer(httpContent);
+                if (msg instanceof LastHttpContent) {
+                    MultipartFullHttpRequest multipartFullHttpRequest =
+                            new MultipartFullHttpRequest(httpRequest, decoder);
+                    httpRequest = null;
+                    decoder = null;
+                    ctx.fireChannelRead(multipartFullHttpRequest);
+                }
+            } catch (HttpPostRequestDecoder.ErrorDataDecoderException e) {
+                decoder.destroy();
+                decoder = null;
+                reject(ctx, httpRequest, e);
+                httpRequest = null;
+            } finally {
+                httpContent.release();
+            }
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (decoder != null) {
+            decoder.destroy();
+            decoder = null;
+            httpRequest = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    private void reject(ChannelHandlerContext ctx, HttpRequest httpRequest, Exception e) {
+        logger.log(Level.WARNING, e.getMessage(), e);
+        FullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(httpRequest.protocolVersion(),
+                HttpResponseStatus.BAD_REQUEST, Unpooled.EMPTY_BUFFER);
+        HttpUtil.setContentLength(fullHttpResponse, 0L);
+        ctx.writeAndFlush(fullHttpResponse).addListener(ChannelFutureListener.CLOSE);
+    }
+}
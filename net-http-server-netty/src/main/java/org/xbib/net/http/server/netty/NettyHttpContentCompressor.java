@@ -0,0 +1,188 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.BrotliEncoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.compression.ZstdEncoder;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import org.xbib.net.http.server.CompressionPolicy;
+import org.xbib.net.http.server.resource.negotiate.EncodingNegotiator;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A content compressor that follows a {@link CompressionPolicy}. The policy of the server is used, unless
+ * the response carries the policy of its service. Responses with a {@code Content-Encoding} header are
+ * sent as they are, a {@code Content-Encoding: identity} header only turns off compression and is removed.
+ * Brotli and zstd are offered if their native libraries are present.
+ */
+public class NettyHttpContentCompressor extends HttpContentCompressor {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpContentCompressor.class.getName());
+
+    private static final int WINDOW_BITS = 15;
+
+    private static final int MEM_LEVEL = 8;
+
+    private final CompressionPolicy compressionPolicy;
+
+    private ChannelHandlerContext ctx;
+
+    public NettyHttpContentCompressor(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * Create a response with the compression policy of a service.
+     * @param version the HTTP version
+     * @param status the status
+     * @param content the body
+     * @param headers the headers
+     * @param trailingHeaders the trailing headers
+     * @param compressionPolicy the policy of the service, or null for the policy of the server
+     * @return the response
+     */
+    public static FullHttpResponse createResponse(HttpVersion version, HttpResponseStatus status, ByteBuf content,
+                                                  HttpHeaders headers, HttpHeaders trailingHeaders,
+                                                  CompressionPolicy compressionPolicy) {
+        return compressionPolicy != null ?
+                new PolicyFullHttpResponse(version, status, content, headers, trailingHeaders, compressionPolicy) :
+                new DefaultFullHttpResponse(version, status, content, headers, trailingHeaders);
+    }
+
+    /**
+     * Create the head of a response with the compression policy of a service. The body follows as HTTP content.
+     * @param version the HTTP version
+     * @param status the status
+     * @param headers the headers
+     * @param compressionPolicy the policy of the service, or null for the policy of the server
+     * @return the response
+     */
+    public static HttpResponse createResponse(HttpVersion version, HttpResponseStatus status, HttpHeaders headers,
+                                              CompressionPolicy compressionPolicy) {
+        return compressionPolicy != null ?
+                new PolicyHttpResponse(version, status, headers, compressionPolicy) :
+                new DefaultHttpResponse(version, status, headers);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    /**
+     * Check if the policy allows the compression of a response, regardless of the codings the client accepts.
+     * @param httpResponse the response
+     * @return true if the response may be compressed
+     */
+    public boolean isCompressible(HttpResponse httpResponse) {
+        HttpHeaders headers = httpResponse.headers();
+        if (headers.contains(HttpHeaderNames.CONTENT_ENCODING)) {
+            return false;
+        }
+        CompressionPolicy policy = findPolicy(httpResponse);
+        return policy != null &&
+                policy.isCompressible(headers.get(HttpHeaderNames.CONTENT_TYPE), HttpUtil.getContentLength(httpResponse, -1L));
+    }
+
+    @Override
+    protected Result beginEncode(HttpResponse httpResponse, String acceptEncoding) throws Exception {
+        HttpHeaders headers = httpResponse.headers();
+        String contentEncoding = headers.get(HttpHeaderNames.CONTENT_ENCODING);
+        if (contentEncoding != null) {
+            if (HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(contentEncoding)) {
+                headers.remove(HttpHeaderNames.CONTENT_ENCODING);
+            }
+            return null;
+        }
+        if (!isCompressible(httpResponse)) {
+            return null;
+        }
+        CompressionPolicy policy = findPolicy(httpResponse);
+        for (String encoding : EncodingNegotiator.findEncodings(acceptEncoding, policy.getEncodings())) {
+            ChannelHandler encoder = createEncoder(encoding, policy.getLevel());
+            if (encoder != null) {
+                return new Result(encoding, new EmbeddedChannel(ctx.channel().id(),
+                        ctx.channel().metadata().hasDisconnect(), ctx.channel().config(), encoder));
+            }
+        }
+        return null;
+    }
+
+    private CompressionPolicy findPolicy(HttpResponse httpResponse) {
+        return httpResponse instanceof PolicyResponse ?
+                ((PolicyResponse) httpResponse).getCompressionPolicy() : compressionPolicy;
+    }
+
+    private static ChannelHandler createEncoder(String encoding, int level) {
+        switch (encoding) {
+            case "br":
+                return Brotli.isAvailable() ? new BrotliEncoder() : null;
+            case "zstd":
+                return Zstd.isAvailable() ? new ZstdEncoder() : null;
+            case "gzip":
+                return ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP, level, WINDOW_BITS, MEM_LEVEL);
+            case "deflate":
+                return ZlibCodecFactory.newZlibEncoder(ZlibWrapper.ZLIB, level, WINDOW_BITS, MEM_LEVEL);
+            default:
+                logger.log(Level.FINE, "unsupported content coding: " + encoding);
+                return null;
+        }
+    }
+
+    private interface PolicyResponse {
+
+        CompressionPolicy getCompressionPolicy();
+    }
+
+    private static class PolicyFullHttpResponse extends DefaultFullHttpResponse implements PolicyResponse {
+
+        private final CompressionPolicy compressionPolicy;
+
+        PolicyFullHttpResponse(HttpVersion version, HttpResponseStatus status, ByteBuf content,
+                               HttpHeaders headers, HttpHeaders trailingHeaders,
+                               CompressionPolicy compressionPolicy) {
+            super(version, status, content, headers, trailingHeaders);
+            this.compressionPolicy = compressionPolicy;
+        }
+
+        @Override
+        public CompressionPolicy getCompressionPolicy() {
+            return compressionPolicy;
+        }
+    }
+
+    private static class PolicyHttpResponse extends DefaultHttpResponse implements PolicyResponse {
+
+        private final CompressionPolicy compressionPolicy;
+
+        PolicyHttpResponse(HttpVersion version, HttpResponseStatus status, HttpHeaders headers,
+                           CompressionPolicy compressionPolicy) {
+            super(version, status, headers);
+            this.compressionPolicy = compressionPolicy;
+        }
+
+        @Override
+        public CompressionPolicy getCompressionPolicy() {
+            return compressionPolicy;
+        }
+    }
+}
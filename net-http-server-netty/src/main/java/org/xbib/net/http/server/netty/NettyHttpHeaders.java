@@ -0,0 +1,100 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.xbib.datastructures.common.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headers that are stored in Netty's header structure. Response headers are handed to the Netty response
+ * without copying, request headers are a view of the headers of the Netty request. Names are looked up
+ * case-insensitively by the {@code AsciiString} hash of Netty, values are converted to strings when they are read.
+ * All methods are overridden, so the entry list and the index of the superclass are never allocated.
+ */
+final class NettyHttpHeaders extends org.xbib.net.http.HttpHeaders {
+
+    private final HttpHeaders httpHeaders;
+
+    NettyHttpHeaders() {
+        this(new DefaultHttpHeaders());
+    }
+
+    NettyHttpHeaders(HttpHeaders httpHeaders) {
+        this.httpHeaders = httpHeaders;
+    }
+
+    HttpHeaders getNettyHeaders() {
+        return httpHeaders;
+    }
+
+    @Override
+    public NettyHttpHeaders add(CharSequence name, String value) {
+        if (name != null && value != null) {
+            httpHeaders.add(name, value);
+        }
+        return this;
+    }
+
+    @Override
+    public NettyHttpHeaders add(CharSequence name, Iterable<?> values) {
+        values.forEach(v -> {
+            if (v != null) {
+                httpHeaders.add(name, v.toString());
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public NettyHttpHeaders set(CharSequence name, String value) {
+        if (name != null && value != null) {
+            httpHeaders.set(name, value);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean containsHeader(CharSequence name) {
+        return httpHeaders.contains(name);
+    }
+
+    /**
+     * Remove the headers of a name. Like Netty, and unlike the superclass, the case of the name is ignored.
+     * @param name the header name
+     */
+    @Override
+    public void remove(CharSequence name) {
+        httpHeaders.remove(name);
+    }
+
+    @Override
+    public String get(CharSequence header) {
+        return httpHeaders.get(header);
+    }
+
+    @Override
+    public List<String> getAll(CharSequence header) {
+        return httpHeaders.getAll(header);
+    }
+
+    /**
+     * A snapshot of the headers, changes of the returned list are not reflected in the headers.
+     * @return the header entries
+     */
+    @Override
+    public List<Pair<String, String>> entries() {
+        List<Pair<String, String>> list = new ArrayList<>(httpHeaders.size());
+        for (Map.Entry<String, String> entry : httpHeaders) {
+            list.add(Pair.of(entry.getKey(), entry.getValue()));
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return entries().toString();
+    }
+}
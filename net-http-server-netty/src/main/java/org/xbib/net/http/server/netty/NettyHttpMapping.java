@@ -0,0 +1,50 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+/**
+ * Precomputed mappings from the versions and status codes of {@code org.xbib.net.http}
+ * to their Netty counterparts.
+ */
+final class NettyHttpMapping {
+
+    private static final HttpVersion HTTP_2_0 = HttpVersion.valueOf("HTTP/2.0");
+
+    private static final org.xbib.net.http.HttpResponseStatus[] KNOWN_STATUS =
+            new org.xbib.net.http.HttpResponseStatus[600];
+
+    private static final HttpResponseStatus[] STATUS = new HttpResponseStatus[600];
+
+    static {
+        for (int code = 100; code < STATUS.length; code++) {
+            org.xbib.net.http.HttpResponseStatus status = org.xbib.net.http.HttpResponseStatus.valueOf(code);
+            KNOWN_STATUS[code] = status;
+            STATUS[code] = HttpResponseStatus.valueOf(code, status.reasonPhrase());
+        }
+    }
+
+    private NettyHttpMapping() {
+    }
+
+    static HttpVersion toNettyVersion(org.xbib.net.http.HttpVersion version) {
+        if (org.xbib.net.http.HttpVersion.HTTP_1_1.equals(version)) {
+            return HttpVersion.HTTP_1_1;
+        }
+        if (org.xbib.net.http.HttpVersion.HTTP_2_0.equals(version)) {
+            return HTTP_2_0;
+        }
+        if (org.xbib.net.http.HttpVersion.HTTP_1_0.equals(version)) {
+            return HttpVersion.HTTP_1_0;
+        }
+        return HttpVersion.valueOf(version.text());
+    }
+
+    static HttpResponseStatus toNettyStatus(org.xbib.net.http.HttpResponseStatus status) {
+        int code = status.code();
+        if (code >= 100 && code < STATUS.length && KNOWN_STATUS[code] == status) {
+            return STATUS[code];
+        }
+        return HttpResponseStatus.valueOf(code, status.reasonPhrase());
+    }
+}
@@ -2,8 +2,11 @@ package org.xbib.net.http.server.netty;
 
 import io.netty.util.AttributeKey;
 import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.server.CompressionPolicy;
 import org.xbib.net.http.server.HttpServerConfig;
 
+import java.nio.file.Path;
+
 public class NettyHttpServerConfig extends HttpServerConfig {
 
     public static final AttributeKey<HttpAddress> ATTRIBUTE_KEY_HTTP_ADDRESS = AttributeKey.valueOf("_address");
@@ -45,6 +48,26 @@ public class NettyHttpServerConfig extends HttpServerConfig {
      */
     private int maxContentLength = 256 * 1024 * 1024;
 
+    /**
+     * Streaming of large request bodies. Disabled by default, all request bodies are aggregated in memory.
+     */
+    private boolean isRequestStreamingEnabled = false;
+
+    /**
+     * Request bodies up to 64k are aggregated in memory, larger bodies are streamed and spilled to disk.
+     */
+    private int requestBodyThreshold = 64 * 1024;
+
+    /**
+     * The directory for spilled request bodies, null for the default temporary directory.
+     */
+    private Path requestBodyDirectory = null;
+
+    /**
+     * Decoding of multipart/form-data request bodies. Disabled by default, services parse the body themselves.
+     */
+    private boolean isMultipartDecodingEnabled = false;
+
     /**
      * HTTP/1 pipelining. Disabled by default.
      */
@@ -66,6 +89,11 @@ public class NettyHttpServerConfig extends HttpServerConfig {
      */
     private boolean enableCompression = true;
 
+    /**
+     * The compression policy of the server, services may override it.
+     */
+    private CompressionPolicy compressionPolicy = new CompressionPolicy();
+
     /**
      * Default for decompression.
      */
@@ -136,6 +164,61 @@ public class NettyHttpServerConfig extends HttpServerConfig {
         return maxContentLength;
     }
 
+    /**
+     * Handle requests with large or chunked bodies while the body is received, instead of aggregating the body
+     * in memory. The body of such a request is available from {@code HttpRequest.getBodyChannel()}.
+     * @param isRequestStreamingEnabled true for streaming request bodies
+     * @return this configuration
+     */
+    public NettyHttpServerConfig setRequestStreaming(boolean isRequestStreamingEnabled) {
+        this.isRequestStreamingEnabled = isRequestStreamingEnabled;
+        return this;
+    }
+
+    public boolean isRequestStreamingEnabled() {
+        return isRequestStreamingEnabled;
+    }
+
+    /**
+     * Set the size up to which request bodies are aggregated in memory. Larger request bodies, and request
+     * bodies of unknown size, are streamed. Of a streamed body, the bytes above this size are spilled to disk.
+     * Decoded multipart fields and files larger than this size are also kept on disk.
+     * @param requestBodyThreshold the threshold in bytes
+     * @return this configuration
+     */
+    public NettyHttpServerConfig setRequestBodyThreshold(int requestBodyThreshold) {
+        this.requestBodyThreshold = requestBodyThreshold;
+        return this;
+    }
+
+    public int getRequestBodyThreshold() {
+        return requestBodyThreshold;
+    }
+
+    public NettyHttpServerConfig setRequestBodyDirectory(Path requestBodyDirectory) {
+        this.requestBodyDirectory = requestBodyDirectory;
+        return this;
+    }
+
+    public Path getRequestBodyDirectory() {
+        return requestBodyDirectory;
+    }
+
+    /**
+     * Decode {@code multipart/form-data} request bodies while they are received. The fields of the body become
+     * form parameters of the request, the files are available from {@code HttpRequest.getUploadedFiles()}.
+     * @param isMultipartDecodingEnabled true for decoding multipart bodies
+     * @return this configuration
+     */
+    public NettyHttpServerConfig setMultipartDecoding(boolean isMultipartDecodingEnabled) {
+        this.isMultipartDecodingEnabled = isMultipartDecodingEnabled;
+        return this;
+    }
+
+    public boolean isMultipartDecodingEnabled() {
+        return isMultipartDecodingEnabled;
+    }
+
     public NettyHttpServerConfig setPipelining(boolean isPipeliningEnabled) {
         this.isPipeliningEnabled = isPipeliningEnabled;
         return this;
@@ -172,6 +255,20 @@ public class NettyHttpServerConfig extends HttpServerConfig {
         return enableCompression;
     }
 
+    /**
+     * Set the compression policy of the server. Services may override the policy.
+     * @param compressionPolicy the compression policy
+     * @return this configuration
+     */
+    public NettyHttpServerConfig setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+        return this;
+    }
+
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
     public NettyHttpServerConfig setDecompression(boolean enabled) {
         this.enableDecompression = enabled;
         return this;
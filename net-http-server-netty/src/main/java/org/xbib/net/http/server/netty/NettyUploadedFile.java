@@ -0,0 +1,62 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import org.xbib.net.http.server.UploadedFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An uploaded file that was decoded by the Netty multipart decoder.
+ */
+class NettyUploadedFile implements UploadedFile {
+
+    private final FileUpload fileUpload;
+
+    NettyUploadedFile(FileUpload fileUpload) {
+        this.fileUpload = fileUpload;
+    }
+
+    @Override
+    public String getName() {
+        return fileUpload.getName();
+    }
+
+    @Override
+    public String getFileName() {
+        return fileUpload.getFilename();
+    }
+
+    @Override
+    public String getContentType() {
+        return fileUpload.getContentType();
+    }
+
+    @Override
+    public long getLength() {
+        return fileUpload.length();
+    }
+
+    /**
+     * Read the file. A file in memory is read from the Netty buffer without copying, a file on disk
+     * is read from the file.
+     * @return the input stream
+     * @throws IOException if the file can not be read
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return fileUpload.isInMemory() ?
+                new ByteBufInputStream(fileUpload.getByteBuf().duplicate()) :
+                Files.newInputStream(fileUpload.getFile().toPath());
+    }
+
+    @Override
+    public void transferTo(Path target) throws IOException {
+        if (!fileUpload.renameTo(target.toFile())) {
+            throw new IOException("unable to move uploaded file to " + target);
+        }
+    }
+}
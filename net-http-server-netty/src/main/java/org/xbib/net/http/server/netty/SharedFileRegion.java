@@ -0,0 +1,26 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.channel.DefaultFileRegion;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * A file region of a file channel that is shared by several regions. Only the last region closes
+ * the file channel when it is released.
+ */
+final class SharedFileRegion extends DefaultFileRegion {
+
+    private final boolean last;
+
+    SharedFileRegion(FileChannel fileChannel, long position, long count, boolean last) {
+        super(fileChannel, position, count);
+        this.last = last;
+    }
+
+    @Override
+    protected void deallocate() {
+        if (last) {
+            super.deallocate();
+        }
+    }
+}
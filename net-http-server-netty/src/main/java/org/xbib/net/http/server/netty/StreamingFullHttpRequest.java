@@ -0,0 +1,27 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import org.xbib.net.http.server.RequestBody;
+
+/**
+ * A request that is passed on before its body has arrived. The content is empty, the body
+ * is received into the request body.
+ */
+class StreamingFullHttpRequest extends DefaultFullHttpRequest {
+
+    private final RequestBody requestBody;
+
+    StreamingFullHttpRequest(HttpRequest httpRequest, RequestBody requestBody) {
+        super(httpRequest.protocolVersion(), httpRequest.method(), httpRequest.uri(), Unpooled.EMPTY_BUFFER,
+                httpRequest.headers(), new DefaultHttpHeaders());
+        setDecoderResult(httpRequest.decoderResult());
+        this.requestBody = requestBody;
+    }
+
+    RequestBody getRequestBody() {
+        return requestBody;
+    }
+}
@@ -0,0 +1,149 @@
+package org.xbib.net.http.server.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.xbib.net.http.server.RequestBody;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Passes requests with large or chunked bodies on as soon as the headers have arrived, so they can be handled
+ * while the body is received. The body content is written to a {@link RequestBody}, which keeps the first bytes
+ * in memory and spills the rest to a temporary file. Requests with small bodies are left to the aggregator
+ * that follows this handler.
+ *
+ * The body is written on a separate executor, because spilling to the file blocks, and the event loop
+ * serves many other channels. The writes of a channel run one after the other. While writes are pending,
+ * automatic reads of the channel are turned off, so a slow disk holds back the client by TCP flow control
+ * instead of queueing content in memory. Reads are turned on again on the event loop when the writes are done.
+ */
+public class StreamingRequestHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = Logger.getLogger(StreamingRequestHandler.class.getName());
+
+    private static final ExecutorService WRITERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "org-xbib-net-http-netty-server-request-body");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final NettyHttpServerConfig nettyHttpServerConfig;
+
+    private RequestBody requestBody;
+
+    private CompletableFuture<Void> writes = CompletableFuture.completedFuture(null);
+
+    private int pendingWrites;
+
+    public StreamingRequestHandler(NettyHttpServerConfig nettyHttpServerConfig) {
+        this.nettyHttpServerConfig = nettyHttpServerConfig;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest) && isStreamed((HttpRequest) msg)) {
+            HttpRequest httpRequest = (HttpRequest) msg;
+            if (HttpUtil.is100ContinueExpected(httpRequest)) {
+                ctx.writeAndFlush(new DefaultFullHttpResponse(httpRequest.protocolVersion(),
+                        HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+                httpRequest.headers().remove(HttpHeaderNames.EXPECT);
+            }
+            requestBody = new RequestBody(nettyHttpServerConfig.getRequestBodyThreshold(),
+                    nettyHttpServerConfig.getRequestBodyDirectory());
+            ctx.fireChannelRead(new StreamingFullHttpRequest(httpRequest, requestBody));
+        } else if (msg instanceof HttpContent && requestBody != null) {
+            HttpContent httpContent = (HttpContent) msg;
+            RequestBody body = requestBody;
+            boolean last = msg instanceof LastHttpContent;
+            if (last) {
+                requestBody = null;
+            }
+            write(ctx, body, httpContent.content(), last);
+        } else {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (requestBody != null) {
+            requestBody.fail(new ClosedChannelException());
+            requestBody = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    /**
+     * A body is streamed if it is larger than the threshold, or if its size is not known in advance.
+     * Bodies larger than the maximum content length are left to the aggregator, which rejects them.
+     */
+    private boolean isStreamed(HttpRequest httpRequest) {
+        long contentLength = HttpUtil.getContentLength(httpRequest, -1L);
+        if (contentLength >= 0L) {
+            return contentLength > nettyHttpServerConfig.getRequestBodyThreshold() &&
+                    contentLength <= nettyHttpServerConfig.getMaxContentLength();
+        }
+        return HttpUtil.isTransferEncodingChunked(httpRequest);
+    }
+
+    /**
+     * Queue a write of the content behind the pending writes of the channel. The content is released
+     * when it is written. Called on the event loop.
+     */
+    private void write(ChannelHandlerContext ctx, RequestBody body, ByteBuf byteBuf, boolean last) {
+        if (pendingWrites++ == 0) {
+            ctx.channel().config().setAutoRead(false);
+        }
+        writes = writes.thenRunAsync(() -> {
+            try {
+                for (ByteBuffer byteBuffer : byteBuf.nioBuffers()) {
+                    body.write(byteBuffer);
+                }
+                if (body.getLength() > nettyHttpServerConfig.getMaxContentLength()) {
+                    throw new IOException("request body exceeds the maximum content length of " +
+                            nettyHttpServerConfig.getMaxContentLength() + " bytes");
+                }
+                if (last) {
+                    body.complete();
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.WARNING, e.getMessage(), e);
+                body.fail(e);
+                ctx.channel().close();
+            } finally {
+                byteBuf.release();
+                try {
+                    ctx.executor().execute(() -> written(ctx));
+                } catch (RejectedExecutionException e) {
+                    // the event loop is shut down, there is nothing left to read
+                    logger.log(Level.FINE, e.getMessage(), e);
+                }
+            }
+        }, WRITERS);
+    }
+
+    private void written(ChannelHandlerContext ctx) {
+        if (--pendingWrites == 0 && ctx.channel().isActive()) {
+            ctx.channel().config().setAutoRead(true);
+            ctx.read();
+        }
+    }
+}
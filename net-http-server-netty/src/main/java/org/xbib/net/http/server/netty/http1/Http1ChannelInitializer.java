@@ -2,7 +2,6 @@ package org.xbib.net.http.server.netty.http1;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
@@ -11,9 +10,12 @@ import io.netty.handler.stream.ChunkedWriteHandler;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.server.netty.HttpChannelInitializer;
 import org.xbib.net.http.server.netty.IdleTimeoutHandler;
+import org.xbib.net.http.server.netty.MultipartRequestHandler;
 import org.xbib.net.http.server.netty.NettyCustomizer;
+import org.xbib.net.http.server.netty.NettyHttpContentCompressor;
 import org.xbib.net.http.server.netty.NettyHttpServer;
 import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.netty.StreamingRequestHandler;
 import org.xbib.net.http.server.netty.TrafficLoggingHandler;
 
 import java.util.logging.Level;
@@ -41,18 +43,25 @@ public class Http1ChannelInitializer implements HttpChannelInitializer {
         if (nettyHttpServerConfig.isDebug()) {
             pipeline.addLast("server-logging", new TrafficLoggingHandler(LogLevel.DEBUG));
         }
-        //pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
         pipeline.addLast("server-codec", new HttpServerCodec(nettyHttpServerConfig.getMaxInitialLineLength(),
                         nettyHttpServerConfig.getMaxHeadersSize(), nettyHttpServerConfig.getMaxChunkSize()));
         if (nettyHttpServerConfig.isCompressionEnabled()) {
-            pipeline.addLast("server-compressor", new HttpContentCompressor());
+            pipeline.addLast("server-compressor", new NettyHttpContentCompressor(nettyHttpServerConfig.getCompressionPolicy()));
         }
         if (nettyHttpServerConfig.isDecompressionEnabled()) {
             pipeline.addLast("server-decompressor", new HttpContentDecompressor());
         }
+        if (nettyHttpServerConfig.isMultipartDecodingEnabled()) {
+            pipeline.addLast("server-multipart", new MultipartRequestHandler(nettyHttpServerConfig));
+        }
+        if (nettyHttpServerConfig.isRequestStreamingEnabled()) {
+            pipeline.addLast("server-request-streaming", new StreamingRequestHandler(nettyHttpServerConfig));
+        }
         HttpObjectAggregator httpObjectAggregator = new HttpObjectAggregator(nettyHttpServerConfig.getMaxContentLength());
         httpObjectAggregator.setMaxCumulationBufferComponents(nettyHttpServerConfig.getMaxCompositeBufferComponents());
         pipeline.addLast("server-aggregator", httpObjectAggregator);
+        // chunked HTTP content must pass the compressor and the codec
+        pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
         if (nettyHttpServerConfig.isPipeliningEnabled()) {
             pipeline.addLast("server-pipelining", new HttpPipeliningHandler(nettyHttpServerConfig.getPipeliningCapacity()));
         }
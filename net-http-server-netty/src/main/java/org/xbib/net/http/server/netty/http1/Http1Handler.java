@@ -75,16 +75,18 @@ class Http1Handler extends ChannelDuplexHandler {
 
     protected void requestReceived(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest, Integer sequenceId) {
         HttpAddress httpAddress = ctx.channel().attr(NettyHttpServerConfig.ATTRIBUTE_KEY_HTTP_ADDRESS).get();
+        HttpRequestBuilder serverRequestBuilder = null;
         try {
             HttpResponseBuilder serverResponseBuilder = HttpResponse.builder()
-                    .setChannelHandlerContext(ctx);
+                    .setChannelHandlerContext(ctx)
+                    .setHttpServerConfig(nettyHttpServer.getNettyHttpServerConfig());
             if (nettyHttpServer.getNettyHttpServerConfig().isPipeliningEnabled()) {
                 serverResponseBuilder.setSequenceId(sequenceId);
             }
             serverResponseBuilder.shouldClose("close".equalsIgnoreCase(fullHttpRequest.headers().get(HttpHeaderNames.CONNECTION)));
             // the base URL construction may fail with exception. In hat case, we return a built-in 400 Bad Request.
-            HttpRequestBuilder serverRequestBuilder = HttpRequest.builder()
-                    .setFullHttpRequest(fullHttpRequest)
+            serverRequestBuilder = HttpRequest.builder();
+            serverRequestBuilder.setFullHttpRequest(fullHttpRequest)
                     .setBaseURL(httpAddress,
                             fullHttpRequest.uri(),
                             fullHttpRequest.headers().get(HttpHeaderNames.HOST))
@@ -94,6 +96,9 @@ class Http1Handler extends ChannelDuplexHandler {
             nettyHttpServer.getApplication().dispatch(serverRequestBuilder, serverResponseBuilder);
         } catch (Exception e) {
             logger.log(Level.SEVERE, "bad request: " + e.getMessage(), e);
+            if (serverRequestBuilder != null) {
+                serverRequestBuilder.release();
+            }
             DefaultFullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
                     HttpResponseStatus.BAD_REQUEST);
             ctx.writeAndFlush(fullHttpResponse);
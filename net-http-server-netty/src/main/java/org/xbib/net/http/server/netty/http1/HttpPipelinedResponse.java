@@ -3,34 +3,72 @@ package org.xbib.net.http.server.netty.http1;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
-
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A response, or a part of a response, with the sequence id of its request. A response that is not written
+ * as a single full response is written in parts, for example the response head, the contents, file regions,
+ * or chunked input, and the last content. Only the last part completes the response, so the parts of the
+ * next response follow after it.
+ */
 public class HttpPipelinedResponse implements ReferenceCounted, Comparable<HttpPipelinedResponse> {
 
-    private final FullHttpResponse response;
+    private static final Logger logger = Logger.getLogger(HttpPipelinedResponse.class.getName());
+
+    private final Object message;
 
     private final ChannelPromise promise;
 
     private final int sequenceId;
 
+    private final boolean last;
+
     public HttpPipelinedResponse(FullHttpResponse response, ChannelPromise promise, int sequenceId) {
-        this.response = response;
+        this(response, promise, sequenceId, true);
+    }
+
+    /**
+     * A part of a response.
+     * @param message the message of the part, as written to the channel
+     * @param promise the promise of the part
+     * @param sequenceId the sequence id of the request
+     * @param last true if the part is the last part of the response
+     */
+    public HttpPipelinedResponse(Object message, ChannelPromise promise, int sequenceId, boolean last) {
+        this.message = message;
         this.promise = promise;
         this.sequenceId = sequenceId;
+        this.last = last;
     }
 
     public int getSequenceId() {
         return sequenceId;
     }
 
+    /**
+     * The response head, or null if this part is not the head.
+     * @return the response head
+     */
     public HttpResponse getResponse() {
-        return response;
+        return message instanceof HttpResponse ? (HttpResponse) message : null;
+    }
+
+    public Object getMessage() {
+        return message;
     }
 
     public ChannelPromise getPromise() {
         return promise;
     }
 
+    public boolean isLast() {
+        return last;
+    }
+
     @Override
     public int compareTo(HttpPipelinedResponse other) {
         return Integer.compare(this.sequenceId, other.sequenceId);
@@ -38,40 +76,52 @@ public class HttpPipelinedResponse implements ReferenceCounted, Comparable<HttpP
 
     @Override
     public int refCnt() {
-        return response.refCnt();
+        return message instanceof ReferenceCounted ? ((ReferenceCounted) message).refCnt() : 1;
     }
 
     @Override
     public ReferenceCounted retain() {
-        response.retain();
+        ReferenceCountUtil.retain(message);
         return this;
     }
 
     @Override
     public ReferenceCounted retain(int increment) {
-        response.retain(increment);
+        ReferenceCountUtil.retain(message, increment);
         return this;
     }
 
     @Override
     public ReferenceCounted touch() {
-        response.touch();
+        ReferenceCountUtil.touch(message);
         return this;
     }
 
     @Override
     public ReferenceCounted touch(Object hint) {
-        response.touch(hint);
+        ReferenceCountUtil.touch(message, hint);
         return this;
     }
 
+    /**
+     * Release the message. Chunked input, which is not reference counted, is closed.
+     * @return true if the message was deallocated or closed
+     */
     @Override
     public boolean release() {
-        return response.release();
+        return release(1);
     }
 
     @Override
     public boolean release(int decrement) {
-        return response.release(decrement);
+        if (message instanceof ChunkedInput) {
+            try {
+                ((ChunkedInput<?>) message).close();
+            } catch (Exception e) {
+                logger.log(Level.FINE, e.getMessage(), e);
+            }
+            return true;
+        }
+        return ReferenceCountUtil.release(message, decrement);
     }
 }
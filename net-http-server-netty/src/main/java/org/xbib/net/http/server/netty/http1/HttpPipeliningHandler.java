@@ -1,16 +1,13 @@
 package org.xbib.net.http.server.netty.http1;
 
 import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.LastHttpContent;
 
 import java.nio.channels.ClosedChannelException;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.ArrayDeque;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,6 +15,14 @@ import java.util.logging.Logger;
  * Implements HTTP pipelining ordering, ensuring that responses are completely served in the same order as their
  * corresponding requests.
  *
+ * Requests are numbered per channel. A response that is ready before the responses of earlier requests is kept
+ * in a ring buffer, in the slot of its sequence id, until the earlier responses have been written. Then all
+ * waiting responses in sequence are written at once and go out with a single flush.
+ * A response that is written in parts, like a file or a streamed response, keeps its parts in order in its slot.
+ * The next response follows only after the last part of a response.
+ * Netty invokes {@link #write} on the event loop of the channel, also if a response is written from another
+ * thread, so the state of the handler is confined to the event loop and needs no lock.
+ *
  * Based on <a href="https://github.com/typesafehub/netty-http-pipelining">https://github.com/typesafehub/netty-http-pipelining</a>
  * which uses Netty3.
  *
@@ -31,30 +36,27 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
 
     private final int pipelineCapacity;
 
-    private final Lock lock;
-
-    private final Queue<HttpPipelinedResponse> httpPipelinedResponses;
+    private final ArrayDeque<?>[] httpPipelinedResponses;
 
-    private static final AtomicInteger sequenceIdCounter = new AtomicInteger(0);
+    private int sequenceId;
 
-    private static final AtomicInteger writtenRequests = new AtomicInteger(0);
+    private int writtenSequenceId;
 
     /**
-     * @param pipelineCapacity the maximum number of channel events that will be retained prior to aborting the channel
-     *                      connection. This is required as events cannot queue up indefinitely; we would run out of
+     * @param pipelineCapacity the maximum number of responses that will be retained prior to aborting the channel
+     *                      connection. This is required as responses cannot queue up indefinitely; we would run out of
      *                      memory if this was the case.
      */
     public HttpPipeliningHandler(int pipelineCapacity) {
-
         this.pipelineCapacity = pipelineCapacity;
-        this.lock = new ReentrantLock();
-        this.httpPipelinedResponses = new PriorityQueue<>(1);
+        // the slot of the next response to write, and the slots of the responses waiting for it
+        this.httpPipelinedResponses = new ArrayDeque<?>[pipelineCapacity + 1];
     }
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof LastHttpContent) {
-            ctx.fireChannelRead(new HttpPipelinedRequest((LastHttpContent) msg, sequenceIdCounter.getAndIncrement()));
+            ctx.fireChannelRead(new HttpPipelinedRequest((LastHttpContent) msg, sequenceId++));
         } else {
             ctx.fireChannelRead(msg);
         }
@@ -63,30 +65,34 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
         if (msg instanceof HttpPipelinedResponse) {
-            boolean channelShouldClose = false;
-            lock.lock();
-            try {
-                if (httpPipelinedResponses.size() < pipelineCapacity) {
-                    HttpPipelinedResponse httpPipelinedResponse = (HttpPipelinedResponse) msg;
-                    httpPipelinedResponses.add(httpPipelinedResponse);
-                    while (!httpPipelinedResponses.isEmpty()) {
-                        HttpPipelinedResponse queuedPipelinedResponse = httpPipelinedResponses.peek();
-                        if (queuedPipelinedResponse.getSequenceId() != writtenRequests.get()) {
-                            break;
-                        }
-                        httpPipelinedResponses.remove();
-                        super.write(ctx, queuedPipelinedResponse.getResponse(), queuedPipelinedResponse.getPromise());
-                        writtenRequests.getAndIncrement();
+            HttpPipelinedResponse httpPipelinedResponse = (HttpPipelinedResponse) msg;
+            if (!promise.isVoid()) {
+                httpPipelinedResponse.getPromise().addListener((ChannelFutureListener) future -> {
+                    if (future.isSuccess()) {
+                        promise.trySuccess();
+                    } else {
+                        promise.tryFailure(future.cause());
                     }
-                } else {
-                    logger.log(Level.WARNING, "pipeline capacity exceeded, closing channel");
-                    channelShouldClose = true;
-                }
-            } finally {
-                lock.unlock();
+                });
             }
-            if (channelShouldClose) {
+            // the difference of sequence ids is also correct when the ids overflow
+            int distance = httpPipelinedResponse.getSequenceId() - writtenSequenceId;
+            int slot = slot(httpPipelinedResponse.getSequenceId());
+            if (distance < 0 || distance > pipelineCapacity) {
+                logger.log(Level.WARNING, "pipeline capacity exceeded, closing channel");
+                httpPipelinedResponse.release();
+                httpPipelinedResponse.getPromise().tryFailure(new ClosedChannelException());
                 ctx.close();
+                return;
+            }
+            if (distance == 0 && isEmpty(slot)) {
+                // the response, or a part of it, is next in line
+                write(ctx, httpPipelinedResponse);
+            } else {
+                responses(slot).add(httpPipelinedResponse);
+            }
+            while (!isEmpty(slot = slot(writtenSequenceId))) {
+                write(ctx, responses(slot).poll());
             }
         } else {
             super.write(ctx, msg, promise);
@@ -95,10 +101,58 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
 
     @Override
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
-        if (!httpPipelinedResponses.isEmpty()) {
-            ClosedChannelException closedChannelException = new ClosedChannelException();
+        releaseResponses();
+        ctx.close(promise);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        releaseResponses();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        String message = cause.getMessage() == null ? "null" : cause.getMessage();
+        logger.log(Level.WARNING, message, cause);
+        ctx.close();
+    }
+
+    private void write(ChannelHandlerContext ctx, HttpPipelinedResponse httpPipelinedResponse) {
+        ctx.write(httpPipelinedResponse.getMessage(), httpPipelinedResponse.getPromise());
+        if (httpPipelinedResponse.isLast()) {
+            writtenSequenceId++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ArrayDeque<HttpPipelinedResponse> responses(int slot) {
+        if (httpPipelinedResponses[slot] == null) {
+            httpPipelinedResponses[slot] = new ArrayDeque<HttpPipelinedResponse>();
+        }
+        return (ArrayDeque<HttpPipelinedResponse>) httpPipelinedResponses[slot];
+    }
+
+    private boolean isEmpty(int slot) {
+        return httpPipelinedResponses[slot] == null || httpPipelinedResponses[slot].isEmpty();
+    }
+
+    private int slot(int sequenceId) {
+        return Math.floorMod(sequenceId, httpPipelinedResponses.length);
+    }
+
+    private void releaseResponses() {
+        ClosedChannelException closedChannelException = null;
+        for (int i = 0; i < httpPipelinedResponses.length; i++) {
+            if (isEmpty(i)) {
+                continue;
+            }
+            ArrayDeque<HttpPipelinedResponse> responses = responses(i);
             HttpPipelinedResponse pipelinedResponse;
-            while ((pipelinedResponse = httpPipelinedResponses.poll()) != null) {
+            while ((pipelinedResponse = responses.poll()) != null) {
+                if (closedChannelException == null) {
+                    closedChannelException = new ClosedChannelException();
+                }
                 try {
                     pipelinedResponse.release();
                     pipelinedResponse.getPromise().setFailure(closedChannelException);
@@ -107,13 +161,5 @@ public class HttpPipeliningHandler extends ChannelDuplexHandler {
                 }
             }
         }
-        ctx.close(promise);
-    }
-
-    @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        String message = cause.getMessage() == null ? "null" : cause.getMessage();
-        logger.log(Level.WARNING, message, cause);
-        ctx.close();
     }
 }
@@ -2,7 +2,6 @@ package org.xbib.net.http.server.netty.http2;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
@@ -21,9 +20,12 @@ import io.netty.util.AsciiString;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.server.netty.HttpChannelInitializer;
 import org.xbib.net.http.server.netty.IdleTimeoutHandler;
+import org.xbib.net.http.server.netty.MultipartRequestHandler;
 import org.xbib.net.http.server.netty.NettyCustomizer;
+import org.xbib.net.http.server.netty.NettyHttpContentCompressor;
 import org.xbib.net.http.server.netty.NettyHttpServer;
 import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.netty.StreamingRequestHandler;
 import org.xbib.net.http.server.netty.TrafficLoggingHandler;
 
 import java.util.logging.Level;
@@ -58,11 +60,17 @@ public class Http2ChannelInitializer implements HttpChannelInitializer {
         pipeline.addLast("server-frame-converter",
                 new Http2StreamFrameToHttpObjectCodec(true));
         if (nettyHttpServerConfig.isCompressionEnabled()) {
-            pipeline.addLast("server-compressor", new HttpContentCompressor());
+            pipeline.addLast("server-compressor", new NettyHttpContentCompressor(nettyHttpServerConfig.getCompressionPolicy()));
         }
         if (nettyHttpServerConfig.isDecompressionEnabled()) {
             pipeline.addLast("server-decompressor", new HttpContentDecompressor());
         }
+        if (nettyHttpServerConfig.isMultipartDecodingEnabled()) {
+            pipeline.addLast("server-multipart", new MultipartRequestHandler(nettyHttpServerConfig));
+        }
+        if (nettyHttpServerConfig.isRequestStreamingEnabled()) {
+            pipeline.addLast("server-request-streaming", new StreamingRequestHandler(nettyHttpServerConfig));
+        }
         pipeline.addLast("server-object-aggregator",
                 new HttpObjectAggregator(nettyHttpServerConfig.getMaxContentLength()));
         pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
@@ -3,15 +3,17 @@ package org.xbib.net.http.server.netty.http2;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
-import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.server.netty.IdleTimeoutHandler;
+import org.xbib.net.http.server.netty.MultipartRequestHandler;
+import org.xbib.net.http.server.netty.NettyHttpContentCompressor;
 import org.xbib.net.http.server.netty.NettyHttpServer;
 import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.netty.StreamingRequestHandler;
 
 public class Http2ChildChannelInitializer extends ChannelInitializer<Channel> {
 
@@ -33,11 +35,17 @@ public class Http2ChildChannelInitializer extends ChannelInitializer<Channel> {
         pipeline.addLast("server-frame-converter",
                 new Http2StreamFrameToHttpObjectCodec(true));
         if (nettyHttpServerConfig.isCompressionEnabled()) {
-            pipeline.addLast("server-compressor", new HttpContentCompressor());
+            pipeline.addLast("server-compressor", new NettyHttpContentCompressor(nettyHttpServerConfig.getCompressionPolicy()));
         }
         if (nettyHttpServerConfig.isDecompressionEnabled()) {
             pipeline.addLast("server-decompressor", new HttpContentDecompressor());
         }
+        if (nettyHttpServerConfig.isMultipartDecodingEnabled()) {
+            pipeline.addLast("server-multipart", new MultipartRequestHandler(nettyHttpServerConfig));
+        }
+        if (nettyHttpServerConfig.isRequestStreamingEnabled()) {
+            pipeline.addLast("server-request-streaming", new StreamingRequestHandler(nettyHttpServerConfig));
+        }
         pipeline.addLast("server-object-aggregator",
                 new HttpObjectAggregator(nettyHttpServerConfig.getMaxContentLength()));
         pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
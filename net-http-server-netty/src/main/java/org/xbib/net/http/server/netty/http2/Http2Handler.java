@@ -39,17 +39,19 @@ public class Http2Handler extends ChannelDuplexHandler {
         if (object instanceof FullHttpRequest) {
             FullHttpRequest fullHttpRequest = (FullHttpRequest) object;
             HttpAddress httpAddress = ctx.channel().attr(NettyHttpServerConfig.ATTRIBUTE_KEY_HTTP_ADDRESS).get();
+            HttpRequestBuilder serverRequestBuilder = null;
             try {
                 Integer streamId = fullHttpRequest.headers().getInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
                 HttpResponseBuilder httpResponseBuilder = HttpResponse.builder()
                         .setChannelHandlerContext(ctx)
+                        .setHttpServerConfig(nettyHttpServer.getNettyHttpServerConfig())
                         .setVersion(HttpVersion.HTTP_2_0);
                 httpResponseBuilder.shouldClose("close".equalsIgnoreCase(fullHttpRequest.headers().get(HttpHeaderNames.CONNECTION)));
                 if (streamId != null) {
                     httpResponseBuilder.setStreamId(streamId + 1);
                 }
-                HttpRequestBuilder serverRequestBuilder = HttpRequest.builder()
-                        .setFullHttpRequest(fullHttpRequest)
+                serverRequestBuilder = HttpRequest.builder();
+                serverRequestBuilder.setFullHttpRequest(fullHttpRequest)
                         .setBaseURL(httpAddress,
                                 fullHttpRequest.uri(),
                                 fullHttpRequest.headers().get(HttpHeaderNames.HOST))
@@ -59,6 +61,9 @@ public class Http2Handler extends ChannelDuplexHandler {
                 nettyHttpServer.getApplication().dispatch(serverRequestBuilder, httpResponseBuilder);
             } catch (Exception e) {
                 logger.log(Level.SEVERE, "bad request:" + e.getMessage(), e);
+                if (serverRequestBuilder != null) {
+                    serverRequestBuilder.release();
+                }
                 DefaultFullHttpResponse fullHttpResponse =
                         new DefaultFullHttpResponse(io.netty.handler.codec.http.HttpVersion.valueOf(httpAddress.getVersion().text()),
                                 HttpResponseStatus.BAD_REQUEST);
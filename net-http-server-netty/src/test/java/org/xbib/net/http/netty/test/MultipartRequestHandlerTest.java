@@ -0,0 +1,91 @@
+package org.xbib.net.http.netty.test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.xbib.datastructures.common.Pair;
+import org.xbib.net.http.server.UploadedFile;
+import org.xbib.net.http.server.netty.HttpRequestBuilder;
+import org.xbib.net.http.server.netty.MultipartRequestHandler;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MultipartRequestHandlerTest {
+
+    private static final String BOUNDARY = "----boundary1234";
+
+    @Test
+    void testMultipartDecodedInChunks() throws IOException {
+        NettyHttpServerConfig nettyHttpServerConfig = new NettyHttpServerConfig();
+        nettyHttpServerConfig.setRequestBodyThreshold(1024);
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(new MultipartRequestHandler(nettyHttpServerConfig));
+        byte[] file = new byte[10000];
+        for (int i = 0; i < file.length; i++) {
+            file[i] = (byte) i;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"title\"\r\n\r\n" +
+                "Hello World\r\n" +
+                "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"test.bin\"\r\n" +
+                "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(file);
+        body.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        byte[] bytes = body.toByteArray();
+        HttpRequest httpRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload");
+        httpRequest.headers().set(HttpHeaderNames.CONTENT_TYPE, "multipart/form-data; boundary=" + BOUNDARY);
+        HttpUtil.setContentLength(httpRequest, bytes.length);
+        embeddedChannel.writeInbound(httpRequest);
+        // the request is held back until the body is complete
+        assertNull(embeddedChannel.readInbound());
+        for (int i = 0; i < bytes.length; i += 500) {
+            ByteBuf byteBuf = Unpooled.wrappedBuffer(bytes, i, Math.min(500, bytes.length - i));
+            if (i + 500 < bytes.length) {
+                embeddedChannel.writeInbound(new DefaultHttpContent(byteBuf));
+            } else {
+                embeddedChannel.writeInbound(new DefaultLastHttpContent(byteBuf));
+            }
+        }
+        FullHttpRequest fullHttpRequest = embeddedChannel.readInbound();
+        assertEquals(0, fullHttpRequest.content().readableBytes());
+        HttpRequestBuilder httpRequestBuilder = new HttpRequestBuilder() {
+        };
+        httpRequestBuilder.setFullHttpRequest(fullHttpRequest);
+        fullHttpRequest.release();
+        try {
+            assertEquals(1, httpRequestBuilder.getFormFields().size());
+            Pair<String, String> formField = httpRequestBuilder.getFormFields().get(0);
+            assertEquals("title", formField.getKey());
+            assertEquals("Hello World", formField.getValue());
+            assertEquals(1, httpRequestBuilder.getUploadedFiles().size());
+            UploadedFile uploadedFile = httpRequestBuilder.getUploadedFiles().get(0);
+            assertEquals("file", uploadedFile.getName());
+            assertEquals("test.bin", uploadedFile.getFileName());
+            assertEquals("application/octet-stream", uploadedFile.getContentType());
+            assertEquals(file.length, uploadedFile.getLength());
+            try (InputStream inputStream = uploadedFile.getInputStream()) {
+                assertArrayEquals(file, inputStream.readAllBytes());
+            }
+        } finally {
+            httpRequestBuilder.release();
+        }
+        embeddedChannel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,122 @@
+package org.xbib.net.http.netty.test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.BaseApplication;
+import org.xbib.net.http.server.BaseHttpDomain;
+import org.xbib.net.http.server.BaseHttpService;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A chunked request body far above the threshold is spilled to disk while the service reads it.
+ */
+public class NettyHttpServerStreamingRequestTest {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpServerStreamingRequestTest.class.getName());
+
+    @Test
+    public void testStreamedRequestBody() throws Exception {
+        URL url = URL.from("http://localhost:8008/domain");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig serverConfig = new NettyHttpServerConfig();
+        serverConfig.setNetworkClass(NetworkClass.LOOPBACK);
+        serverConfig.setRequestStreaming(true);
+        serverConfig.setRequestBodyThreshold(1024);
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(serverConfig)
+                .setApplication(BaseApplication.builder()
+                    .setRouter(BaseHttpRouter.builder()
+                        .addDomain(BaseHttpDomain.builder()
+                                .setHttpAddress(httpAddress)
+                                .addService(BaseHttpService.builder()
+                                        .setPath("/domain/upload")
+                                        .setHandler(ctx -> {
+                                            long length = 0L;
+                                            long sum = 0L;
+                                            try (InputStream inputStream = ctx.httpRequest().getInputStream()) {
+                                                int b;
+                                                while ((b = inputStream.read()) >= 0) {
+                                                    length++;
+                                                    sum += b;
+                                                }
+                                            }
+                                            ctx.response()
+                                                    .setResponseStatus(HttpResponseStatus.OK)
+                                                    .setHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                                    .setCharset(StandardCharsets.UTF_8);
+                                            ctx.write(length + " " + sum);
+                                        })
+                                        .build())
+                                .build())
+                        .build())
+                    .build())
+                .build()) {
+            server.bind();
+            byte[] chunk = new byte[8192];
+            Arrays.fill(chunk, (byte) 'x');
+            int chunks = 256;
+            try (Socket socket = new Socket("localhost", 8008)) {
+                socket.setSoTimeout(30000);
+                OutputStream outputStream = socket.getOutputStream();
+                outputStream.write(("POST /domain/upload HTTP/1.1\r\n" +
+                        "Host: localhost:8008\r\n" +
+                        "Transfer-Encoding: chunked\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                byte[] size = (Integer.toHexString(chunk.length) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+                for (int i = 0; i < chunks; i++) {
+                    outputStream.write(size);
+                    outputStream.write(chunk);
+                    outputStream.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+                }
+                outputStream.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+                assertEquals("HTTP/1.1 200 OK", readLine(inputStream));
+                int contentLength = -1;
+                String line;
+                while (!(line = readLine(inputStream)).isEmpty()) {
+                    int pos = line.indexOf(':');
+                    if (line.substring(0, pos).trim().toLowerCase(Locale.ROOT).equals("content-length")) {
+                        contentLength = Integer.parseInt(line.substring(pos + 1).trim());
+                    }
+                }
+                String body = new String(inputStream.readNBytes(contentLength), StandardCharsets.UTF_8);
+                logger.log(Level.INFO, "body = " + body);
+                long length = (long) chunks * chunk.length;
+                assertEquals(length + " " + length * 'x', body);
+            }
+        }
+    }
+
+    private static String readLine(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = inputStream.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("connection closed");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+}
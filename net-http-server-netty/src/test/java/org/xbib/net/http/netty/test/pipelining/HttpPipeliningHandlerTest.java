@@ -9,11 +9,14 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
@@ -46,6 +49,7 @@ import org.xbib.net.http.server.netty.http1.HttpPipelinedResponse;
 import org.xbib.net.http.server.netty.http1.HttpPipeliningHandler;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -151,6 +155,30 @@ class HttpPipeliningHandlerTest {
         });
     }
 
+    @Order(5)
+    @Test
+    void testThatPipeliningWaitsForTheLastPartOfAResponse() {
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(new HttpPipeliningHandler(16));
+        ByteBuf content = Unpooled.copiedBuffer("1", StandardCharsets.UTF_8);
+        embeddedChannel.writeOutbound(new HttpPipelinedResponse(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.OK, content), embeddedChannel.newPromise(), 1));
+        assertNull(embeddedChannel.readOutbound());
+        embeddedChannel.writeOutbound(new HttpPipelinedResponse(new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.OK), embeddedChannel.newPromise(), 0, false));
+        HttpResponse httpResponse = embeddedChannel.readOutbound();
+        assertNotNull(httpResponse);
+        // the response of the second request waits for the last part of the first response
+        assertNull(embeddedChannel.readOutbound());
+        embeddedChannel.writeOutbound(new HttpPipelinedResponse(new DefaultLastHttpContent(Unpooled.copiedBuffer("0",
+                StandardCharsets.UTF_8)), embeddedChannel.newPromise(), 0, true));
+        LastHttpContent lastHttpContent = embeddedChannel.readOutbound();
+        assertEquals("0", lastHttpContent.content().toString(StandardCharsets.UTF_8));
+        lastHttpContent.release();
+        assertReadHttpMessageHasContent(embeddedChannel, "1");
+        assertTrue(embeddedChannel.isOpen());
+        embeddedChannel.finishAndReleaseAll();
+    }
+
     private void assertReadHttpMessageHasContent(EmbeddedChannel embeddedChannel, String expectedContent) {
         FullHttpResponse response = (FullHttpResponse) embeddedChannel.outboundMessages().poll();
         assertNotNull(response);
@@ -206,7 +234,10 @@ class HttpPipeliningHandlerTest {
                     latch.await(2, TimeUnit.SECONDS);
                     HttpPipelinedResponse httpPipelinedResponse = new HttpPipelinedResponse(httpResponse,
                             ctx.channel().newPromise(), pipelinedRequest.getSequenceId());
-                    ctx.writeAndFlush(httpPipelinedResponse);
+                    // an embedded channel has no event loop thread, serialize the writes like an event loop
+                    synchronized (ctx.channel()) {
+                        ctx.writeAndFlush(httpPipelinedResponse);
+                    }
                 } catch (InterruptedException e) {
                     logger.log(Level.WARNING, e.getMessage(), e);
                 }
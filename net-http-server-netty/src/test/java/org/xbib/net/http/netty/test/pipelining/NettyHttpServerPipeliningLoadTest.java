@@ -0,0 +1,211 @@
+package org.xbib.net.http.netty.test.pipelining;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.util.ResourceLeakDetector;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.xbib.net.NetworkClass;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.BaseApplication;
+import org.xbib.net.http.server.BaseHttpDomain;
+import org.xbib.net.http.server.BaseHttpService;
+import org.xbib.net.http.server.netty.NettyHttpServer;
+import org.xbib.net.http.server.netty.NettyHttpServerConfig;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many connections send pipelined requests at the same time. The requests are handled with random delays,
+ * so they complete out of order, but every connection must receive its responses in the order of its requests.
+ * The responses are a mix of full responses, file responses, streamed responses, and input stream responses.
+ */
+public class NettyHttpServerPipeliningLoadTest {
+
+    private static final Logger logger = Logger.getLogger(NettyHttpServerPipeliningLoadTest.class.getName());
+
+    @Test
+    public void testPipeliningWithManyConnections() throws Exception {
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        URL url = URL.from("http://localhost:8008/domain");
+        HttpAddress httpAddress = HttpAddress.http1(url);
+        NettyHttpServerConfig serverConfig = new NettyHttpServerConfig();
+        serverConfig.setServerName("NettyHttpServer", Bootstrap.class.getPackage().getImplementationVersion());
+        serverConfig.setNetworkClass(NetworkClass.LOOPBACK);
+        serverConfig.setPipelining(true);
+        int connections = 16;
+        int requests = 128;
+        try (NettyHttpServer server = NettyHttpServer.builder()
+                .setHttpServerConfig(serverConfig)
+                .setApplication(BaseApplication.builder()
+                    .setRouter(BaseHttpRouter.builder()
+                        .addDomain(BaseHttpDomain.builder()
+                                .setHttpAddress(httpAddress)
+                                .addService(BaseHttpService.builder()
+                                        .setPath("/domain/*")
+                                        .setHandler(ctx -> {
+                                            delay();
+                                            String uri = ctx.httpRequest().getRequestURI();
+                                            ctx.response()
+                                                    .setResponseStatus(HttpResponseStatus.OK)
+                                                    .setHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                                    .setCharset(StandardCharsets.UTF_8);
+                                            // the responses are files, streams, input streams, and full responses in turn
+                                            int kind = Integer.parseInt(uri.substring(uri.lastIndexOf('-') + 1)) % 4;
+                                            if (kind == 1) {
+                                                Path path = Files.createTempFile("pipelining", ".txt");
+                                                Files.writeString(path, uri);
+                                                ctx.write(FileChannel.open(path, StandardOpenOption.READ,
+                                                        StandardOpenOption.DELETE_ON_CLOSE), 8192);
+                                            } else if (kind == 2) {
+                                                ctx.response().setStreaming(true);
+                                                int half = uri.length() / 2;
+                                                ctx.write(uri.substring(0, half));
+                                                delay();
+                                                ctx.write(uri.substring(half));
+                                            } else if (kind == 3) {
+                                                // the stream is longer than the buffer, so it is sent in chunks,
+                                                // and the next request on the connection must still get its response
+                                                ctx.write(new ByteArrayInputStream(uri.getBytes(StandardCharsets.UTF_8)), 4);
+                                            } else {
+                                                ctx.write(uri);
+                                            }
+                                        })
+                                        .build())
+                                .build())
+                        .build())
+                    .build())
+                .build()) {
+            server.bind();
+            ExecutorService executorService = Executors.newFixedThreadPool(connections);
+            try {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int c = 0; c < connections; c++) {
+                    futures.add(executorService.submit(new PipeliningClient(c, requests)));
+                }
+                int count = 0;
+                for (Future<Integer> future : futures) {
+                    count += future.get(60L, TimeUnit.SECONDS);
+                }
+                logger.log(Level.INFO, "count = " + count);
+                assertEquals(connections * requests, count);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    private static void delay() throws InterruptedIOException {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static class PipeliningClient implements Callable<Integer> {
+
+        private final int connection;
+
+        private final int requests;
+
+        PipeliningClient(int connection, int requests) {
+            this.connection = connection;
+            this.requests = requests;
+        }
+
+        @Override
+        public Integer call() throws IOException {
+            try (Socket socket = new Socket("localhost", 8008)) {
+                socket.setSoTimeout(30000);
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < requests; i++) {
+                    sb.append("GET ").append(uri(i)).append(" HTTP/1.1\r\n")
+                            .append("Host: localhost:8008\r\n\r\n");
+                }
+                OutputStream outputStream = socket.getOutputStream();
+                outputStream.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                InputStream inputStream = new BufferedInputStream(socket.getInputStream());
+                for (int i = 0; i < requests; i++) {
+                    assertEquals("HTTP/1.1 200 OK", readLine(inputStream));
+                    int contentLength = -1;
+                    boolean chunked = false;
+                    String line;
+                    while (!(line = readLine(inputStream)).isEmpty()) {
+                        int pos = line.indexOf(':');
+                        String name = line.substring(0, pos).trim().toLowerCase(Locale.ROOT);
+                        String value = line.substring(pos + 1).trim();
+                        if (name.equals("content-length")) {
+                            contentLength = Integer.parseInt(value);
+                        } else if (name.equals("transfer-encoding")) {
+                            chunked = value.equalsIgnoreCase("chunked");
+                        }
+                    }
+                    byte[] body = chunked ? readChunked(inputStream) : inputStream.readNBytes(contentLength);
+                    assertEquals(uri(i), new String(body, StandardCharsets.UTF_8));
+                }
+            }
+            return requests;
+        }
+
+        private String uri(int i) {
+            return "/domain/" + connection + "-" + i;
+        }
+
+        private static byte[] readChunked(InputStream inputStream) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            int size;
+            while ((size = Integer.parseInt(readLine(inputStream).split(";")[0].trim(), 16)) > 0) {
+                body.write(inputStream.readNBytes(size));
+                readLine(inputStream);
+            }
+            // trailing headers up to the empty line
+            while (!readLine(inputStream).isEmpty()) {
+                // skip
+            }
+            return body.toByteArray();
+        }
+
+        private static String readLine(InputStream inputStream) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = inputStream.read()) != '\n') {
+                if (b < 0) {
+                    throw new IOException("connection closed");
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return line.toString(StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package org.xbib.net.http.server.nio;
 
 import org.xbib.net.buffer.DataBuffer;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
 import org.xbib.net.http.server.BaseHttpResponseBuilder;
+import org.xbib.net.http.server.FilePart;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.Channels;
@@ -23,8 +27,14 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
 
     private static final Logger logger = Logger.getLogger(HttpResponseBuilder.class.getName());
 
+    private static final String CRLF = "\r\n";
+
     protected OutputStream outputStream;
 
+    private WritableByteChannel streamChannel;
+
+    private boolean chunked;
+
     HttpResponseBuilder() {
         super();
     }
@@ -38,6 +48,13 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
     public HttpResponse build() {
         Objects.requireNonNull(outputStream);
         try {
+            if (streaming) {
+                endStreaming();
+                if (shouldClose()) {
+                    internalClose();
+                }
+                return new HttpResponse(this);
+            }
             if (shouldFlush()) {
                 internalFlush();
             }
@@ -57,7 +74,59 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
             }
         } catch (IOException e) {
             logger.log(Level.SEVERE, e.getMessage(), e);
-        }        return new HttpResponse(this);
+        }
+        return new HttpResponse(this);
+    }
+
+    @Override
+    protected void startStream() {
+        // the stream must not close the output stream, so the channel is never closed
+        streamChannel = Channels.newChannel(outputStream);
+        chunked = HttpHeaderValues.CHUNKED.equalsIgnoreCase(headers.get(HttpHeaderNames.TRANSFER_ENCODING));
+        try {
+            streamChannel.write(super.encodeHeaders());
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void writeStream(DataBuffer dataBuffer) {
+        ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+        if (!byteBuffer.hasRemaining()) {
+            // an empty chunk would end the chunked content
+            return;
+        }
+        try {
+            if (chunked) {
+                streamChannel.write(US_ASCII.encode(Integer.toHexString(byteBuffer.remaining()) + CRLF));
+            }
+            while (byteBuffer.hasRemaining()) {
+                streamChannel.write(byteBuffer);
+            }
+            if (chunked) {
+                streamChannel.write(US_ASCII.encode(CRLF));
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void endStream() {
+        try {
+            if (chunked) {
+                StringBuilder sb = new StringBuilder("0").append(CRLF);
+                trailingHeaders.entries().forEach(e -> sb.append(e.getKey()).append(": ").append(e.getValue()).append(CRLF));
+                sb.append(CRLF);
+                streamChannel.write(US_ASCII.encode(sb.toString()));
+            }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     void internalFlush() throws IOException {
@@ -90,8 +159,8 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
         try (WritableByteChannel channel = Channels.newChannel(outputStream)) {
             ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
             int contentLength = byteBuffer.remaining();
-            super.buildHeaders(contentLength);
-            channel.write(US_ASCII.encode(super.wrapHeaders()));
+            super.buildContentHeaders(contentLength);
+            channel.write(super.encodeHeaders());
             while (byteBuffer.hasRemaining()) {
                 channel.write(byteBuffer);
             }
@@ -107,11 +176,21 @@ public class HttpResponseBuilder extends BaseHttpResponseBuilder {
     }
 
     void internalWrite(FileChannel fileChannel, int bufferSize) throws IOException {
-        try (WritableByteChannel channel = Channels.newChannel(outputStream)) {
-            long contentLength = fileChannel.size();
-            super.buildHeaders(contentLength);
-            channel.write(US_ASCII.encode(super.wrapHeaders()));
-            channel.write(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, contentLength));
+        try (fileChannel; WritableByteChannel channel = Channels.newChannel(outputStream)) {
+            super.buildContentHeaders(fileCount);
+            channel.write(super.encodeHeaders());
+            if (fileParts != null) {
+                for (FilePart part : fileParts) {
+                    if (part.getHeader() != null) {
+                        channel.write(part.getHeader().asByteBuffer());
+                    }
+                    if (part.getCount() > 0L) {
+                        channel.write(fileChannel.map(FileChannel.MapMode.READ_ONLY, part.getPosition(), part.getCount()));
+                    }
+                }
+            } else {
+                channel.write(fileChannel.map(FileChannel.MapMode.READ_ONLY, filePosition, fileCount));
+            }
         }
     }
 }
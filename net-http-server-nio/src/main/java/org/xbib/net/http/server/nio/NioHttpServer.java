@@ -171,8 +171,10 @@ public class NioHttpServer implements HttpServer {
     }
 
     protected HttpResponseBuilder createResponse(OutputStream outputStream) {
-        return HttpResponse.builder()
+        HttpResponseBuilder httpResponseBuilder = HttpResponse.builder()
                 .setOutputStream(outputStream);
+        httpResponseBuilder.setHttpServerConfig(builder.httpServerConfig);
+        return httpResponseBuilder;
     }
 
     private static HttpVersion extractVersion(String headerLine) throws IllegalArgumentException {
@@ -0,0 +1,112 @@
+package org.xbib.net.http.nio.test;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.HttpVersion;
+import org.xbib.net.http.server.BaseApplication;
+import org.xbib.net.http.server.BaseHttpDomain;
+import org.xbib.net.http.server.BaseHttpService;
+import org.xbib.net.http.server.nio.HttpRequest;
+import org.xbib.net.http.server.nio.HttpResponse;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The nio transport writes every chunk of a streaming response to the connection before the handler continues.
+ */
+public class StreamingResponseTest {
+
+    @Test
+    public void testChunksAreWrittenBeforeTheNextChunk() {
+        RecordingOutputStream outputStream = new RecordingOutputStream();
+        List<String> written = new ArrayList<>();
+        String response = route(HttpVersion.HTTP_1_1, outputStream, written);
+        assertTrue(response.contains("transfer-encoding: chunked"));
+        assertTrue(response.endsWith("\r\n\r\n6\r\nchunk0\r\n6\r\nchunk1\r\n6\r\nchunk2\r\n0\r\n\r\n"));
+        // the handler sees each framed chunk flushed to the connection when its write returns
+        for (int i = 0; i < written.size(); i++) {
+            assertTrue(written.get(i).endsWith("6\r\nchunk" + i + "\r\n"));
+        }
+        assertTrue(outputStream.flushes >= 4);
+        assertFalse(outputStream.closed);
+    }
+
+    @Test
+    public void testHttp10StreamingClosesConnection() {
+        RecordingOutputStream outputStream = new RecordingOutputStream();
+        String response = route(HttpVersion.HTTP_1_0, outputStream, new ArrayList<>());
+        // there are no chunks in HTTP/1.0, the end of the content is the end of the connection
+        assertFalse(response.contains("transfer-encoding"));
+        assertTrue(response.contains("connection: close"));
+        assertTrue(response.endsWith("\r\n\r\nchunk0chunk1chunk2"));
+        assertTrue(outputStream.closed);
+    }
+
+    private static String route(HttpVersion version, RecordingOutputStream outputStream, List<String> written) {
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.of(baseURL))
+                        .addService(BaseHttpService.builder()
+                                .setPath("/export")
+                                .setHandler(ctx -> {
+                                    ctx.response()
+                                            .setResponseStatus(HttpResponseStatus.OK)
+                                            .setHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                            .setCharset(StandardCharsets.UTF_8)
+                                            .setStreaming(true);
+                                    for (int i = 0; i < 3; i++) {
+                                        ctx.write("chunk" + i);
+                                        written.add(outputStream.flushed());
+                                    }
+                                })
+                                .build())
+                        .build())
+                .build();
+        router.setApplication(BaseApplication.builder().build());
+        router.route(HttpRequest.builder()
+                .setBaseURL(baseURL)
+                .setVersion(version)
+                .setMethod(HttpMethod.GET)
+                .setRequestURI("/export"), HttpResponse.builder().setOutputStream(outputStream).setVersion(version));
+        assertEquals(3, written.size());
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    private static class RecordingOutputStream extends ByteArrayOutputStream {
+
+        private int flushes;
+
+        private int flushedSize;
+
+        private boolean closed;
+
+        @Override
+        public synchronized void flush() {
+            flushes++;
+            flushedSize = size();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        synchronized String flushed() {
+            return new String(toByteArray(), 0, flushedSize, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -181,8 +181,10 @@ public class SimpleHttpServer implements HttpServer {
     }
 
     protected HttpResponseBuilder createResponse(OutputStream outputStream) {
-        return HttpResponse.builder()
+        HttpResponseBuilder httpResponseBuilder = HttpResponse.builder()
                 .setOutputStream(outputStream);
+        httpResponseBuilder.setHttpServerConfig(builder.httpServerConfig);
+        return httpResponseBuilder;
     }
 
     protected static HttpVersion extractVersion(String headerLine) throws IllegalArgumentException {
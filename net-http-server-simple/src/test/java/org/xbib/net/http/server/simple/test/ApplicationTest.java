@@ -0,0 +1,106 @@
+package org.xbib.net.http.server.simple.test;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.URL;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.HttpVersion;
+import org.xbib.net.http.server.BaseApplication;
+import org.xbib.net.http.server.BaseApplicationBuilder;
+import org.xbib.net.http.server.BaseHttpDomain;
+import org.xbib.net.http.server.BaseHttpService;
+import org.xbib.net.http.server.HttpHandler;
+import org.xbib.net.http.server.persist.Codec;
+import org.xbib.net.http.server.route.BaseHttpRouter;
+import org.xbib.net.http.server.session.Session;
+import org.xbib.net.http.server.simple.HttpRequest;
+import org.xbib.net.http.server.simple.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ApplicationTest {
+
+    private static final AtomicInteger sessionCodecs = new AtomicInteger();
+
+    private static final AtomicInteger sessionHandlers = new AtomicInteger();
+
+    @Test
+    public void testSessionComponentsPerApplication() throws Exception {
+        Set<Object> requestSessionCodecs = Collections.newSetFromMap(new IdentityHashMap<>());
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.of(baseURL))
+                        .addService(BaseHttpService.builder()
+                                .setPath("/demo")
+                                .setHandler(ctx -> {
+                                    requestSessionCodecs.add(ctx.attributes().get(Codec.class, "sessioncodec"));
+                                    ctx.response()
+                                            .setResponseStatus(HttpResponseStatus.OK)
+                                            .setHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                                            .setCharset(StandardCharsets.UTF_8);
+                                    ctx.write("demo");
+                                })
+                                .build())
+                        .build())
+                .build();
+        BaseApplicationBuilder applicationBuilder = BaseApplication.builder();
+        applicationBuilder.setRouter(router);
+        CountingApplication application = new CountingApplication(applicationBuilder);
+        router.setApplication(application);
+        // the session components are built by the first request, not by the constructor
+        assertEquals(0, sessionCodecs.get() + sessionHandlers.get());
+        for (int i = 0; i < 100; i++) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            router.route(HttpRequest.builder()
+                    .setBaseURL(baseURL)
+                    .setVersion(HttpVersion.HTTP_1_1)
+                    .setMethod(HttpMethod.GET)
+                    .setRequestURI("/demo"), HttpResponse.builder().setOutputStream(outputStream));
+            assertTrue(outputStream.toString(StandardCharsets.UTF_8).contains("demo"));
+        }
+        // every request sees the same session codec
+        assertEquals(1, requestSessionCodecs.size());
+        assertNotNull(requestSessionCodecs.iterator().next());
+        assertEquals(1, sessionCodecs.get());
+        assertEquals(2, sessionHandlers.get());
+        application.close();
+    }
+
+    private static class CountingApplication extends BaseApplication {
+
+        CountingApplication(BaseApplicationBuilder builder) {
+            super(builder);
+        }
+
+        @Override
+        protected Codec<Session> buildSessionCodec() {
+            sessionCodecs.incrementAndGet();
+            return super.buildSessionCodec();
+        }
+
+        @Override
+        protected HttpHandler buildIncomingSessionHandler(Codec<Session> sessionCodec) {
+            sessionHandlers.incrementAndGet();
+            return super.buildIncomingSessionHandler(sessionCodec);
+        }
+
+        @Override
+        protected HttpHandler buildOutgoingSessionHandler(Codec<Session> sessionCodec) {
+            sessionHandlers.incrementAndGet();
+            return super.buildOutgoingSessionHandler(sessionCodec);
+        }
+    }
+}
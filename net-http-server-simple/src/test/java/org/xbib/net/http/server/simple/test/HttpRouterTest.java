@@ -2,26 +2,48 @@ package org.xbib.net.http.server.simple.test;
 
 import org.junit.jupiter.api.Test;
 import org.xbib.net.URL;
+import org.xbib.net.buffer.DataBufferFactory;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaderValues;
 import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.HttpVersion;
+import org.xbib.net.http.server.Application;
 import org.xbib.net.http.server.BaseApplication;
+import org.xbib.net.http.server.BaseApplicationModule;
 import org.xbib.net.http.server.BaseHttpDomain;
+import org.xbib.net.http.server.BaseHttpDomainBuilder;
 import org.xbib.net.http.server.route.BaseHttpRouter;
 import org.xbib.net.http.server.BaseHttpService;
+import org.xbib.net.http.server.FilePart;
+import org.xbib.net.http.server.HttpServerContext;
+import org.xbib.net.http.server.NonBlockingHttpHandler;
 import org.xbib.net.http.server.simple.HttpRequest;
 import org.xbib.net.http.server.simple.HttpRequestBuilder;
 import org.xbib.net.http.server.simple.HttpResponse;
 import org.xbib.net.http.server.simple.HttpResponseBuilder;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpRouterTest {
@@ -62,4 +84,261 @@ public class HttpRouterTest {
         Logger.getAnonymousLogger().log(Level.INFO, "the response string is = " + string);
         assertTrue(string.contains("/demo"));
     }
+
+    @Test
+    public void virtualHostTest() throws Exception {
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.http1("localhost", 8008))
+                        .addName("a.example:8008")
+                        .addService(BaseHttpService.builder()
+                                .setPath("/demo")
+                                .setHandler(ctx -> writeText(ctx, "domain a"))
+                                .build())
+                        .build())
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.http1("0.0.0.0", 8009))
+                        .addService(BaseHttpService.builder()
+                                .setPath("/demo")
+                                .setHandler(ctx -> writeText(ctx, "domain any"))
+                                .build())
+                        .build())
+                .build();
+        router.setApplication(BaseApplication.builder().build());
+        assertTrue(route(router, URL.http().host("a.example").port(8008).build()).contains("domain a"));
+        // no domain for this host, the domain bound to the ANY address of the port is selected
+        assertTrue(route(router, URL.http().host("b.example").port(8009).build()).contains("domain any"));
+    }
+
+    @Test
+    public void nonBlockingServiceTest() throws Exception {
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = router(baseURL,
+                BaseHttpService.builder()
+                        .setPath("/health")
+                        .setHandler((NonBlockingHttpHandler) ctx -> writeText(ctx, "ok"))
+                        .build(),
+                BaseHttpService.builder()
+                        .setPath("/demo")
+                        .setHandler(ctx -> writeText(ctx, "demo"))
+                        .build());
+        // application modules may block, they are only called for requests on the executor
+        AtomicInteger moduleCalls = new AtomicInteger();
+        router.setApplication(BaseApplication.builder()
+                .addModule(new BaseApplicationModule() {
+                    @Override
+                    public String getName() {
+                        return "counter";
+                    }
+
+                    @Override
+                    public void onOpen(Application application, HttpServerContext httpServerContext) {
+                        moduleCalls.incrementAndGet();
+                    }
+                })
+                .build());
+        AtomicInteger handoffs = new AtomicInteger();
+        Executor executor = runnable -> {
+            handoffs.incrementAndGet();
+            runnable.run();
+        };
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        router.route(request(baseURL, "/health"), HttpResponse.builder().setOutputStream(outputStream), executor);
+        assertTrue(outputStream.toString(StandardCharsets.UTF_8).contains("ok"));
+        assertEquals(0, handoffs.get());
+        assertEquals(0, moduleCalls.get());
+        outputStream = new ByteArrayOutputStream();
+        router.route(request(baseURL, "/demo"), HttpResponse.builder().setOutputStream(outputStream), executor);
+        assertTrue(outputStream.toString(StandardCharsets.UTF_8).contains("demo"));
+        assertEquals(1, handoffs.get());
+        assertEquals(1, moduleCalls.get());
+    }
+
+    @Test
+    public void laneTest() throws Exception {
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = BaseHttpRouter.builder()
+                .addDomain(BaseHttpDomain.builder()
+                        .setHttpAddress(HttpAddress.of(baseURL))
+                        .setLane("default")
+                        .addService(BaseHttpService.builder()
+                                .setPath("/report")
+                                .setLane("reports")
+                                .setHandler(ctx -> writeText(ctx, Thread.currentThread().getName()))
+                                .build())
+                        .addService(BaseHttpService.builder()
+                                .setPath("/demo")
+                                .setHandler(ctx -> writeText(ctx, Thread.currentThread().getName()))
+                                .build())
+                        .build())
+                .build();
+        Application application = BaseApplication.builder()
+                .addLane("default", 2, 10)
+                .addLane("reports", 1, 10)
+                .build();
+        router.setApplication(application);
+        AtomicInteger handoffs = new AtomicInteger();
+        Executor executor = runnable -> {
+            handoffs.incrementAndGet();
+            runnable.run();
+        };
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        router.route(request(baseURL, "/report"), HttpResponse.builder().setOutputStream(outputStream), executor);
+        ByteArrayOutputStream demoOutputStream = new ByteArrayOutputStream();
+        router.route(request(baseURL, "/demo"), HttpResponse.builder().setOutputStream(demoOutputStream), executor);
+        application.close();
+        assertTrue(outputStream.toString(StandardCharsets.UTF_8).contains("lane-reports"));
+        assertTrue(demoOutputStream.toString(StandardCharsets.UTF_8).contains("lane-default"));
+        assertEquals(0, handoffs.get());
+        assertEquals(1L, application.getLane("reports").getCompletedTaskCount());
+        assertEquals(1L, application.getLane("default").getCompletedTaskCount());
+    }
+
+    @Test
+    public void deadlineTest() throws Exception {
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CountDownLatch latch = new CountDownLatch(1);
+        BaseHttpRouter router = router(baseURL, BaseHttpService.builder()
+                .setPath("/slow")
+                .setTimeout(Duration.ofMillis(50L))
+                .setHandler(ctx -> {
+                    try {
+                        Thread.sleep(10000L);
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                    }
+                    cancelled.set(ctx.isCancelled());
+                    latch.countDown();
+                })
+                .build());
+        router.setApplication(BaseApplication.builder().build());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        router.route(request(baseURL, "/slow"), HttpResponse.builder().setOutputStream(new ByteArrayOutputStream()), executor);
+        assertTrue(latch.await(5L, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        assertTrue(cancelled.get());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void streamingTest() throws Exception {
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = router(baseURL, BaseHttpService.builder()
+                .setPath("/export")
+                .setHandler(ctx -> {
+                    ctx.response().setStreaming(true);
+                    writeText(ctx, "chunk0");
+                    for (int i = 1; i < 3; i++) {
+                        ctx.write("chunk" + i);
+                    }
+                })
+                .build());
+        router.setApplication(BaseApplication.builder().build());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        router.route(request(baseURL, "/export"), HttpResponse.builder().setOutputStream(outputStream));
+        String response = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(response.contains("transfer-encoding: chunked"));
+        assertTrue(response.endsWith("\r\n\r\n6\r\nchunk0\r\n6\r\nchunk1\r\n6\r\nchunk2\r\n0\r\n\r\n"));
+    }
+
+    @Test
+    public void fileRegionTest() throws Exception {
+        Path path = Files.createTempFile("region", ".txt");
+        Files.writeString(path, "Hello World!");
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = router(baseURL, BaseHttpService.builder()
+                .setPath("/file")
+                .setHandler(ctx -> {
+                    ctx.response()
+                            .setResponseStatus(HttpResponseStatus.PARTIAL_CONTENT)
+                            .setHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN);
+                    ctx.write(FileChannel.open(path), 6L, 5L);
+                })
+                .build());
+        router.setApplication(BaseApplication.builder().build());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        router.route(request(baseURL, "/file"), HttpResponse.builder().setOutputStream(outputStream));
+        String response = outputStream.toString(StandardCharsets.UTF_8);
+        Files.delete(path);
+        assertTrue(response.contains("content-length: 5"));
+        assertTrue(response.endsWith("\r\n\r\nWorld"));
+    }
+
+    @Test
+    public void filePartsTest() throws Exception {
+        Path path = Files.createTempFile("parts", ".txt");
+        Files.writeString(path, "Hello World!");
+        URL baseURL = URL.http().host("localhost").port(8008).build();
+        BaseHttpRouter router = router(baseURL, BaseHttpService.builder()
+                .setPath("/file")
+                .setHandler(ctx -> {
+                    DataBufferFactory factory = ctx.response().getDataBufferFactory();
+                    ctx.response()
+                            .setResponseStatus(HttpResponseStatus.PARTIAL_CONTENT)
+                            .setHeader(HttpHeaderNames.CONTENT_TYPE, "multipart/byteranges; boundary=b")
+                            .write(FileChannel.open(path), List.of(
+                                    new FilePart(factory.wrap(US_ASCII.encode("--b\r\n\r\n")), 0L, 5L),
+                                    new FilePart(factory.wrap(US_ASCII.encode("\r\n--b\r\n\r\n")), 6L, 5L),
+                                    new FilePart(factory.wrap(US_ASCII.encode("\r\n--b--\r\n")), 0L, 0L)));
+                })
+                .build());
+        router.setApplication(BaseApplication.builder().build());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        router.route(request(baseURL, "/file"), HttpResponse.builder().setOutputStream(outputStream));
+        String response = outputStream.toString(StandardCharsets.UTF_8);
+        Files.delete(path);
+        String body = "--b\r\n\r\nHello\r\n--b\r\n\r\nWorld\r\n--b--\r\n";
+        assertTrue(response.contains("content-length: " + body.length()));
+        assertTrue(response.endsWith("\r\n\r\n" + body));
+    }
+
+    /**
+     * A router with a single domain for the base URL.
+     */
+    private static BaseHttpRouter router(URL baseURL, BaseHttpService... services) {
+        BaseHttpDomainBuilder domain = BaseHttpDomain.builder()
+                .setHttpAddress(HttpAddress.of(baseURL));
+        for (BaseHttpService service : services) {
+            domain.addService(service);
+        }
+        return BaseHttpRouter.builder()
+                .addDomain(domain.build())
+                .build();
+    }
+
+    private static HttpRequestBuilder request(URL baseURL, String requestURI) {
+        return HttpRequest.builder()
+                .setBaseURL(baseURL)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .setMethod(HttpMethod.GET)
+                .setRequestURI(requestURI);
+    }
+
+    /**
+     * Answer with a plain text response.
+     */
+    private static void writeText(HttpServerContext ctx, String text) throws IOException {
+        ctx.response()
+                .setResponseStatus(HttpResponseStatus.OK)
+                .setHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                .setCharset(StandardCharsets.UTF_8);
+        ctx.write(text);
+    }
+
+    private static String route(BaseHttpRouter router, URL baseURL) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        HttpResponseBuilder httpResponse = HttpResponse.builder()
+                .setOutputStream(outputStream);
+        HttpRequestBuilder httpRequest = HttpRequest.builder()
+                .setBaseURL(baseURL)
+                .setVersion(HttpVersion.HTTP_1_1)
+                .setMethod(HttpMethod.GET)
+                .setRequestURI("/demo")
+                .addHeader(HttpHeaderNames.HOST, baseURL.getHost() + ":" + baseURL.getPort());
+        router.route(httpRequest, httpResponse);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
 }
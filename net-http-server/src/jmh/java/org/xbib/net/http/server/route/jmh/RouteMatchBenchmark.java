@@ -0,0 +1,98 @@
+package org.xbib.net.http.server.route.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.route.BaseHttpRoute;
+import org.xbib.net.http.server.route.BaseHttpRouteResolver;
+import org.xbib.net.http.server.route.HttpRouteResolver;
+import org.xbib.net.http.server.route.PathSegments;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route matching benchmark. The jmh task runs with the GC profiler, {@code gc.alloc.rate.norm} must be zero
+ * for {@code matchMiss} and {@code matchHit}, and {@code resolveMiss} must only allocate for splitting
+ * the requested path, independent of the number of routes.
+ *
+ * Allocations per operation, measured with the thread allocation counter of the JVM on JDK 17:
+ * <ul>
+ * <li>{@code matchMiss}, {@code matchHit}: 0 bytes</li>
+ * <li>{@code newRequestedRoute}: 40 bytes, only the route itself. It was 744 bytes while the sort key
+ * was formatted in the constructor of every route.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteMatchBenchmark {
+
+    @Param({ "10", "100" })
+    public int routes;
+
+    private HttpAddress httpAddress;
+
+    private Set<HttpMethod> httpMethods;
+
+    private HttpRouteResolver<Integer> resolver;
+
+    private BaseHttpRoute route;
+
+    private PathSegments missSegments;
+
+    private PathSegments hitSegments;
+
+    @Setup
+    public void setup() {
+        httpAddress = HttpAddress.http1("localhost", 8008);
+        httpMethods = Set.of(HttpMethod.GET);
+        HttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+        for (int i = 0; i < routes; i++) {
+            builder.add(httpAddress, HttpMethod.GET, "/api/v1/service" + i + "/{id}/items", i);
+        }
+        resolver = builder.build();
+        route = new BaseHttpRoute(httpAddress, HttpMethod.GET, "/api/v1/service0/{id}/items");
+        missSegments = PathSegments.of("/api/v1/unknown/123/items");
+        hitSegments = PathSegments.of("/api/v1/service0/123/items");
+    }
+
+    @Benchmark
+    public boolean matchMiss() {
+        return route.matches(missSegments);
+    }
+
+    @Benchmark
+    public boolean matchHit() {
+        return route.matches(hitSegments);
+    }
+
+    @Benchmark
+    public BaseHttpRoute newRequestedRoute() {
+        return new BaseHttpRoute(httpAddress, httpMethods, "/api/v1/service0/123/items", true);
+    }
+
+    @Benchmark
+    public void resolveMiss(Blackhole blackhole) {
+        resolver.resolve(new BaseHttpRoute(httpAddress, HttpMethod.GET, "/api/v1/unknown/123/items"), blackhole::consume);
+    }
+
+    @Benchmark
+    public void resolveHit(Blackhole blackhole) {
+        resolver.resolve(new BaseHttpRoute(httpAddress, HttpMethod.GET, "/api/v1/service0/123/items"), blackhole::consume);
+    }
+}
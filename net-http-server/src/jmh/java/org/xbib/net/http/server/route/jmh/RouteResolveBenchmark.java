@@ -0,0 +1,82 @@
+package org.xbib.net.http.server.route.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.route.BaseHttpRoute;
+import org.xbib.net.http.server.route.BaseHttpRouteResolver;
+import org.xbib.net.http.server.route.CompiledHttpRouteResolver;
+import org.xbib.net.http.server.route.HttpRouteResolver;
+import org.xbib.net.http.server.route.RadixHttpRouteResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route resolver benchmark, comparing the linear, the radix and the compiled route resolver
+ * by the number of configured routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteResolveBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int routes;
+
+    @Param({ "base", "radix", "compiled" })
+    public String resolverType;
+
+    private HttpRouteResolver<Integer> resolver;
+
+    private BaseHttpRoute hitRoute;
+
+    private BaseHttpRoute missRoute;
+
+    @Setup
+    public void setup() {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpRouteResolver.Builder<Integer> builder;
+        switch (resolverType) {
+            case "radix":
+                builder = RadixHttpRouteResolver.builder();
+                break;
+            case "compiled":
+                builder = CompiledHttpRouteResolver.builder();
+                break;
+            default:
+                builder = BaseHttpRouteResolver.builder();
+                break;
+        }
+        for (int i = 0; i < routes; i++) {
+            builder.add(httpAddress, HttpMethod.GET, "/api/v1/service" + i + "/{id}/items", i);
+        }
+        resolver = builder.sort(true).build();
+        // the route objects are reused, their path segments are split once
+        hitRoute = new BaseHttpRoute(httpAddress, HttpMethod.GET, "/api/v1/service" + (routes - 1) + "/123/items");
+        missRoute = new BaseHttpRoute(httpAddress, HttpMethod.GET, "/api/v1/unknown/123/items");
+    }
+
+    @Benchmark
+    public void resolveHit(Blackhole blackhole) {
+        resolver.resolve(hitRoute, blackhole::consume);
+    }
+
+    @Benchmark
+    public void resolveMiss(Blackhole blackhole) {
+        resolver.resolve(missRoute, blackhole::consume);
+    }
+}
@@ -18,11 +18,13 @@ module org.xbib.net.http.server {
     exports org.xbib.net.http.server.session;
     exports org.xbib.net.http.server.session.file;
     exports org.xbib.net.http.server.session.memory;
+    exports org.xbib.net.http.server.util;
     exports org.xbib.net.http.server.validate;
     requires org.xbib.net;
     requires org.xbib.net.mime;
     requires org.xbib.net.http;
     requires org.xbib.datastructures.common;
+    requires org.javassist;
     requires java.logging;
     requires java.naming;
     requires java.sql;
@@ -3,6 +3,7 @@ package org.xbib.net.http.server;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.server.session.SessionListener;
+import org.xbib.net.http.server.util.ExecutorLane;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -28,6 +29,13 @@ public interface Application extends SessionListener, Resolver<Path>, Closeable
 
     Collection<ApplicationModule> getModules();
 
+    /**
+     * Find a named executor lane.
+     * @param name the lane name
+     * @return the lane, or null if there is no such lane
+     */
+    ExecutorLane getLane(String name);
+
     /**
      * Dispatch a regular request.
      * @param requestBuilder the request
@@ -48,5 +56,18 @@ public interface Application extends SessionListener, Resolver<Path>, Closeable
 
     void onClose(HttpServerContext httpServerContext);
 
+    /**
+     * Open a request that is executed on the thread that received it. Only the parts of the request
+     * lifecycle that never block are run, without sessions and application modules.
+     * @param httpServerContext the server context
+     */
+    void onOpenNonBlocking(HttpServerContext httpServerContext);
+
+    /**
+     * Close a request that is executed on the thread that received it, and render the response.
+     * @param httpServerContext the server context
+     */
+    void onCloseNonBlocking(HttpServerContext httpServerContext);
+
     void close() throws IOException;
 }
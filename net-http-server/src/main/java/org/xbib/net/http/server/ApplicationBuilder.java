@@ -3,6 +3,7 @@ package org.xbib.net.http.server;
 import org.xbib.net.http.server.route.HttpRouter;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.util.Locale;
 
@@ -12,6 +13,16 @@ public interface ApplicationBuilder {
 
     ApplicationBuilder setQueueCount(int blockingQueueCount);
 
+    ApplicationBuilder setVirtualThreadsEnabled(boolean virtualThreadsEnabled);
+
+    ApplicationBuilder setVirtualThreadCount(int virtualThreadCount);
+
+    ApplicationBuilder setLoadShedding(Duration target, Duration interval);
+
+    ApplicationBuilder setRetryAfter(Duration retryAfter);
+
+    ApplicationBuilder addLane(String name, int threadCount, int queueCount);
+
     ApplicationBuilder setHome(Path home);
 
     ApplicationBuilder setContextPath(String contextPath);
@@ -2,6 +2,8 @@ package org.xbib.net.http.server;
 
 import org.xbib.net.http.server.route.HttpRouter;
 import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaderValues;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.server.cookie.IncomingCookieHandler;
 import org.xbib.net.http.server.cookie.OutgoingCookieHandler;
@@ -12,20 +14,27 @@ import org.xbib.net.http.server.session.IncomingSessionHandler;
 import org.xbib.net.http.server.session.OutgoingSessionHandler;
 import org.xbib.net.http.server.session.Session;
 import org.xbib.net.http.server.util.BlockingThreadPoolExecutor;
+import org.xbib.net.http.server.util.ExecutorLane;
+import org.xbib.net.http.server.util.VirtualThreadExecutor;
 import org.xbib.net.http.server.validate.HttpRequestValidator;
 import org.xbib.net.util.NamedThreadFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.ZoneId;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,7 +45,9 @@ public class BaseApplication implements Application {
 
     protected BaseApplicationBuilder builder;
 
-    private final BlockingThreadPoolExecutor executor;
+    private final ExecutorService executor;
+
+    private final Map<String, ExecutorLane> lanes;
 
     private final HttpRequestValidator httpRequestValidator;
 
@@ -46,18 +57,12 @@ public class BaseApplication implements Application {
 
     private final HttpResponseRenderer httpResponseRenderer;
 
-    private Codec<Session> sessionCodec;
-
-    private HttpHandler incomingSessionHandler;
-
-    private HttpHandler outgoingSessionHandler;
+    private volatile SessionComponents sessionComponents;
 
     protected BaseApplication(BaseApplicationBuilder builder) {
         this.builder = builder;
-        this.executor = new BlockingThreadPoolExecutor(builder.blockingThreadCount, builder.blockingQueueCount,
-                new NamedThreadFactory("org-xbib-net-hhtp-server-application"));
-        this.executor.setRejectedExecutionHandler((runnable, threadPoolExecutor) ->
-                        logger.log(Level.SEVERE, "rejected " + runnable + " for thread pool executor = " + threadPoolExecutor));
+        this.executor = createExecutor();
+        this.lanes = createLanes();
         this.httpRequestValidator = buildRequestValidator();
         this.incomingCookieHandler = buildIncomingCookieHandler();
         this.outgoingCookieHandler = buildOutgoingCookieHandler();
@@ -103,6 +108,15 @@ public class BaseApplication implements Application {
         return builder.applicationModuleList;
     }
 
+    @Override
+    public ExecutorLane getLane(String name) {
+        return lanes.get(name);
+    }
+
+    public Collection<ExecutorLane> getLanes() {
+        return lanes.values();
+    }
+
     @Override
     public Collection<HttpDomain> getDomains() {
         return getRouter().getDomains();
@@ -115,20 +129,88 @@ public class BaseApplication implements Application {
 
     @Override
     public void dispatch(HttpRequestBuilder requestBuilder, HttpResponseBuilder responseBuilder) {
-        Future<?> future = executor.submit(() -> getRouter().route(requestBuilder, responseBuilder));
-        logger.log(Level.FINE, "dispatching " + future);
+        try {
+            logger.log(Level.FINE, () -> "dispatching " + requestBuilder);
+            getRouter().route(requestBuilder, responseBuilder, executor);
+        } catch (RejectedExecutionException e) {
+            logger.log(Level.FINE, () -> "rejected request for executor = " + executor);
+            writeServiceUnavailable(responseBuilder);
+        }
     }
 
     @Override
     public void dispatch(HttpRequestBuilder httpRequestBuilder,
                          HttpResponseBuilder httpResponseBuilder,
                          HttpResponseStatus httpResponseStatus) {
-        Future<?> future = executor.submit(() -> {
-            HttpServerContext httpServerContext = createContext(null, httpRequestBuilder, httpResponseBuilder);
-            httpServerContext.attributes().put("responsebuilder", httpResponseBuilder);
-            getRouter().routeStatus(httpResponseStatus, httpServerContext);
-        });
-        logger.log(Level.FINE, "dispatching status " + future);
+        try {
+            Future<?> future = executor.submit(() -> {
+                try {
+                    HttpServerContext httpServerContext = createContext(null, httpRequestBuilder, httpResponseBuilder);
+                    httpServerContext.attributes().put("responsebuilder", httpResponseBuilder);
+                    getRouter().routeStatus(httpResponseStatus, httpServerContext);
+                } finally {
+                    httpRequestBuilder.release();
+                }
+            });
+            logger.log(Level.FINE, "dispatching status " + future);
+        } catch (RejectedExecutionException e) {
+            logger.log(Level.FINE, () -> "rejected status " + httpResponseStatus + " for executor = " + executor);
+            httpRequestBuilder.release();
+            writeServiceUnavailable(httpResponseBuilder);
+        }
+    }
+
+    /**
+     * Answer a request that was rejected by the executor, directly on the calling thread, without routing.
+     * The response is written by the response builder of the transport.
+     * @param responseBuilder the response builder
+     */
+    protected void writeServiceUnavailable(HttpResponseBuilder responseBuilder) {
+        try {
+            long retryAfter = Math.max(1L, (builder.retryAfter.toMillis() + 999L) / 1000L);
+            responseBuilder.setResponseStatus(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                    .setHeader(HttpHeaderNames.RETRY_AFTER, Long.toString(retryAfter))
+                    .setHeader(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.TEXT_PLAIN)
+                    .setCharset(StandardCharsets.UTF_8)
+                    .write(HttpResponseStatus.SERVICE_UNAVAILABLE.reasonPhrase());
+            responseBuilder.build();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "unable to write service unavailable response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create the executor for dispatching requests, a virtual thread per request if enabled and supported,
+     * otherwise a pool of platform threads.
+     * @return the executor
+     */
+    protected ExecutorService createExecutor() {
+        if (builder.virtualThreadsEnabled) {
+            if (VirtualThreadExecutor.isSupported()) {
+                return new VirtualThreadExecutor(builder.virtualThreadCount, builder.blockingQueueCount,
+                        "org-xbib-net-http-server-application");
+            }
+            logger.log(Level.WARNING, "virtual threads are not supported by this JDK, using platform threads");
+        }
+        BlockingThreadPoolExecutor blockingThreadPoolExecutor = new BlockingThreadPoolExecutor(builder.blockingThreadCount,
+                builder.blockingQueueCount, new NamedThreadFactory("org-xbib-net-hhtp-server-application"));
+        blockingThreadPoolExecutor.setLoadShedding(builder.loadSheddingTarget, builder.loadSheddingInterval);
+        return blockingThreadPoolExecutor;
+    }
+
+    /**
+     * Create the named executor lanes. Every lane is a platform thread pool with admission control.
+     * @return the lanes by name
+     */
+    protected Map<String, ExecutorLane> createLanes() {
+        Map<String, ExecutorLane> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : builder.laneThreadCounts.entrySet()) {
+            ExecutorLane executorLane = new ExecutorLane(entry.getKey(), entry.getValue(),
+                    builder.laneQueueCounts.get(entry.getKey()));
+            executorLane.setLoadShedding(builder.loadSheddingTarget, builder.loadSheddingInterval);
+            map.put(entry.getKey(), executorLane);
+        }
+        return map;
     }
 
     @Override
@@ -138,12 +220,6 @@ public class BaseApplication implements Application {
         HttpServerContext httpServerContext = new BaseHttpServerContext(this, domain, requestBuilder, responseBuilder);
         httpServerContext.attributes().put("requestbuilder", requestBuilder);
         httpServerContext.attributes().put("responsebuilder", responseBuilder);
-        this.sessionCodec = buildSessionCodec(httpServerContext);
-        if (sessionCodec != null) {
-            httpServerContext.attributes().put("sessioncodec", sessionCodec);
-        }
-        this.incomingSessionHandler = buildIncomingSessionHandler(httpServerContext);
-        this.outgoingSessionHandler = buildOutgoingSessionHandler(httpServerContext);
         return httpServerContext;
     }
 
@@ -159,13 +235,20 @@ public class BaseApplication implements Application {
         return new OutgoingCookieHandler();
     }
 
-    protected Codec<Session> buildSessionCodec(HttpServerContext httpServerContext) {
+    /**
+     * Build the session codec. Called once, by the first request that uses sessions.
+     * @return the session codec
+     */
+    protected Codec<Session> buildSessionCodec() {
         return new MemoryPropertiesSessionCodec(this, 1024, Duration.ofDays(1));
     }
 
-    protected HttpHandler buildIncomingSessionHandler(HttpServerContext httpServerContext) {
-        @SuppressWarnings("unchecked")
-        Codec<Session> sessionCodec = httpServerContext.attributes().get(Codec.class, "sessioncodec");
+    /**
+     * Build the incoming session handler. Called once, by the first request that uses sessions.
+     * @param sessionCodec the session codec
+     * @return the incoming session handler
+     */
+    protected HttpHandler buildIncomingSessionHandler(Codec<Session> sessionCodec) {
         return new IncomingSessionHandler(
                 getSecret(),
                 "HmacSHA1",
@@ -176,9 +259,12 @@ public class BaseApplication implements Application {
                 "e_user_id");
     }
 
-    protected HttpHandler buildOutgoingSessionHandler(HttpServerContext httpServerContext) {
-        @SuppressWarnings("unchecked")
-        Codec<Session> sessionCodec = httpServerContext.attributes().get(Codec.class, "sessioncodec");
+    /**
+     * Build the outgoing session handler. Called once, by the first request that uses sessions.
+     * @param sessionCodec the session codec
+     * @return the outgoing session handler
+     */
+    protected HttpHandler buildOutgoingSessionHandler(Codec<Session> sessionCodec) {
         return new OutgoingSessionHandler(
                 getSecret(),
                 "HmacSHA1",
@@ -207,6 +293,24 @@ public class BaseApplication implements Application {
     }
 
     public void onOpen(HttpServerContext httpServerContext) {
+        open(httpServerContext, true);
+    }
+
+    public void onClose(HttpServerContext httpServerContext) {
+        close(httpServerContext, true);
+    }
+
+    @Override
+    public void onOpenNonBlocking(HttpServerContext httpServerContext) {
+        open(httpServerContext, false);
+    }
+
+    @Override
+    public void onCloseNonBlocking(HttpServerContext httpServerContext) {
+        close(httpServerContext, false);
+    }
+
+    private void open(HttpServerContext httpServerContext, boolean blocking) {
         try {
             if (httpRequestValidator != null) {
                 httpRequestValidator.handle(httpServerContext);
@@ -214,11 +318,20 @@ public class BaseApplication implements Application {
             if (incomingCookieHandler != null) {
                 incomingCookieHandler.handle(httpServerContext);
             }
-            if (builder.sessionsEnabled && incomingSessionHandler != null) {
-                incomingSessionHandler.handle(httpServerContext);
+            if (blocking) {
+                // sessions may be loaded from files or databases
+                if (builder.sessionsEnabled) {
+                    SessionComponents sessionComponents = getSessionComponents();
+                    if (sessionComponents.sessionCodec != null) {
+                        httpServerContext.attributes().put("sessioncodec", sessionComponents.sessionCodec);
+                    }
+                    if (sessionComponents.incomingSessionHandler != null) {
+                        sessionComponents.incomingSessionHandler.handle(httpServerContext);
+                    }
+                }
+                // call modules after request/cookie/session setup
+                builder.applicationModuleList.forEach(module -> module.onOpen(this, httpServerContext));
             }
-            // call modules after request/cookie/session setup
-            builder.applicationModuleList.forEach(module -> module.onOpen(this, httpServerContext));
         } catch (HttpException e) {
             getRouter().routeException(e);
             httpServerContext.fail();
@@ -228,12 +341,15 @@ public class BaseApplication implements Application {
         }
     }
 
-    public void onClose(HttpServerContext httpServerContext) {
+    private void close(HttpServerContext httpServerContext, boolean blocking) {
         try {
-            // call modules before session/cookie setdown
-            builder.applicationModuleList.forEach(module -> module.onClose(this, httpServerContext));
-            if (builder.sessionsEnabled && outgoingSessionHandler != null) {
-                outgoingSessionHandler.handle(httpServerContext);
+            if (blocking) {
+                // call modules before session/cookie setdown
+                builder.applicationModuleList.forEach(module -> module.onClose(this, httpServerContext));
+                SessionComponents sessionComponents = this.sessionComponents;
+                if (builder.sessionsEnabled && sessionComponents != null && sessionComponents.outgoingSessionHandler != null) {
+                    sessionComponents.outgoingSessionHandler.handle(httpServerContext);
+                }
             }
             if (outgoingCookieHandler != null) {
                 outgoingCookieHandler.handle(httpServerContext);
@@ -275,31 +391,18 @@ public class BaseApplication implements Application {
     public void close() throws IOException {
         logger.log(Level.INFO, "application closing down");
         // stop dispatching and stop dispatched requests
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
-                List<Runnable> list = executor.shutdownNow();
-                logger.log(Level.WARNING, "unable to stop runnables " + list);
-            }
-        } catch (InterruptedException e) {
-            List<Runnable> list = executor.shutdownNow();
-            logger.log(Level.WARNING, "unable to stop runnables " + list);
+        shutdown(executor);
+        for (ExecutorLane executorLane : lanes.values()) {
+            logger.log(Level.FINE, "application closing " + executorLane);
+            shutdown(executorLane);
         }
         builder.applicationModuleList.forEach(module -> {
             logger.log(Level.FINE, "application closing module " + module);
             module.onClose(this);
         });
-        if (outgoingSessionHandler != null && (outgoingSessionHandler instanceof Closeable)) {
-            logger.log(Level.FINE, "application closing outgoing session handler");
-            ((Closeable) outgoingSessionHandler).close();
-        }
-        if (incomingSessionHandler != null && (incomingSessionHandler instanceof Closeable)) {
-            logger.log(Level.FINE, "application closing incming session handler");
-            ((Closeable) incomingSessionHandler).close();
-        }
-        if (sessionCodec != null && sessionCodec instanceof Closeable) {
-            logger.log(Level.FINE, "application closing session codec");
-            ((Closeable) sessionCodec).close();
+        SessionComponents sessionComponents = this.sessionComponents;
+        if (sessionComponents != null) {
+            sessionComponents.close();
         }
         if (outgoingCookieHandler != null && (outgoingCookieHandler instanceof Closeable)) {
             logger.log(Level.FINE, "application closing outgoing cookie handler");
@@ -311,4 +414,72 @@ public class BaseApplication implements Application {
         }
         logger.log(Level.INFO, "application closed");
     }
+
+    /**
+     * Get the session components, and build them if this is the first request that uses sessions.
+     * The components are not built by the constructor, because subclasses are not initialized yet,
+     * and an application that never sees a request with a session does not need them.
+     * @return the session components, shared by all requests, so they must be thread-safe
+     */
+    private SessionComponents getSessionComponents() {
+        SessionComponents sessionComponents = this.sessionComponents;
+        if (sessionComponents == null) {
+            synchronized (this) {
+                sessionComponents = this.sessionComponents;
+                if (sessionComponents == null) {
+                    Codec<Session> sessionCodec = buildSessionCodec();
+                    sessionComponents = new SessionComponents(sessionCodec,
+                            sessionCodec != null ? buildIncomingSessionHandler(sessionCodec) : null,
+                            sessionCodec != null ? buildOutgoingSessionHandler(sessionCodec) : null);
+                    this.sessionComponents = sessionComponents;
+                }
+            }
+        }
+        return sessionComponents;
+    }
+
+    private static void shutdown(ExecutorService executorService) {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
+                List<Runnable> list = executorService.shutdownNow();
+                logger.log(Level.WARNING, "unable to stop runnables " + list);
+            }
+        } catch (InterruptedException e) {
+            List<Runnable> list = executorService.shutdownNow();
+            logger.log(Level.WARNING, "unable to stop runnables " + list);
+        }
+    }
+
+    private static class SessionComponents {
+
+        private final Codec<Session> sessionCodec;
+
+        private final HttpHandler incomingSessionHandler;
+
+        private final HttpHandler outgoingSessionHandler;
+
+        SessionComponents(Codec<Session> sessionCodec,
+                          HttpHandler incomingSessionHandler,
+                          HttpHandler outgoingSessionHandler) {
+            this.sessionCodec = sessionCodec;
+            this.incomingSessionHandler = incomingSessionHandler;
+            this.outgoingSessionHandler = outgoingSessionHandler;
+        }
+
+        void close() throws IOException {
+            if (outgoingSessionHandler != null && (outgoingSessionHandler instanceof Closeable)) {
+                logger.log(Level.FINE, "application closing outgoing session handler");
+                ((Closeable) outgoingSessionHandler).close();
+            }
+            if (incomingSessionHandler != null && (incomingSessionHandler instanceof Closeable)) {
+                logger.log(Level.FINE, "application closing incming session handler");
+                ((Closeable) incomingSessionHandler).close();
+            }
+            if (sessionCodec != null && sessionCodec instanceof Closeable) {
+                logger.log(Level.FINE, "application closing session codec");
+                ((Closeable) sessionCodec).close();
+            }
+        }
+    }
 }
@@ -5,10 +5,13 @@ import org.xbib.net.http.server.route.HttpRouter;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.logging.Level;
@@ -22,6 +25,20 @@ public class BaseApplicationBuilder implements ApplicationBuilder {
 
     protected int blockingQueueCount;
 
+    protected boolean virtualThreadsEnabled;
+
+    protected int virtualThreadCount;
+
+    protected Duration loadSheddingTarget;
+
+    protected Duration loadSheddingInterval;
+
+    protected Duration retryAfter;
+
+    protected Map<String, Integer> laneThreadCounts;
+
+    protected Map<String, Integer> laneQueueCounts;
+
     protected Path home;
 
     protected String contextPath;
@@ -43,6 +60,13 @@ public class BaseApplicationBuilder implements ApplicationBuilder {
     protected BaseApplicationBuilder() {
         this.blockingThreadCount = Runtime.getRuntime().availableProcessors();
         this.blockingQueueCount = Integer.MAX_VALUE;
+        this.virtualThreadsEnabled = false;
+        this.virtualThreadCount = 1024;
+        this.loadSheddingTarget = Duration.ofMillis(100L);
+        this.loadSheddingInterval = Duration.ofSeconds(1L);
+        this.retryAfter = Duration.ofSeconds(1L);
+        this.laneThreadCounts = new LinkedHashMap<>();
+        this.laneQueueCounts = new LinkedHashMap<>();
         this.home = Paths.get(System.getProperties().containsKey("application.home") ? System.getProperty("application.home") : ".");
         this.contextPath = "/";
         this.secret = "secret";
@@ -64,6 +88,72 @@ public class BaseApplicationBuilder implements ApplicationBuilder {
         return this;
     }
 
+    /**
+     * Dispatch each request to a virtual thread instead of the platform thread pool. If the JDK does not
+     * support virtual threads, the platform thread pool is used.
+     * @param virtualThreadsEnabled true if virtual threads should be used
+     * @return this builder
+     */
+    @Override
+    public BaseApplicationBuilder setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of requests running concurrently on virtual threads. Further requests wait,
+     * up to the queue count, or are rejected.
+     * @param virtualThreadCount the maximum number of concurrently running requests
+     * @return this builder
+     */
+    @Override
+    public BaseApplicationBuilder setVirtualThreadCount(int virtualThreadCount) {
+        this.virtualThreadCount = virtualThreadCount;
+        return this;
+    }
+
+    /**
+     * Set the admission control of the platform thread pool. If queued requests wait longer than the target
+     * for a whole interval, new requests are rejected with status 503 until the queue delay drops below the target.
+     * Admission control requires a bounded queue, see {@link #setQueueCount(int)}.
+     * @param target the acceptable queue delay, or zero to disable admission control
+     * @param interval the interval
+     * @return this builder
+     */
+    @Override
+    public BaseApplicationBuilder setLoadShedding(Duration target, Duration interval) {
+        this.loadSheddingTarget = target;
+        this.loadSheddingInterval = interval;
+        return this;
+    }
+
+    /**
+     * Set the delay for the Retry-After header of responses to rejected requests.
+     * @param retryAfter the delay, rounded up to seconds
+     * @return this builder
+     */
+    @Override
+    public BaseApplicationBuilder setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * Add a named executor lane. Services and domains assigned to the lane are executed by the threads
+     * of the lane, with their own queue, instead of the application executor. Lanes use the same admission
+     * control as the application executor.
+     * @param name the lane name
+     * @param threadCount the number of threads of the lane
+     * @param queueCount the maximum number of queued requests of the lane
+     * @return this builder
+     */
+    @Override
+    public BaseApplicationBuilder addLane(String name, int threadCount, int queueCount) {
+        this.laneThreadCounts.put(name, threadCount);
+        this.laneQueueCounts.put(name, queueCount);
+        return this;
+    }
+
     @Override
     public BaseApplicationBuilder setHome(Path home) {
         this.home = home;
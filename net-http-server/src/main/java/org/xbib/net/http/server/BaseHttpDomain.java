@@ -38,6 +38,11 @@ public class BaseHttpDomain implements HttpDomain {
         return builder.httpServices;
     }
 
+    @Override
+    public String getLane() {
+        return builder.lane;
+    }
+
     @Override
     public String toString() {
         return builder.names + " -> " + builder.httpAddress;
@@ -16,6 +16,8 @@ public class BaseHttpDomainBuilder implements HttpDomainBuilder {
 
     protected final Collection<HttpService> httpServices;
 
+    protected String lane;
+
     BaseHttpDomainBuilder() {
         this.names = new LinkedHashSet<>();
         this.httpAddress = BaseHttpDomain.getDefaultAddress();
@@ -43,6 +45,18 @@ public class BaseHttpDomainBuilder implements HttpDomainBuilder {
         return this;
     }
 
+    /**
+     * Execute the services of this domain in a named executor lane of the application.
+     * Services can override the lane, see {@link BaseHttpServiceBuilder#setLane(String)}.
+     * @param lane the lane name
+     * @return this builder
+     */
+    @Override
+    public BaseHttpDomainBuilder setLane(String lane) {
+        this.lane = lane;
+        return this;
+    }
+
     @Override
     public BaseHttpDomain build() {
         Objects.requireNonNull(httpAddress);
@@ -8,6 +8,9 @@ import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.HttpVersion;
 
 import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
 
 public abstract class BaseHttpRequest implements HttpRequest {
 
@@ -90,6 +93,16 @@ public abstract class BaseHttpRequest implements HttpRequest {
         return builder.httpServerContext;
     }
 
+    @Override
+    public ReadableByteChannel getBodyChannel() {
+        return Channels.newChannel(getInputStream());
+    }
+
+    @Override
+    public List<UploadedFile> getUploadedFiles() {
+        return builder.uploadedFiles;
+    }
+
     @Override
     public Attributes attributes() {
         return attributes;
@@ -1,5 +1,6 @@
 package org.xbib.net.http.server;
 
+import org.xbib.datastructures.common.Pair;
 import org.xbib.net.Parameter;
 import org.xbib.net.URL;
 import org.xbib.net.URLBuilder;
@@ -12,6 +13,8 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public abstract class BaseHttpRequestBuilder implements HttpRequestBuilder {
@@ -48,8 +51,16 @@ public abstract class BaseHttpRequestBuilder implements HttpRequestBuilder {
 
     ByteBuffer byteBuffer;
 
+    protected RequestBody requestBody;
+
+    final List<Pair<String, String>> formFields;
+
+    final List<UploadedFile> uploadedFiles;
+
     protected BaseHttpRequestBuilder() {
         this.httpHeaders = new HttpHeaders();
+        this.formFields = new ArrayList<>();
+        this.uploadedFiles = new ArrayList<>();
     }
 
     @Override
@@ -115,6 +126,59 @@ public abstract class BaseHttpRequestBuilder implements HttpRequestBuilder {
         return byteBuffer;
     }
 
+    /**
+     * Set a body that is streamed while the request is handled.
+     * @param requestBody the request body
+     * @return this builder
+     */
+    public BaseHttpRequestBuilder setRequestBody(RequestBody requestBody) {
+        this.requestBody = requestBody;
+        return this;
+    }
+
+    @Override
+    public RequestBody getRequestBody() {
+        return requestBody;
+    }
+
+    /**
+     * Add a field of a decoded {@code multipart/form-data} body. The fields become form parameters of the request.
+     * @param name the field name
+     * @param value the field value
+     * @return this builder
+     */
+    public BaseHttpRequestBuilder addFormField(String name, String value) {
+        formFields.add(Pair.of(name, value));
+        return this;
+    }
+
+    @Override
+    public List<Pair<String, String>> getFormFields() {
+        return formFields;
+    }
+
+    /**
+     * Add a file part of a decoded {@code multipart/form-data} body.
+     * @param uploadedFile the uploaded file
+     * @return this builder
+     */
+    public BaseHttpRequestBuilder addUploadedFile(UploadedFile uploadedFile) {
+        uploadedFiles.add(uploadedFile);
+        return this;
+    }
+
+    @Override
+    public List<UploadedFile> getUploadedFiles() {
+        return uploadedFiles;
+    }
+
+    @Override
+    public void release() {
+        if (requestBody != null) {
+            requestBody.close();
+        }
+    }
+
     @Override
     public BaseHttpRequestBuilder setBaseURL(URL baseURL) {
         this.baseURL = baseURL;
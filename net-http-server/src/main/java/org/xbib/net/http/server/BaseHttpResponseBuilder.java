@@ -11,16 +11,21 @@ import org.xbib.net.http.HttpHeaders;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.HttpVersion;
 import org.xbib.net.http.cookie.Cookie;
+import org.xbib.net.http.server.util.HttpDateClock;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,6 +39,18 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     private static final String CRLF = "\r\n";
 
+    private static final byte[][] STATUS_LINES = createStatusLines();
+
+    private static final byte[] DATE = "date: ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] SERVER = "server: ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Map<String, byte[]> HEADER_NAMES = new ConcurrentHashMap<>();
+
+    private static final int MAX_HEADER_NAMES = 1024;
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
     protected DataBufferFactory dataBufferFactory;
 
     protected HttpHeaders headers;
@@ -56,6 +73,10 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     protected Long responseId;
 
+    protected Runnable closeListener;
+
+    protected CompressionPolicy compressionPolicy;
+
     protected String contentType;
 
     protected Charset charset;
@@ -70,8 +91,18 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     protected FileChannel fileChannel;
 
+    protected long filePosition;
+
+    protected long fileCount;
+
+    protected List<FilePart> fileParts;
+
     protected int bufferSize;
 
+    protected boolean streaming;
+
+    protected boolean streamStarted;
+
     protected BaseHttpResponseBuilder() {
         reset();
     }
@@ -200,8 +231,47 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
         return this;
     }
 
+    @Override
+    public BaseHttpResponseBuilder setCloseListener(Runnable closeListener) {
+        this.closeListener = closeListener;
+        return this;
+    }
+
+    @Override
+    public BaseHttpResponseBuilder setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+        return this;
+    }
+
+    /**
+     * Set the server configuration, for the Server header.
+     * @param httpServerConfig the server configuration
+     * @return this builder
+     */
+    public BaseHttpResponseBuilder setHttpServerConfig(HttpServerConfig httpServerConfig) {
+        this.httpServerConfig = httpServerConfig;
+        return this;
+    }
+
+    @Override
+    public BaseHttpResponseBuilder setStreaming(boolean streaming) {
+        if (streamStarted) {
+            throw new IllegalStateException("response stream has already started");
+        }
+        this.streaming = streaming;
+        return this;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     @Override
     public BaseHttpResponseBuilder write(String body) {
+        if (streaming && body != null) {
+            return writeChunk(dataBufferFactory.wrap((charset != null ? charset : StandardCharsets.UTF_8).encode(body)));
+        }
         if (body != null && this.body == null) {
             this.body = body;
         } else {
@@ -212,6 +282,9 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     @Override
     public BaseHttpResponseBuilder write(CharBuffer charBuffer, Charset charset) {
+        if (streaming && charBuffer != null) {
+            return writeChunk(dataBufferFactory.wrap(charset.encode(charBuffer)));
+        }
         if (charBuffer != null && this.charBuffer == null) {
             this.charBuffer = charBuffer;
             this.charset = charset;
@@ -223,6 +296,9 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     @Override
     public BaseHttpResponseBuilder write(DataBuffer dataBuffer) {
+        if (streaming && dataBuffer != null) {
+            return writeChunk(dataBuffer);
+        }
         if (dataBuffer != null && this.dataBuffer == null) {
             this.dataBuffer = dataBuffer;
         } else {
@@ -233,6 +309,20 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     @Override
     public BaseHttpResponseBuilder write(InputStream inputStream, int bufferSize) {
+        if (streaming && inputStream != null) {
+            try {
+                byte[] bytes = new byte[bufferSize];
+                int n;
+                while ((n = inputStream.read(bytes)) != -1) {
+                    writeChunk(dataBufferFactory.wrap(ByteBuffer.wrap(bytes, 0, n)));
+                    // the transport may still hold the written chunk
+                    bytes = new byte[bufferSize];
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
         if (inputStream != null && this.inputStream == null) {
             this.inputStream = inputStream;
             this.bufferSize = bufferSize;
@@ -244,9 +334,86 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
 
     @Override
     public BaseHttpResponseBuilder write(FileChannel fileChannel, int bufferSize) {
+        if (streaming && fileChannel != null) {
+            try (fileChannel) {
+                ByteBuffer byteBuffer = ByteBuffer.allocate(bufferSize);
+                while (fileChannel.read(byteBuffer) != -1) {
+                    writeChunk(dataBufferFactory.wrap(byteBuffer.flip()));
+                    byteBuffer = ByteBuffer.allocate(bufferSize);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
         if (fileChannel != null && this.fileChannel == null) {
+            try {
+                this.fileChannel = fileChannel;
+                this.filePosition = fileChannel.position();
+                this.fileCount = fileChannel.size() - filePosition;
+                this.bufferSize = bufferSize;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            logger.log(Level.WARNING, "cannot write FileChannel");
+        }
+        return this;
+    }
+
+    @Override
+    public BaseHttpResponseBuilder write(FileChannel fileChannel, long position, long count) {
+        if (fileChannel == null) {
+            logger.log(Level.WARNING, "cannot write null FileChannel");
+            return this;
+        }
+        try {
+            long length = count < 0L ? fileChannel.size() - position : count;
+            if (streaming) {
+                try (fileChannel) {
+                    writeChunks(fileChannel, position, length);
+                }
+                return this;
+            }
+            if (this.fileChannel == null) {
+                this.fileChannel = fileChannel;
+                this.filePosition = position;
+                this.fileCount = length;
+                this.bufferSize = DEFAULT_BUFFER_SIZE;
+            } else {
+                logger.log(Level.WARNING, "cannot write FileChannel");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public BaseHttpResponseBuilder write(FileChannel fileChannel, List<FilePart> parts) {
+        if (fileChannel == null || parts == null) {
+            logger.log(Level.WARNING, "cannot write null FileChannel or parts");
+            return this;
+        }
+        if (streaming) {
+            try (fileChannel) {
+                for (FilePart part : parts) {
+                    if (part.getHeader() != null) {
+                        writeChunk(part.getHeader());
+                    }
+                    writeChunks(fileChannel, part.getPosition(), part.getCount());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+        if (this.fileChannel == null) {
             this.fileChannel = fileChannel;
-            this.bufferSize = bufferSize;
+            this.fileParts = parts;
+            this.filePosition = 0L;
+            this.fileCount = parts.stream().mapToLong(FilePart::getLength).sum();
+            this.bufferSize = DEFAULT_BUFFER_SIZE;
         } else {
             logger.log(Level.WARNING, "cannot write FileChannel");
         }
@@ -263,7 +430,77 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
     @Override
     public abstract HttpResponse build();
 
+    /**
+     * Finish a streaming response. Sends the status and headers if nothing was written yet.
+     * Transports call this from {@link #build()} if the response is streaming.
+     */
+    protected void endStreaming() {
+        startStreaming();
+        endStream();
+    }
+
+    /**
+     * Send the status and headers of a streaming response, without content length.
+     */
+    protected abstract void startStream();
+
+    /**
+     * Send a chunk of a streaming response. Blocks while the connection does not accept more data.
+     * @param dataBuffer the chunk
+     */
+    protected abstract void writeStream(DataBuffer dataBuffer);
+
+    /**
+     * Send the end of a streaming response, with the trailing headers.
+     */
+    protected abstract void endStream();
+
+    private void writeChunks(FileChannel fileChannel, long position, long count) throws IOException {
+        long end = position + count;
+        long pos = position;
+        while (pos < end) {
+            ByteBuffer byteBuffer = ByteBuffer.allocate((int) Math.min(DEFAULT_BUFFER_SIZE, end - pos));
+            int n = fileChannel.read(byteBuffer, pos);
+            if (n == -1) {
+                break;
+            }
+            pos += n;
+            writeChunk(dataBufferFactory.wrap(byteBuffer.flip()));
+        }
+    }
+
+    private BaseHttpResponseBuilder writeChunk(DataBuffer dataBuffer) {
+        startStreaming();
+        writeStream(dataBuffer);
+        return this;
+    }
+
+    private void startStreaming() {
+        if (!streamStarted) {
+            streamStarted = true;
+            if (status == null) {
+                status = HttpResponseStatus.OK;
+            }
+            buildContentHeaders(-1L);
+            startStream();
+        }
+    }
+
+    /**
+     * Build the response headers.
+     * @param contentLength the content length, or -1 if the length is unknown and the content is sent in chunks
+     */
     public void buildHeaders(long contentLength) {
+        buildContentHeaders(contentLength);
+        buildServerHeaders();
+    }
+
+    /**
+     * Build the response headers that describe the content and the connection, without the Date
+     * and Server headers. Transports that write the headers with {@link #encodeHeaders()} use this method.
+     * @param contentLength the content length, or -1 if the length is unknown and the content is sent in chunks
+     */
+    protected void buildContentHeaders(long contentLength) {
         if (!headers.containsHeader(HttpHeaderNames.CONTENT_TYPE)) {
             if (contentType == null) {
                 contentType = HttpHeaderValues.APPLICATION_OCTET_STREAM;
@@ -275,20 +512,40 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
         }
         if (status.code() >= 200 && status.code() != 204) {
             if (!headers.containsHeader(HttpHeaderNames.CONTENT_LENGTH)) {
-                headers.add(HttpHeaderNames.CONTENT_LENGTH, Long.toString(contentLength));
+                if (contentLength >= 0L) {
+                    headers.add(HttpHeaderNames.CONTENT_LENGTH, Long.toString(contentLength));
+                } else if (HttpVersion.HTTP_1_1.equals(version)) {
+                    if (!headers.containsHeader(HttpHeaderNames.TRANSFER_ENCODING)) {
+                        headers.add(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+                    }
+                } else if (HttpVersion.HTTP_1_0.equals(version)) {
+                    // there are no chunks in HTTP/1.0, the client reads the content until the connection closes
+                    shouldClose = true;
+                }
             }
         }
         if (shouldClose) {
-            headers.add(HttpHeaderNames.CONNECTION, "close");
+            headers.set(HttpHeaderNames.CONNECTION, "close");
         }
+    }
+
+    /**
+     * Add the Date header, and the Server header if it is enabled in the server configuration.
+     */
+    protected void buildServerHeaders() {
         if (!headers.containsHeader(HttpHeaderNames.DATE)) {
-            headers.add(HttpHeaderNames.DATE, DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+            headers.add(HttpHeaderNames.DATE, HttpDateClock.getDate());
         }
-        if (httpServerConfig != null && httpServerConfig.getServerName() != null) {
+        if (isServerHeaderEnabled() && !headers.containsHeader(HttpHeaderNames.SERVER)) {
             headers.add(HttpHeaderNames.SERVER, httpServerConfig.getServerName());
         }
     }
 
+    private boolean isServerHeaderEnabled() {
+        return httpServerConfig != null && httpServerConfig.isServerHeaderEnabled() &&
+                httpServerConfig.getServerName() != null;
+    }
+
     public CharBuffer wrapHeaders() {
         StringBuilder sb = new StringBuilder();
         sb.append(version.text()).append(SPACE).append(status.code()).append(SPACE).append(status.reasonPhrase()).append(CRLF);
@@ -298,4 +555,117 @@ public abstract class BaseHttpResponseBuilder implements HttpResponseBuilder {
         sb.append(CRLF);
         return CharBuffer.wrap(sb);
     }
+
+    /**
+     * Encode the status line and the headers like {@link #wrapHeaders()}, but directly to ASCII bytes.
+     * Status lines and lowercase header names are cached. If the headers do not contain a Date or a Server
+     * header, they are appended from their encoded bytes, see {@link #buildContentHeaders(long)}.
+     * @return the encoded status line and headers
+     */
+    public ByteBuffer encodeHeaders() {
+        byte[] statusLine = encodeStatusLine(version, status);
+        List<Pair<String, String>> entries = headers.entries();
+        byte[] date = headers.containsHeader(HttpHeaderNames.DATE) ? null : HttpDateClock.getDateBytes();
+        byte[] serverName = isServerHeaderEnabled() && !headers.containsHeader(HttpHeaderNames.SERVER) ?
+                httpServerConfig.getServerNameBytes() : null;
+        int length = statusLine.length + 2;
+        for (Pair<String, String> e : entries) {
+            length += e.getKey().length() + e.getValue().length() + 4;
+        }
+        if (date != null) {
+            length += DATE.length + date.length + 2;
+        }
+        if (serverName != null) {
+            length += SERVER.length + serverName.length + 2;
+        }
+        byte[] bytes = new byte[length];
+        System.arraycopy(statusLine, 0, bytes, 0, statusLine.length);
+        int pos = statusLine.length;
+        for (Pair<String, String> e : entries) {
+            byte[] name = encodeHeaderName(e.getKey());
+            System.arraycopy(name, 0, bytes, pos, name.length);
+            pos += name.length;
+            bytes[pos++] = ':';
+            bytes[pos++] = ' ';
+            pos = encodeAscii(e.getValue(), false, bytes, pos);
+            bytes[pos++] = '\r';
+            bytes[pos++] = '\n';
+        }
+        if (date != null) {
+            pos = copyHeader(DATE, date, bytes, pos);
+        }
+        if (serverName != null) {
+            pos = copyHeader(SERVER, serverName, bytes, pos);
+        }
+        bytes[pos++] = '\r';
+        bytes[pos++] = '\n';
+        return ByteBuffer.wrap(bytes, 0, pos);
+    }
+
+    private static int copyHeader(byte[] name, byte[] value, byte[] bytes, int pos) {
+        System.arraycopy(name, 0, bytes, pos, name.length);
+        pos += name.length;
+        System.arraycopy(value, 0, bytes, pos, value.length);
+        pos += value.length;
+        bytes[pos++] = '\r';
+        bytes[pos++] = '\n';
+        return pos;
+    }
+
+    private static byte[] encodeStatusLine(HttpVersion version, HttpResponseStatus status) {
+        int code = status.code();
+        // only the predefined status constants have the standard reason phrase
+        if (HttpVersion.HTTP_1_1.equals(version) && code >= 0 && code < STATUS_LINES.length &&
+                STATUS_LINES[code] != null && HttpResponseStatus.valueOf(code) == status) {
+            return STATUS_LINES[code];
+        }
+        return encodeStatusLine(version.text(), status);
+    }
+
+    private static byte[] encodeStatusLine(String version, HttpResponseStatus status) {
+        String string = version + SPACE + status.code() + SPACE + status.reasonPhrase() + CRLF;
+        byte[] statusLine = new byte[string.length()];
+        encodeAscii(string, false, statusLine, 0);
+        return statusLine;
+    }
+
+    /**
+     * Encode the HTTP/1.1 status lines of the predefined status constants. For other codes,
+     * {@link HttpResponseStatus#valueOf(int)} creates a new instance on every call.
+     * @return the status lines by code
+     */
+    private static byte[][] createStatusLines() {
+        byte[][] statusLines = new byte[600][];
+        for (int code = 100; code < statusLines.length; code++) {
+            HttpResponseStatus status = HttpResponseStatus.valueOf(code);
+            if (status == HttpResponseStatus.valueOf(code)) {
+                statusLines[code] = encodeStatusLine(HttpVersion.HTTP_1_1.text(), status);
+            }
+        }
+        return statusLines;
+    }
+
+    private static byte[] encodeHeaderName(String name) {
+        byte[] bytes = HEADER_NAMES.get(name);
+        if (bytes == null) {
+            bytes = new byte[name.length()];
+            encodeAscii(name, true, bytes, 0);
+            if (HEADER_NAMES.size() < MAX_HEADER_NAMES) {
+                HEADER_NAMES.put(name, bytes);
+            }
+        }
+        return bytes;
+    }
+
+    private static int encodeAscii(String string, boolean lowerCase, byte[] bytes, int pos) {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (lowerCase && c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            // like the US-ASCII encoder, replace unmappable characters
+            bytes[pos++] = c < 128 ? (byte) c : (byte) '?';
+        }
+        return pos;
+    }
 }
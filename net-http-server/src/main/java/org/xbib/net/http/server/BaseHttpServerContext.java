@@ -1,6 +1,7 @@
 package org.xbib.net.http.server;
 
 import java.util.Map;
+import org.xbib.datastructures.common.Pair;
 import org.xbib.net.Attributes;
 import org.xbib.net.Parameter;
 import org.xbib.net.ParameterBuilder;
@@ -22,6 +23,7 @@ import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Objects;
 
 import static org.xbib.net.http.HttpHeaderNames.CONTENT_TYPE;
@@ -52,6 +54,12 @@ public class BaseHttpServerContext implements HttpServerContext {
 
     private boolean next;
 
+    private Instant deadline;
+
+    private volatile boolean cancelled;
+
+    private Thread executingThread;
+
     public BaseHttpServerContext(Application application,
                                  HttpDomain domain,
                                  HttpRequestBuilder httpRequestBuilder,
@@ -155,6 +163,46 @@ public class BaseHttpServerContext implements HttpServerContext {
         return next;
     }
 
+    @Override
+    public void setDeadline(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    @Override
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    @Override
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (executingThread != null) {
+                executingThread.interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        // the deadline is enforced by the router, which cancels the request when it passes
+        return cancelled;
+    }
+
+    @Override
+    public void setExecutingThread(Thread thread) {
+        synchronized (this) {
+            if (thread == null && executingThread != null) {
+                // do not leak the interrupt of a cancelled request to the next task of a pooled thread
+                Thread.interrupted();
+            }
+            this.executingThread = thread;
+        }
+    }
+
     @Override
     public void write() throws IOException {
         httpResponseBuilder.write("");
@@ -185,6 +233,11 @@ public class BaseHttpServerContext implements HttpServerContext {
         httpResponseBuilder.write(fileChannel, bufferSize);
     }
 
+    @Override
+    public void write(FileChannel fileChannel, long position, long count) throws IOException {
+        httpResponseBuilder.write(fileChannel, position, count);
+    }
+
     protected HttpRequest createRequest(HttpRequestBuilder requestBuilder) {
         HttpHeaders headers = requestBuilder.getHeaders();
         String mimeType = headers.get(CONTENT_TYPE);
@@ -208,6 +261,9 @@ public class BaseHttpServerContext implements HttpServerContext {
                 formParameters.addPercentEncodedBody(charBuffer.toString());
             }
         }
+        for (Pair<String, String> formField : requestBuilder.getFormFields()) {
+            formParameters.add(formField.getKey(), formField.getValue());
+        }
         CookieBox cookieBox = attributes.get(CookieBox.class, "incomingcookies");
         ParameterBuilder cookieParameters = Parameter.builder().domain("COOKIE");
         if (cookieBox != null) {
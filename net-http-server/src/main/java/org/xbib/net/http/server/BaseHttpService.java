@@ -8,6 +8,7 @@ import org.xbib.net.ParameterDefinition;
 import org.xbib.net.http.HttpMethod;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Objects;
 import org.xbib.net.http.HttpResponseStatus;
 
@@ -50,6 +51,34 @@ public class BaseHttpService implements HttpService {
         return builder.securityDomain;
     }
 
+    @Override
+    public boolean isRouteCacheable() {
+        return builder.routeCacheable;
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        if (builder.securityDomain != null && !isNonBlocking(builder.securityDomain.getHandlers())) {
+            return false;
+        }
+        return builder.nonBlocking || isNonBlocking(builder.handlers);
+    }
+
+    @Override
+    public String getLane() {
+        return builder.lane;
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return builder.timeout;
+    }
+
+    @Override
+    public CompressionPolicy getCompressionPolicy() {
+        return builder.compressionPolicy;
+    }
+
     @Override
     public void handle(HttpServerContext context) throws IOException {
         if (builder.handlers != null) {
@@ -80,6 +109,10 @@ public class BaseHttpService implements HttpService {
         return Objects.hash(builder.methods, builder.pathSpec, builder.handlers);
     }
 
+    private static boolean isNonBlocking(Collection<HttpHandler> handlers) {
+        return handlers != null && handlers.stream().allMatch(handler -> handler instanceof NonBlockingHttpHandler);
+    }
+
     @Override
     public String toString() {
         return "BaseHttpService[methods=" + builder.methods + ",path=" + builder.pathSpec + ",handler=" + builder.handlers + "]";
@@ -1,5 +1,6 @@
 package org.xbib.net.http.server;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -23,12 +24,27 @@ public class BaseHttpServiceBuilder implements HttpServiceBuilder {
 
     protected HttpSecurityDomain securityDomain;
 
+    protected boolean routeCacheable;
+
+    protected boolean nonBlocking;
+
+    protected String lane;
+
+    protected Duration timeout;
+
+    protected CompressionPolicy compressionPolicy;
+
     protected BaseHttpServiceBuilder() {
         this.methods = new HashSet<>();
         methods.add(HttpMethod.GET);
         this.pathSpec = "/**";
         this.handlers = null;
         this.securityDomain = null;
+        this.routeCacheable = true;
+        this.nonBlocking = false;
+        this.lane = null;
+        this.timeout = null;
+        this.compressionPolicy = null;
     }
 
     @Override
@@ -62,6 +78,59 @@ public class BaseHttpServiceBuilder implements HttpServiceBuilder {
         return this;
     }
 
+    @Override
+    public BaseHttpServiceBuilder setRouteCacheable(boolean routeCacheable) {
+        this.routeCacheable = routeCacheable;
+        return this;
+    }
+
+    /**
+     * Declare that the handlers of this service never block, so the service can be executed on the I/O thread.
+     * Services with only {@link NonBlockingHttpHandler} handlers are non-blocking without this flag.
+     * @param nonBlocking true if the handlers never block
+     * @return this builder
+     */
+    @Override
+    public BaseHttpServiceBuilder setNonBlocking(boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+        return this;
+    }
+
+    /**
+     * Execute this service in a named executor lane of the application instead of the application executor.
+     * @param lane the lane name
+     * @return this builder
+     */
+    @Override
+    public BaseHttpServiceBuilder setLane(String lane) {
+        this.lane = lane;
+        return this;
+    }
+
+    /**
+     * Set a deadline for requests of this service. When the deadline passes, the request is cancelled
+     * and the thread executing the request is interrupted.
+     * @param timeout the time from dispatch to the end of the response
+     * @return this builder
+     */
+    @Override
+    public BaseHttpServiceBuilder setTimeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Set the compression policy for the responses of this service, instead of the policy of the server.
+     * Use {@link CompressionPolicy#disabled()} to turn off compression for this service.
+     * @param compressionPolicy the compression policy
+     * @return this builder
+     */
+    @Override
+    public BaseHttpServiceBuilder setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+        return this;
+    }
+
     public BaseHttpService build() {
         Objects.requireNonNull(handlers);
         return new BaseHttpService(this);
@@ -0,0 +1,169 @@
+package org.xbib.net.http.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The rules for the dynamic compression of response bodies. A response is compressed only if the policy is enabled,
+ * the content type is in the allowlist, and the body is not smaller than the minimum size.
+ * Already compressed types, for example images, video or archives, are not in the default allowlist.
+ * The policy of the server can be overridden by a service, see {@link HttpServiceBuilder#setCompressionPolicy}.
+ */
+public class CompressionPolicy {
+
+    public static final int DEFAULT_MINIMUM_SIZE = 1024;
+
+    public static final int DEFAULT_LEVEL = 6;
+
+    public static final List<String> DEFAULT_ENCODINGS = List.of("br", "zstd", "gzip", "deflate");
+
+    public static final Set<String> DEFAULT_MIME_TYPES = Set.of(
+            "text/*",
+            "application/javascript",
+            "application/json",
+            "application/ld+json",
+            "application/xml",
+            "application/xhtml+xml",
+            "application/rss+xml",
+            "application/atom+xml",
+            "application/x-javascript",
+            "application/wasm",
+            "image/svg+xml",
+            "image/x-icon",
+            "font/otf",
+            "font/ttf"
+    );
+
+    private boolean enabled = true;
+
+    private int minimumSize = DEFAULT_MINIMUM_SIZE;
+
+    private int level = DEFAULT_LEVEL;
+
+    private Set<String> mimeTypes = DEFAULT_MIME_TYPES;
+
+    private List<String> encodings = DEFAULT_ENCODINGS;
+
+    public CompressionPolicy() {
+    }
+
+    /**
+     * A policy that never compresses, for services that opt out of compression.
+     * @return the policy
+     */
+    public static CompressionPolicy disabled() {
+        return new CompressionPolicy().setEnabled(false);
+    }
+
+    public CompressionPolicy setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the minimum size of a response body for compression. Small bodies do not get smaller by compression.
+     * @param minimumSize the minimum size in bytes
+     * @return this policy
+     */
+    public CompressionPolicy setMinimumSize(int minimumSize) {
+        this.minimumSize = minimumSize;
+        return this;
+    }
+
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    /**
+     * Set the gzip and deflate compression level.
+     * @param level the level, from 1 for the best speed to 9 for the best compression
+     * @return this policy
+     */
+    public CompressionPolicy setLevel(int level) {
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("level must be between 1 and 9: " + level);
+        }
+        this.level = level;
+        return this;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Set the MIME types that may be compressed. A type of the form {@code text/*} allows all subtypes.
+     * @param mimeTypes the MIME types
+     * @return this policy
+     */
+    public CompressionPolicy setMimeTypes(String... mimeTypes) {
+        Set<String> set = new LinkedHashSet<>();
+        for (String mimeType : mimeTypes) {
+            set.add(mimeType.toLowerCase(Locale.ROOT));
+        }
+        this.mimeTypes = Collections.unmodifiableSet(set);
+        return this;
+    }
+
+    public Set<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    /**
+     * Set the content codings that may be used, in the order of preference of the server.
+     * Codings that are not supported by the transport are ignored.
+     * @param encodings the content codings, for example {@code br}, {@code zstd}, {@code gzip}, {@code deflate}
+     * @return this policy
+     */
+    public CompressionPolicy setEncodings(String... encodings) {
+        this.encodings = List.copyOf(Arrays.asList(encodings));
+        return this;
+    }
+
+    public List<String> getEncodings() {
+        return encodings;
+    }
+
+    /**
+     * Check if a response body may be compressed.
+     * @param contentType the content type of the response, or null
+     * @param contentLength the length of the response body, or -1 if the length is not known
+     * @return true if the body may be compressed
+     */
+    public boolean isCompressible(String contentType, long contentLength) {
+        if (!enabled || contentType == null) {
+            return false;
+        }
+        if (contentLength >= 0L && contentLength < minimumSize) {
+            return false;
+        }
+        return isAllowed(contentType);
+    }
+
+    private boolean isAllowed(String contentType) {
+        int pos = contentType.indexOf(';');
+        String mimeType = (pos != -1 ? contentType.substring(0, pos) : contentType).trim().toLowerCase(Locale.ROOT);
+        if (mimeTypes.contains(mimeType)) {
+            return true;
+        }
+        int slash = mimeType.indexOf('/');
+        return slash > 0 && mimeTypes.contains(mimeType.substring(0, slash) + "/*");
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionPolicy[enabled=" + enabled +
+                ",minimumSize=" + minimumSize +
+                ",level=" + level +
+                ",mimeTypes=" + mimeTypes +
+                ",encodings=" + encodings + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package org.xbib.net.http.server;
+
+import org.xbib.net.buffer.DataBuffer;
+
+/**
+ * A part of a response body, made of a header and a region of a file, for example a part
+ * of a {@code multipart/byteranges} response. The header is sent before the region.
+ */
+public class FilePart {
+
+    private final DataBuffer header;
+
+    private final long position;
+
+    private final long count;
+
+    /**
+     * Create a part.
+     * @param header the bytes before the region, or null
+     * @param position the position of the region in the file
+     * @param count the length of the region, or zero for a part without region
+     */
+    public FilePart(DataBuffer header, long position, long count) {
+        this.header = header;
+        this.position = position;
+        this.count = count;
+    }
+
+    public DataBuffer getHeader() {
+        return header;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The length of the header and the region.
+     * @return the length of the part
+     */
+    public long getLength() {
+        return (header != null ? header.readableByteCount() : 0L) + count;
+    }
+}
@@ -15,4 +15,10 @@ public interface HttpDomain extends Comparable<HttpDomain> {
     HttpAddress getAddress();
 
     Collection<HttpService> getServices();
+
+    /**
+     * The name of the executor lane for the services of this domain without a lane of their own.
+     * @return the lane name, or null for the application executor
+     */
+    String getLane();
 }
@@ -12,5 +12,7 @@ public interface HttpDomainBuilder {
 
     HttpDomainBuilder addService(HttpService httpService);
 
+    HttpDomainBuilder setLane(String lane);
+
     HttpDomain build();
 }
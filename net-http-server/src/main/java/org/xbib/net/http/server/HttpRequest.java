@@ -10,6 +10,8 @@ import org.xbib.net.http.HttpVersion;
 
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
 
 public interface HttpRequest extends Request {
 
@@ -39,5 +41,19 @@ public interface HttpRequest extends Request {
 
     InputStream getInputStream();
 
+    /**
+     * A channel for reading the request body. If the body is streamed, reads wait for bytes that have not
+     * arrived yet.
+     * @return the channel
+     */
+    ReadableByteChannel getBodyChannel();
+
+    /**
+     * The file parts of a {@code multipart/form-data} body, if the transport decoded the body.
+     * The other fields of the body are form parameters.
+     * @return the uploaded files
+     */
+    List<UploadedFile> getUploadedFiles();
+
     Attributes attributes();
 }
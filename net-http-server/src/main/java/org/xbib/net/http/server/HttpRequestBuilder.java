@@ -1,5 +1,6 @@
 package org.xbib.net.http.server;
 
+import org.xbib.datastructures.common.Pair;
 import org.xbib.net.Parameter;
 import org.xbib.net.URL;
 import org.xbib.net.http.HttpAddress;
@@ -9,6 +10,7 @@ import org.xbib.net.http.HttpVersion;
 
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.util.List;
 
 public interface HttpRequestBuilder {
 
@@ -44,5 +46,29 @@ public interface HttpRequestBuilder {
 
     CharBuffer getBodyAsChars(Charset charset);
 
+    /**
+     * The body of a request that is handled while the body is still being received.
+     * @return the streamed body, or null if the body was received before the request is handled
+     */
+    RequestBody getRequestBody();
+
+    /**
+     * The fields of a {@code multipart/form-data} body that was decoded by the transport.
+     * @return the form fields, empty if the body was not decoded
+     */
+    List<Pair<String, String>> getFormFields();
+
+    /**
+     * The file parts of a {@code multipart/form-data} body that was decoded by the transport.
+     * @return the uploaded files, empty if the body was not decoded
+     */
+    List<UploadedFile> getUploadedFiles();
+
+    /**
+     * Release the resources of the request, for example the buffers of the transport or a streamed body.
+     * Called once the request has been handled, the body must not be accessed afterwards.
+     */
+    void release();
+
     HttpRequest build();
 }
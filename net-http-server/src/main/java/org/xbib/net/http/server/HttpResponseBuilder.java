@@ -11,6 +11,7 @@ import java.io.InputStream;
 import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.util.List;
 
 public interface HttpResponseBuilder {
 
@@ -50,6 +51,33 @@ public interface HttpResponseBuilder {
 
     HttpResponseBuilder setResponseId(Long responseId);
 
+    /**
+     * Set a listener to be notified if the connection closes while the response is being built.
+     * Transports that can not detect a closed connection ignore the listener.
+     * @param closeListener the listener, or null to remove the listener
+     * @return this builder
+     */
+    HttpResponseBuilder setCloseListener(Runnable closeListener);
+
+    /**
+     * Set the compression policy of the service for this response.
+     * Transports without dynamic compression ignore the policy.
+     * @param compressionPolicy the compression policy, or null for the policy of the server
+     * @return this builder
+     */
+    HttpResponseBuilder setCompressionPolicy(CompressionPolicy compressionPolicy);
+
+    /**
+     * Stream the response. The status and headers are sent with the first write, every following write
+     * is sent immediately, as a chunk in HTTP/1.1 or as a data frame in HTTP/2, and {@link #build()}
+     * ends the response. Writes block while the connection does not accept more data.
+     * @param streaming true for a streaming response
+     * @return this builder
+     */
+    HttpResponseBuilder setStreaming(boolean streaming);
+
+    boolean isStreaming();
+
     HttpResponseBuilder write(String body);
 
     HttpResponseBuilder write(CharBuffer charBuffer, Charset charset);
@@ -60,6 +88,26 @@ public interface HttpResponseBuilder {
 
     HttpResponseBuilder write(FileChannel fileChannel, int bufferSize);
 
+    /**
+     * Write a region of a file. Transports send the region without copying it through user space if they can.
+     * The response owns the file channel and closes it after the region was sent.
+     * @param fileChannel the file channel
+     * @param position the position of the region in the file
+     * @param count the length of the region, or -1 for the rest of the file
+     * @return this builder
+     */
+    HttpResponseBuilder write(FileChannel fileChannel, long position, long count);
+
+    /**
+     * Write parts of a file, every part with a header, like the parts of a {@code multipart/byteranges} response.
+     * The content length is the sum of the lengths of the parts.
+     * The response owns the file channel and closes it after the parts were sent.
+     * @param fileChannel the file channel
+     * @param parts the parts
+     * @return this builder
+     */
+    HttpResponseBuilder write(FileChannel fileChannel, List<FilePart> parts);
+
     void reset();
 
     HttpResponse build();
@@ -2,12 +2,17 @@ package org.xbib.net.http.server;
 
 import org.xbib.net.NetworkClass;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 public class HttpServerConfig {
 
     private String serverName = null;
 
+    private byte[] serverNameBytes = null;
+
+    private boolean serverHeaderEnabled = false;
+
     private NetworkClass networkClass = NetworkClass.LOOPBACK;
 
     /**
@@ -34,6 +39,7 @@ public class HttpServerConfig {
                 serverName, serverVendor, serverVersion(),
                 System.getProperty("java.vm.name"), System.getProperty("java.vm.vendor"), System.getProperty("java.vm.version"),
                 System.getProperty("os.name"), System.getProperty("os.arch"), System.getProperty("os.version"));
+        this.serverNameBytes = this.serverName.getBytes(StandardCharsets.US_ASCII);
         return this;
     }
 
@@ -41,6 +47,29 @@ public class HttpServerConfig {
         return serverName;
     }
 
+    /**
+     * The server name for the Server header, encoded once when the name is set.
+     * @return the ASCII bytes of the server name, or null
+     */
+    public byte[] getServerNameBytes() {
+        return serverNameBytes;
+    }
+
+    /**
+     * Send the server name in the Server header of every response. The server name contains the versions
+     * of the server, the JVM and the operating system, so the header is off by default.
+     * @param serverHeaderEnabled true if the Server header should be sent
+     * @return this config
+     */
+    public HttpServerConfig setServerHeaderEnabled(boolean serverHeaderEnabled) {
+        this.serverHeaderEnabled = serverHeaderEnabled;
+        return this;
+    }
+
+    public boolean isServerHeaderEnabled() {
+        return serverHeaderEnabled;
+    }
+
     public HttpServerConfig setNetworkClass(NetworkClass networkClass) {
         this.networkClass = networkClass;
         return this;
@@ -11,6 +11,7 @@ import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Instant;
 
 public interface HttpServerContext {
 
@@ -34,6 +35,33 @@ public interface HttpServerContext {
 
     boolean isNext();
 
+    /**
+     * Set the point in time when the request should be complete. After the deadline, the request is cancelled.
+     * @param deadline the deadline, or null for no deadline
+     */
+    void setDeadline(Instant deadline);
+
+    Instant getDeadline();
+
+    /**
+     * Cancel the request, because the connection is closed or the deadline has passed.
+     * The thread executing the request is interrupted. Handlers should check {@link #isCancelled()}
+     * before expensive work and stop early.
+     */
+    void cancel();
+
+    /**
+     * Check if the request was cancelled, by the connection or when the deadline passed.
+     * @return true if the response is no longer expected
+     */
+    boolean isCancelled();
+
+    /**
+     * Bind the request to the thread executing it, so the thread can be interrupted on cancellation.
+     * @param thread the executing thread, or null after execution
+     */
+    void setExecutingThread(Thread thread);
+
     HttpRequest httpRequest();
 
     String getContextPath();
@@ -53,4 +81,6 @@ public interface HttpServerContext {
     void write(InputStream inputStream, int bufferSize) throws IOException;
 
     void write(FileChannel fileChannel, int bufferSize) throws IOException;
+
+    void write(FileChannel fileChannel, long position, long count) throws IOException;
 }
@@ -1,5 +1,6 @@
 package org.xbib.net.http.server;
 
+import java.time.Duration;
 import java.util.Collection;
 
 import org.xbib.net.ParameterDefinition;
@@ -16,4 +17,31 @@ public interface HttpService extends HttpHandler {
     Collection<ParameterDefinition> getParameterDefinitions();
 
     HttpSecurityDomain getSecurityDomain();
+
+    boolean isRouteCacheable();
+
+    /**
+     * Check if this service can run on the thread that received the request, because neither the service
+     * nor its security domain will block.
+     * @return true if the service never blocks
+     */
+    boolean isNonBlocking();
+
+    /**
+     * The name of the executor lane for this service.
+     * @return the lane name, or null if the service uses the lane of the domain
+     */
+    String getLane();
+
+    /**
+     * The time a request for this service may take, from dispatch to the end of the response.
+     * @return the timeout, or null if requests have no deadline
+     */
+    Duration getTimeout();
+
+    /**
+     * The compression policy for the responses of this service.
+     * @return the compression policy, or null if the service uses the policy of the server
+     */
+    CompressionPolicy getCompressionPolicy();
 }
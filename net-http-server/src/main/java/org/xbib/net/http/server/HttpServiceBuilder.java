@@ -3,6 +3,8 @@ package org.xbib.net.http.server;
 import org.xbib.net.ParameterDefinition;
 import org.xbib.net.http.HttpMethod;
 
+import java.time.Duration;
+
 public interface HttpServiceBuilder {
 
     HttpServiceBuilder setPath(String path);
@@ -15,5 +17,15 @@ public interface HttpServiceBuilder {
 
     HttpServiceBuilder setSecurityDomain(HttpSecurityDomain securityDomain);
 
+    HttpServiceBuilder setRouteCacheable(boolean routeCacheable);
+
+    HttpServiceBuilder setNonBlocking(boolean nonBlocking);
+
+    HttpServiceBuilder setLane(String lane);
+
+    HttpServiceBuilder setTimeout(Duration timeout);
+
+    HttpServiceBuilder setCompressionPolicy(CompressionPolicy compressionPolicy);
+
     HttpService build();
 }
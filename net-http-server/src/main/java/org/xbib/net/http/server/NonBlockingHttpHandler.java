@@ -0,0 +1,10 @@
+package org.xbib.net.http.server;
+
+/**
+ * A marker for handlers that never block, for example handlers answering health checks or writing
+ * responses from memory. A service with only non-blocking handlers is executed directly on the
+ * thread that received the request, without a handoff to the application executor.
+ */
+@FunctionalInterface
+public interface NonBlockingHttpHandler extends HttpHandler {
+}
@@ -0,0 +1,279 @@
+package org.xbib.net.http.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A request body that is received while the request is already being handled. The bytes up to a threshold
+ * are kept in memory, the bytes above the threshold are spilled to a temporary file, so the memory
+ * of a request is bounded, no matter how large the body is.
+ * The transport writes the body, services read it with channels that wait for bytes that have not arrived yet.
+ * Every channel reads the body from the beginning. The temporary file is deleted when the body is closed.
+ */
+public class RequestBody implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(RequestBody.class.getName());
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final int threshold;
+
+    private final Path directory;
+
+    private byte[] memory;
+
+    private int memoryLength;
+
+    private FileChannel fileChannel;
+
+    private long length;
+
+    private boolean complete;
+
+    private IOException failure;
+
+    private boolean closed;
+
+    /**
+     * Create a request body.
+     * @param threshold the number of bytes kept in memory
+     * @param directory the directory for the temporary file, or null for the default temporary directory
+     */
+    public RequestBody(int threshold, Path directory) {
+        this.threshold = threshold;
+        this.directory = directory;
+        this.memory = new byte[Math.min(threshold, INITIAL_CAPACITY)];
+    }
+
+    /**
+     * Append bytes to the body. Only the transport writes, one write at a time.
+     * Bytes written after the body was completed, failed or closed are dropped.
+     * @param buffer the bytes
+     * @throws IOException if the temporary file can not be written
+     */
+    public void write(ByteBuffer buffer) throws IOException {
+        FileChannel channel;
+        long position;
+        synchronized (this) {
+            if (closed || complete || failure != null) {
+                return;
+            }
+            int n = buffer.remaining();
+            if (fileChannel == null && (long) memoryLength + n <= threshold) {
+                ensureCapacity(memoryLength + n);
+                buffer.get(memory, memoryLength, n);
+                memoryLength += n;
+                length += n;
+                notifyAll();
+                return;
+            }
+            if (fileChannel == null) {
+                Path path = directory != null ?
+                        Files.createTempFile(directory, "request", ".body") :
+                        Files.createTempFile("request", ".body");
+                fileChannel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            channel = fileChannel;
+            position = length - memoryLength;
+        }
+        try {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (ClosedChannelException e) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+            }
+            throw e;
+        }
+        synchronized (this) {
+            length = memoryLength + position;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Mark the body as completely received.
+     */
+    public synchronized void complete() {
+        complete = true;
+        notifyAll();
+    }
+
+    /**
+     * Mark the body as failed, for example because the connection was closed. Readers get an exception.
+     * @param throwable the cause
+     */
+    public synchronized void fail(Throwable throwable) {
+        failure = throwable instanceof IOException ? (IOException) throwable : new IOException(throwable);
+        notifyAll();
+    }
+
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * The number of bytes received so far.
+     * @return the length
+     */
+    public synchronized long getLength() {
+        return length;
+    }
+
+    /**
+     * A channel that reads the body from the beginning. Reads wait until bytes arrive or the body is complete.
+     * @return the channel
+     */
+    public ReadableByteChannel getChannel() {
+        return new BodyChannel();
+    }
+
+    public InputStream getInputStream() {
+        return Channels.newInputStream(getChannel());
+    }
+
+    /**
+     * Wait for the complete body and copy it into a buffer.
+     * @return the buffer
+     * @throws IOException if the body failed or is too large for a buffer
+     */
+    public ByteBuffer toByteBuffer() throws IOException {
+        long n;
+        synchronized (this) {
+            while (!complete && failure == null && !closed) {
+                await();
+            }
+            n = length;
+        }
+        if (n > Integer.MAX_VALUE - 8) {
+            throw new IOException("request body too large for a buffer: " + n);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) n);
+        try (ReadableByteChannel channel = getChannel()) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until the buffer is full
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() {
+        FileChannel channel;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            channel = fileChannel;
+            notifyAll();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > memory.length) {
+            byte[] b = new byte[Math.min(Math.max(memory.length * 2, capacity), threshold)];
+            System.arraycopy(memory, 0, b, 0, memoryLength);
+            memory = b;
+        }
+    }
+
+    private void await() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the request body");
+        }
+    }
+
+    private class BodyChannel implements ReadableByteChannel {
+
+        private long position;
+
+        private boolean open = true;
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (!dst.hasRemaining()) {
+                return 0;
+            }
+            FileChannel channel;
+            long available;
+            int offset;
+            synchronized (RequestBody.this) {
+                while (position >= length && !complete && failure == null && !closed) {
+                    await();
+                }
+                if (failure != null) {
+                    throw new IOException(failure.getMessage(), failure);
+                }
+                if (closed) {
+                    throw new ClosedChannelException();
+                }
+                if (position >= length) {
+                    return -1;
+                }
+                if (position < memoryLength) {
+                    int n = (int) Math.min(dst.remaining(), memoryLength - position);
+                    dst.put(memory, (int) position, n);
+                    position += n;
+                    return n;
+                }
+                channel = fileChannel;
+                available = length - position;
+                offset = memoryLength;
+            }
+            // the file is read outside of the lock, positional reads do not disturb the writer
+            int limit = dst.limit();
+            if (dst.remaining() > available) {
+                dst.limit(dst.position() + (int) available);
+            }
+            try {
+                int n = channel.read(dst, position - offset);
+                if (n > 0) {
+                    position += n;
+                }
+                return n;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
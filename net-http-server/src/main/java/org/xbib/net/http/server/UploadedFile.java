@@ -0,0 +1,38 @@
+package org.xbib.net.http.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * A file part of a {@code multipart/form-data} request body. Small files are kept in memory, larger files
+ * are stored in a temporary file. The file is valid until the request has been handled, the temporary
+ * file is deleted afterwards unless the file was moved with {@link #transferTo(Path)}.
+ */
+public interface UploadedFile {
+
+    /**
+     * The name of the form field.
+     * @return the field name
+     */
+    String getName();
+
+    /**
+     * The file name given by the client.
+     * @return the file name, or null
+     */
+    String getFileName();
+
+    String getContentType();
+
+    long getLength();
+
+    InputStream getInputStream() throws IOException;
+
+    /**
+     * Move the file to a target, which is kept after the request has been handled.
+     * @param target the target path
+     * @throws IOException if the file can not be moved
+     */
+    void transferTo(Path target) throws IOException;
+}
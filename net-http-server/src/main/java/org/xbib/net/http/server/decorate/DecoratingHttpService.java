@@ -4,12 +4,15 @@ import java.util.Collection;
 
 import org.xbib.net.ParameterDefinition;
 import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.CompressionPolicy;
 import org.xbib.net.http.server.HttpHandler;
 import org.xbib.net.http.server.HttpSecurityDomain;
 import org.xbib.net.http.server.HttpServerContext;
 import org.xbib.net.http.server.HttpService;
+import org.xbib.net.http.server.NonBlockingHttpHandler;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Objects;
 
 public class DecoratingHttpService implements HttpService {
@@ -55,4 +58,29 @@ public class DecoratingHttpService implements HttpService {
     public HttpSecurityDomain getSecurityDomain() {
         return delegate.getSecurityDomain();
     }
+
+    @Override
+    public boolean isRouteCacheable() {
+        return delegate.isRouteCacheable();
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return handler instanceof NonBlockingHttpHandler && delegate.isNonBlocking();
+    }
+
+    @Override
+    public String getLane() {
+        return delegate.getLane();
+    }
+
+    @Override
+    public Duration getTimeout() {
+        return delegate.getTimeout();
+    }
+
+    @Override
+    public CompressionPolicy getCompressionPolicy() {
+        return delegate.getCompressionPolicy();
+    }
 }
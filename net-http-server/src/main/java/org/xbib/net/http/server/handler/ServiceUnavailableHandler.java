@@ -0,0 +1,21 @@
+package org.xbib.net.http.server.handler;
+
+import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.HttpErrorHandler;
+import org.xbib.net.http.server.HttpServerContext;
+
+import java.io.IOException;
+
+public class ServiceUnavailableHandler implements HttpErrorHandler {
+
+    public ServiceUnavailableHandler() {
+    }
+
+    @Override
+    public void handle(HttpServerContext context) throws IOException {
+        context.response()
+                .setResponseStatus(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                .setContentType("text/plain;charset=utf-8")
+                .write("Service unavailable");
+    }
+}
@@ -8,17 +8,19 @@ import org.xbib.net.http.HttpHeaderNames;
 import org.xbib.net.http.HttpHeaders;
 import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.HttpResponseStatus;
+import org.xbib.net.http.server.FilePart;
 import org.xbib.net.http.server.HttpException;
 import org.xbib.net.http.server.HttpHandler;
 import org.xbib.net.http.server.HttpResponseBuilder;
 import org.xbib.net.http.server.HttpServerContext;
+import org.xbib.net.http.server.resource.negotiate.EncodingNegotiator;
 import org.xbib.net.util.DateTimeUtil;
 import org.xbib.net.mime.MimeTypeService;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
-import java.nio.CharBuffer;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
@@ -31,6 +33,8 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,6 +44,10 @@ public abstract class AbstractResourceHandler implements HttpHandler {
 
     private static final Logger logger = Logger.getLogger(AbstractResourceHandler.class.getName());
 
+    private static final List<String> PRECOMPRESSED_ENCODINGS = List.of("br", "zstd", "gzip");
+
+    private static final Map<String, String> PRECOMPRESSED_SUFFIXES = Map.of("br", ".br", "zstd", ".zst", "gzip", ".gz");
+
     public AbstractResourceHandler() {
     }
 
@@ -53,6 +61,28 @@ public abstract class AbstractResourceHandler implements HttpHandler {
 
     protected abstract int getMaxAgeSeconds();
 
+    /**
+     * Whether precompressed variants of resources are served, the files with the suffixes
+     * {@code .br}, {@code .zst} or {@code .gz} next to the resource.
+     * @return true if precompressed variants are served
+     */
+    protected boolean isPrecompressedResponseEnabled() {
+        return false;
+    }
+
+    /**
+     * Create the precompressed variant of a resource.
+     * @param httpServerContext the server context
+     * @param resource the resource
+     * @param suffix the suffix of the variant, for example {@code .br}
+     * @return the variant, or null if there is no such variant
+     * @throws IOException if the variant can not be created
+     */
+    protected Resource createEncodedResource(HttpServerContext httpServerContext, Resource resource, String suffix)
+            throws IOException {
+        return null;
+    }
+
     @Override
     public void handle(HttpServerContext context) throws IOException {
         logger.log(Level.FINE, "handle: before creating resource " + this.getClass().getName());
@@ -108,6 +138,21 @@ public abstract class AbstractResourceHandler implements HttpHandler {
         String contentType = resource.getMimeType();
         context.response()
                 .addHeader(HttpHeaderNames.CONTENT_TYPE, contentType);
+        if (isPrecompressedResponseEnabled()) {
+            context.response()
+                    .addHeader(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+            for (String encoding : EncodingNegotiator.findEncodings(headers.get(HttpHeaderNames.ACCEPT_ENCODING),
+                    PRECOMPRESSED_ENCODINGS)) {
+                Resource variant = createEncodedResource(context, resource, PRECOMPRESSED_SUFFIXES.get(encoding));
+                if (variant != null && variant.isExists() && !variant.isDirectory()) {
+                    // the bytes are sent as they are, a content encoding header also turns off dynamic compression
+                    context.response()
+                            .addHeader(HttpHeaderNames.CONTENT_ENCODING, encoding);
+                    resource = new EncodedResource(resource, variant);
+                    break;
+                }
+            }
+        }
         // heuristic for inline disposition
         String disposition = "inline";
         if (!contentType.startsWith("text") && !contentType.startsWith("image")) {
@@ -250,28 +295,60 @@ public abstract class AbstractResourceHandler implements HttpHandler {
                     .addHeader(HttpHeaderNames.CONTENT_LENGTH, Long.toString(r.length));
             send(resource, HttpResponseStatus.PARTIAL_CONTENT, contentType, context, r.start, r.length);
         } else {
-            context.response()
-                    .addHeader(HttpHeaderNames.CONTENT_TYPE, "multipart/byteranges; boundary=MULTIPART_BOUNDARY");
-            StringBuilder sb = new StringBuilder();
-            for (Range r : ranges) {
+            sendMultipartRanges(context, resource, contentType, ranges);
+        }
+    }
+
+    /**
+     * Send the ranges as a {@code multipart/byteranges} response. The part headers are encoded once,
+     * the ranges of a file are sent as file regions, and the content length is known in advance.
+     */
+    private void sendMultipartRanges(HttpServerContext context,
+                                     Resource resource,
+                                     String contentType,
+                                     List<Range> ranges) throws IOException {
+        HttpResponseBuilder responseBuilder = context.response();
+        String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong()) +
+                Long.toHexString(System.nanoTime());
+        responseBuilder.getHeaders().set(HttpHeaderNames.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+        responseBuilder.setResponseStatus(HttpResponseStatus.PARTIAL_CONTENT);
+        if (context.request().getMethod() == HttpMethod.HEAD) {
+            responseBuilder.build();
+            return;
+        }
+        List<FilePart> parts = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            Range r = ranges.get(i);
+            String header = (i > 0 ? "\r\n" : "") + "--" + boundary + "\r\n" +
+                    "content-type: " + contentType + "\r\n" +
+                    "content-range: bytes " + r.start + '-' + r.end + '/' + r.total + "\r\n\r\n";
+            parts.add(new FilePart(encode(responseBuilder, header), r.start, r.length));
+        }
+        parts.add(new FilePart(encode(responseBuilder, "\r\n--" + boundary + "--\r\n"), 0L, 0L));
+        URL url = resource.getURL();
+        if ("file".equals(url.getScheme())) {
+            responseBuilder.write(FileChannel.open(resource.getPath()), parts);
+            return;
+        }
+        // not a file, copy the ranges into a single buffer
+        int length = (int) parts.stream().mapToLong(FilePart::getLength).sum();
+        ByteBuffer byteBuffer = ByteBuffer.allocate(length);
+        for (int i = 0; i < parts.size(); i++) {
+            FilePart part = parts.get(i);
+            byteBuffer.put(part.getHeader().asByteBuffer());
+            if (i < ranges.size()) {
                 try {
-                    DataBuffer dataBuffer = readBuffer(context.response(), resource.getURL(), r.start, r.length);
-                    sb.append('\n')
-                        .append("--MULTIPART_BOUNDARY").append('\n')
-                        .append("content-type: ").append(contentType).append('\n')
-                        .append("content-range: bytes ").append(r.start).append('-').append(r.end).append('/').append(r.total).append('\n')
-                        .append(StandardCharsets.ISO_8859_1.decode(dataBuffer.asByteBuffer()))
-                        .append('\n')
-                        .append("--MULTIPART_BOUNDARY--").append('\n');
-                } catch (URISyntaxException | IOException e) {
-                    logger.log(Level.FINEST, e.getMessage(), e);
+                    byteBuffer.put(readBuffer(responseBuilder, url, part.getPosition(), part.getCount()).asByteBuffer());
+                } catch (URISyntaxException e) {
+                    throw new IOException(e);
                 }
             }
-            context.response()
-                    .setResponseStatus(HttpResponseStatus.OK)
-                    .setContentType(contentType)
-                    .write(CharBuffer.wrap(sb), StandardCharsets.ISO_8859_1);
         }
+        responseBuilder.write(responseBuilder.getDataBufferFactory().wrap(byteBuffer.flip()));
+    }
+
+    private static DataBuffer encode(HttpResponseBuilder responseBuilder, String string) {
+        return responseBuilder.getDataBufferFactory().wrap(StandardCharsets.ISO_8859_1.encode(string));
     }
 
     private static boolean matches(String matchHeader, String toMatch) {
@@ -309,7 +386,9 @@ public abstract class AbstractResourceHandler implements HttpHandler {
         } else {
             if ("file".equals(url.getScheme())) {
                 Path path = resource.getPath();
-                try (FileChannel fileChannel = (FileChannel) Files.newByteChannel(path)) {
+                // the response closes the file channel after sending
+                try {
+                    FileChannel fileChannel = FileChannel.open(path);
                     send(fileChannel, httpResponseStatus, contentType, context.response(), offset, size);
                 } catch (IOException e) {
                     logger.log(Level.SEVERE, e.getMessage() + " path=" + path, e);
@@ -339,12 +418,9 @@ public abstract class AbstractResourceHandler implements HttpHandler {
             logger.log(Level.WARNING, "file channel is null, generating not found");
             responseBuilder.setResponseStatus(HttpResponseStatus.NOT_FOUND).build();
         } else {
-            fileChannel = fileChannel.position(offset);
-            try (ReadableByteChannel channel = fileChannel) {
-                responseBuilder.setResponseStatus(httpResponseStatus)
-                        .setContentType(contentType)
-                        .write(DataBufferUtil.readBuffer(responseBuilder.getDataBufferFactory(), channel, size));
-            }
+            responseBuilder.setResponseStatus(httpResponseStatus)
+                    .setContentType(contentType)
+                    .write(fileChannel, offset, size);
         }
     }
 
@@ -433,6 +509,92 @@ public abstract class AbstractResourceHandler implements HttpHandler {
         return b1 || b2 || b3;
     }
 
+    /**
+     * A precompressed variant of a resource. The content is the content of the variant, the name and the
+     * mime type are the name and the mime type of the resource.
+     */
+    static class EncodedResource implements Resource {
+
+        private final Resource resource;
+
+        private final Resource variant;
+
+        EncodedResource(Resource resource, Resource variant) {
+            this.resource = resource;
+            this.variant = variant;
+        }
+
+        @Override
+        public Path getPath() {
+            return variant.getPath();
+        }
+
+        @Override
+        public String getName() {
+            return resource.getName();
+        }
+
+        @Override
+        public String getBaseName() {
+            return resource.getBaseName();
+        }
+
+        @Override
+        public String getSuffix() {
+            return resource.getSuffix();
+        }
+
+        @Override
+        public String getResourcePath() {
+            return variant.getResourcePath();
+        }
+
+        @Override
+        public URL getURL() {
+            return variant.getURL();
+        }
+
+        @Override
+        public Instant getLastModified() {
+            return variant.getLastModified();
+        }
+
+        @Override
+        public long getLength() {
+            return variant.getLength();
+        }
+
+        @Override
+        public boolean isExists() {
+            return variant.isExists();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return variant.isDirectory();
+        }
+
+        @Override
+        public String getMimeType() {
+            return resource.getMimeType();
+        }
+
+        @Override
+        public String getIndexFileName() {
+            return resource.getIndexFileName();
+        }
+
+        @Override
+        public boolean isExistsIndexFile() {
+            return resource.isExistsIndexFile();
+        }
+
+        @Override
+        public String toString() {
+            return "[EncodedResource:resource=" + resource + ",variant=" + variant + "]";
+        }
+    }
+
     static class Range {
         long start;
         long end;
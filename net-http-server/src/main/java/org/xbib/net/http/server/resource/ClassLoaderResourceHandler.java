@@ -54,6 +54,25 @@ public class ClassLoaderResourceHandler extends AbstractResourceHandler {
         return 24 * 3600;
     }
 
+    @Override
+    protected boolean isPrecompressedResponseEnabled() {
+        return true;
+    }
+
+    @Override
+    protected Resource createEncodedResource(HttpServerContext httpServerContext, Resource resource, String suffix)
+            throws IOException {
+        String resourcePath = resource.getResourcePath() + suffix;
+        // look up first, a missing resource is logged as a warning
+        return classLoader.getResource(toClassLoaderPath(resourcePath)) != null ?
+                new ClassLoaderResource(httpServerContext, resourcePath) : null;
+    }
+
+    private String toClassLoaderPath(String resourcePath) {
+        String path = prefix != null ? (prefix.endsWith("/") ? prefix : prefix + "/") : "/";
+        return resourcePath.startsWith("/") ? path + resourcePath.substring(1) : path + resourcePath;
+    }
+
     class ClassLoaderResource implements Resource {
 
         private final Path path;
@@ -75,11 +94,13 @@ public class ClassLoaderResourceHandler extends AbstractResourceHandler {
         private URL url;
 
         ClassLoaderResource(HttpServerContext httpServerContext) throws IOException {
-            String effectivePath = httpServerContext.request().getRequestPath().substring(1); // httpServerContext.getEffectiveRequestPath();
+            this(httpServerContext, httpServerContext.request().getRequestPath().substring(1)); // httpServerContext.getEffectiveRequestPath();
+        }
+
+        ClassLoaderResource(HttpServerContext httpServerContext, String effectivePath) throws IOException {
             this.contentType = mimeTypeService.getContentType(effectivePath);
             this.resourcePath = effectivePath.startsWith("/") ? effectivePath.substring(1) : effectivePath;
-            String path = prefix != null ? (prefix.endsWith("/") ? prefix : prefix + "/") : "/";
-            path = resourcePath.startsWith("/") ? path + resourcePath.substring(1) : path + resourcePath;
+            String path = toClassLoaderPath(resourcePath);
             String normalizedPath = PathNormalizer.normalize(resourcePath);
             if (normalizedPath.startsWith("/")) {
                 normalizedPath = normalizedPath.substring(1);
@@ -74,6 +74,17 @@ public class FileResourceHandler extends AbstractResourceHandler {
         return 24 * 3600;
     }
 
+    @Override
+    protected boolean isPrecompressedResponseEnabled() {
+        return true;
+    }
+
+    @Override
+    protected Resource createEncodedResource(HttpServerContext httpServerContext, Resource resource, String suffix)
+            throws IOException {
+        return new FileResource(httpServerContext, resource.getResourcePath() + suffix);
+    }
+
     protected class FileResource implements Resource {
 
         private final Path path;
@@ -0,0 +1,71 @@
+package org.xbib.net.http.server.resource.negotiate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Selects content codings by the quality values of an {@code Accept-Encoding} header.
+ */
+public class EncodingNegotiator {
+
+    private EncodingNegotiator() {
+    }
+
+    /**
+     * Find the acceptable content codings.
+     * @param acceptEncoding the value of the {@code Accept-Encoding} header
+     * @param encodings the available content codings, in the order of preference of the server
+     * @return the acceptable content codings, best first, ties are ordered by the preference of the server
+     */
+    public static List<String> findEncodings(String acceptEncoding, Collection<String> encodings) {
+        List<String> list = new ArrayList<>();
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return list;
+        }
+        Map<String, Double> qualities = new HashMap<>();
+        for (String token : acceptEncoding.split(",")) {
+            String coding = token;
+            double q = 1.0d;
+            int pos = token.indexOf(';');
+            if (pos != -1) {
+                coding = token.substring(0, pos);
+                q = parseQuality(token.substring(pos + 1));
+            }
+            coding = coding.trim().toLowerCase(Locale.ROOT);
+            if (!coding.isEmpty()) {
+                qualities.put(coding, q);
+            }
+        }
+        Double wildcard = qualities.get("*");
+        Map<String, Double> accepted = new HashMap<>();
+        for (String encoding : encodings) {
+            Double q = qualities.getOrDefault(encoding, wildcard);
+            if (q != null && q > 0.0d) {
+                list.add(encoding);
+                accepted.put(encoding, q);
+            }
+        }
+        // stable sort, ties keep the preference of the server
+        list.sort(Comparator.comparing(accepted::get, Comparator.reverseOrder()));
+        return list;
+    }
+
+    private static double parseQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String s = parameter.trim();
+            if (s.startsWith("q=") || s.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(s.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0.0d;
+                }
+            }
+        }
+        return 1.0d;
+    }
+}
@@ -7,7 +7,6 @@ import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpMethod;
 
 import java.nio.file.FileSystems;
-import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -23,9 +22,13 @@ public class BaseHttpRoute implements HttpRoute {
 
     private final String path;
 
-    private final List<RouteSegment> segments;
+    private final boolean onlyStrings;
 
-    private final String sortKey;
+    private List<RouteSegment> segments;
+
+    private PathSegments pathSegments;
+
+    private String sortKey;
 
     public BaseHttpRoute(HttpAddress httpAddress, HttpMethod httpMethod, String path) {
         this(httpAddress, Set.of(httpMethod), path, false);
@@ -38,8 +41,9 @@ public class BaseHttpRoute implements HttpRoute {
         this.httpAddress = httpAddress;
         this.httpMethods = httpMethods;
         this.path = path;
-        this.segments = onlyStrings ? createStringSegments(path): createSegments(path);
-        this.sortKey = createSortKey();
+        this.onlyStrings = onlyStrings;
+        // requested routes split their path only when a resolver asks for the segments
+        this.segments = onlyStrings ? null : createSegments(path);
     }
 
     @Override
@@ -58,11 +62,32 @@ public class BaseHttpRoute implements HttpRoute {
     }
 
     public List<RouteSegment> getSegments() {
+        if (segments == null) {
+            segments = createStringSegments(path);
+        }
         return segments;
     }
 
+    public PathSegments getPathSegments() {
+        if (pathSegments == null) {
+            pathSegments = PathSegments.of(path);
+        }
+        return pathSegments;
+    }
+
     @Override
     public boolean matches(ParameterBuilder parameterBuilder, HttpRoute requestedRoute) {
+        if (!matches(requestedRoute)) {
+            return false;
+        }
+        if (parameterBuilder != null) {
+            addParameters(parameterBuilder, ((BaseHttpRoute) requestedRoute).getPathSegments());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean matches(HttpRoute requestedRoute) {
         if (!(requestedRoute instanceof BaseHttpRoute)) {
             return false;
         }
@@ -71,75 +96,83 @@ public class BaseHttpRoute implements HttpRoute {
             return false;
         }
         HttpMethod requestedMethod = requestedRoute.getHttpMethods().iterator().next();
-        if (!baseHttpRoute.getHttpMethods().contains(requestedMethod)) {
+        if (!httpMethods.contains(requestedMethod)) {
             return false;
         }
-        List<RouteSegment> requestedSegments = baseHttpRoute.getSegments();
-        // special case: empty segments match
-        if (requestedSegments.isEmpty() && segments.isEmpty()) {
+        return matches(baseHttpRoute.getPathSegments());
+    }
+
+    /**
+     * Match the segments of a requested path without creating intermediate objects,
+     * except for the strings given to glob patterns.
+     * @param requestedSegments the requested path segments
+     * @return true if the requested path matches this route
+     */
+    public boolean matches(PathSegments requestedSegments) {
+        List<RouteSegment> segments = getSegments();
+        // special case: single segment with pattern to match, we must ignore the incoming segments
+        if (segments.size() == 1 && segments.get(0) instanceof PatternSegment &&
+                ((PatternSegment) segments.get(0)).matches(requestedSegments.getPath())) {
             return true;
         }
-        // special case: single segment with pattern to match, we must ignore the incoming segments
-        if (segments.size() == 1 && segments.get(0) instanceof PatternSegment) {
-            MatchResult matchResult = segments.get(0).match(new StringSegment(requestedRoute.getPath()));
-            if (matchResult == MatchResult.TRUE) {
+        int size = requestedSegments.size();
+        for (int i = 0; i < segments.size(); i++) {
+            RouteSegment segment = segments.get(i);
+            // catch_all matches the rest, even after all requested segments have matched
+            if (segment instanceof CatchAllSegment) {
                 return true;
             }
-        }
-        List<MatchResult> matchResults = new ArrayList<>();
-        MatchResult matchResult;
-        if (segments.size() >= requestedSegments.size()) {
-            int i = 0;
-            while (i < segments.size()) {
-                if (i >= requestedSegments.size()) {
-                    // special case: catch_all after prefixes have matched is OK
-                    if (!(segments.get(i) instanceof CatchAllSegment)) {
-                        matchResults.add(MatchResult.FALSE);
-                    }
-                    break;
-                }
-                matchResult = segments.get(i).match(requestedSegments.get(i));
-                if (matchResult instanceof ValueMatchResult) {
-                    ParameterSegment parameterSegment = (ParameterSegment) segments.get(i);
-                    parameterBuilder.add(parameterSegment.getName(), ((ValueMatchResult) matchResult).getValue());
-                }
-                if (matchResult == MatchResult.ALWAYS) {
-                    break;
-                }
-                matchResults.add(matchResult);
-                i++;
+            if (i >= size) {
+                return false;
             }
-        } else {
-            int i = 0;
-            while (i < requestedSegments.size()) {
-                if (i >= segments.size()) {
-                    // never match on short patterns
-                    matchResults.add(MatchResult.FALSE);
-                    break;
-                }
-                matchResult = requestedSegments.get(i).match(segments.get(i));
-                if (matchResult instanceof ValueMatchResult) {
-                    ParameterSegment parameterSegment = (ParameterSegment) segments.get(i);
-                    parameterBuilder.add(parameterSegment.getName(), ((ValueMatchResult) matchResult).getValue());
+            if (segment instanceof StringSegment) {
+                if (!requestedSegments.equals(i, ((StringSegment) segment).getString())) {
+                    return false;
                 }
-                if (matchResult == MatchResult.ALWAYS) {
-                    break;
+            } else if (segment instanceof PatternSegment) {
+                if (!((PatternSegment) segment).matches(requestedSegments.get(i))) {
+                    return false;
                 }
-                matchResults.add(matchResult);
-                i++;
             }
         }
-        return matchResults.stream().noneMatch(p -> p == MatchResult.FALSE);
+        // never match on short patterns
+        return segments.size() == size;
+    }
+
+    /**
+     * Add the values of the parameter segments of a matching requested path.
+     * @param parameterBuilder the parameter builder
+     * @param requestedSegments the requested path segments
+     */
+    public void addParameters(ParameterBuilder parameterBuilder, PathSegments requestedSegments) {
+        List<RouteSegment> segments = getSegments();
+        for (int i = 0; i < segments.size() && i < requestedSegments.size(); i++) {
+            RouteSegment segment = segments.get(i);
+            if (segment instanceof CatchAllSegment) {
+                break;
+            }
+            if (segment instanceof ParameterSegment) {
+                parameterBuilder.add(((ParameterSegment) segment).getName(), requestedSegments.get(i));
+            }
+        }
     }
 
+    /**
+     * The sort key orders configured routes. It is computed when a resolver sorts its routes,
+     * requested routes never compute it.
+     * @return the sort key
+     */
     @Override
     public String getSortKey() {
+        if (sortKey == null) {
+            sortKey = createSortKey();
+        }
         return sortKey;
     }
 
     @Override
     public String toString() {
-        return httpAddress + "/" + httpMethods + "/" + segments.stream().map(Object::toString).collect(Collectors.joining("/"));
+        return httpAddress + "/" + httpMethods + "/" + getSegments().stream().map(Object::toString).collect(Collectors.joining("/"));
     }
 
     private static List<RouteSegment> createSegments(String path) {
@@ -176,13 +209,21 @@ public class BaseHttpRoute implements HttpRoute {
     }
 
     private String createSortKey() {
-        StringBuilder sb = new StringBuilder();
-        if (segments.size() == 1 && (segments.get(0) instanceof PatternSegment || segments.get(0) instanceof CatchAllSegment)) {
-            sb.append("1");
+        StringBuilder sb = new StringBuilder(4);
+        if (!onlyStrings && segments.size() == 1 && (segments.get(0) instanceof PatternSegment || segments.get(0) instanceof CatchAllSegment)) {
+            sb.append('1');
         } else {
-            sb.append("0");
+            sb.append('0');
         }
-        sb.append(String.format("%03d", path.length()));
+        // the path length, padded to three digits
+        int length = path.length();
+        if (length < 100) {
+            sb.append('0');
+        }
+        if (length < 10) {
+            sb.append('0');
+        }
+        sb.append(length);
         return sb.toString();
     }
 
@@ -199,16 +240,9 @@ public class BaseHttpRoute implements HttpRoute {
     }
 
     public interface RouteSegment {
-        MatchResult match(RouteSegment segment);
-
     }
 
-    private static class CatchAllSegment implements RouteSegment {
-
-        @Override
-        public MatchResult match(RouteSegment segment) {
-            return MatchResult.ALWAYS;
-        }
+    static class CatchAllSegment implements RouteSegment {
 
         @Override
         public String toString() {
@@ -216,7 +250,7 @@ public class BaseHttpRoute implements HttpRoute {
         }
     }
 
-    private static class StringSegment implements RouteSegment {
+    static class StringSegment implements RouteSegment {
 
         private final String string;
 
@@ -224,21 +258,8 @@ public class BaseHttpRoute implements HttpRoute {
             this.string = string;
         }
 
-        @Override
-        public MatchResult match(RouteSegment segment) {
-            if (segment instanceof StringSegment) {
-                return string.equals(((StringSegment) segment).string) ? MatchResult.TRUE : MatchResult.FALSE;
-            } else if (segment instanceof CatchAllSegment) {
-                return MatchResult.ALWAYS;
-            } else if (segment instanceof PatternSegment) {
-                Path path = Paths.get(string);
-                return ((PatternSegment) segment).pathMatcher.matches(path) ? MatchResult.TRUE : MatchResult.FALSE;
-            } else if (segment instanceof ParameterSegment) {
-                ValueMatchResult matchResult = new ValueMatchResult();
-                matchResult.setValue(string);
-                return matchResult;
-            }
-            return MatchResult.FALSE;
+        String getString() {
+            return string;
         }
 
         @Override
@@ -247,27 +268,23 @@ public class BaseHttpRoute implements HttpRoute {
         }
     }
 
-    private static class PatternSegment implements RouteSegment {
+    static class PatternSegment implements RouteSegment {
+
+        private final String pattern;
 
         private final PathMatcher pathMatcher;
 
         PatternSegment(String regex) {
+            this.pattern = regex;
             this.pathMatcher = FileSystems.getDefault().getPathMatcher(regex);
         }
 
-        @Override
-        public MatchResult match(RouteSegment segment) {
-            if (segment instanceof StringSegment) {
-                Path path = Paths.get(((StringSegment) segment).string);
-                return pathMatcher.matches(path) ? MatchResult.TRUE : MatchResult.FALSE;
-            } else if (segment instanceof CatchAllSegment) {
-                return MatchResult.ALWAYS;
-            } else if (segment instanceof PatternSegment) {
-                return MatchResult.FALSE;
-            } else if (segment instanceof ParameterSegment) {
-                return MatchResult.FALSE;
-            }
-            return MatchResult.FALSE;
+        String getPattern() {
+            return pattern;
+        }
+
+        boolean matches(String string) {
+            return pathMatcher.matches(Paths.get(string));
         }
 
         @Override
@@ -276,7 +293,7 @@ public class BaseHttpRoute implements HttpRoute {
         }
     }
 
-    private static class ParameterSegment implements RouteSegment {
+    static class ParameterSegment implements RouteSegment {
 
         private final String name;
 
@@ -288,65 +305,11 @@ public class BaseHttpRoute implements HttpRoute {
             return name;
         }
 
-        @Override
-        public MatchResult match(RouteSegment segment) {
-            ValueMatchResult matchResult = new ValueMatchResult();
-            if (segment instanceof StringSegment) {
-                matchResult.setValue(((StringSegment) segment).string);
-            }
-            return matchResult;
-        }
-
         @Override
         public String toString() {
             return "PARAMETER:{" + name + "}";
         }
     }
 
-    public interface MatchResult {
-        MatchResult TRUE = new TrueMatchResult();
-
-        MatchResult FALSE = new FalseMatchResult();
-
-        MatchResult ALWAYS = new AlwaysMatchResult();
-    }
-
-    private static class TrueMatchResult implements MatchResult {
-        @Override
-        public String toString() {
-            return "TRUE";
-        }
-    }
-
-    private static class FalseMatchResult implements MatchResult {
-        @Override
-        public String toString() {
-            return "FALSE";
-        }
-    }
-
-    private static class AlwaysMatchResult implements MatchResult {
-        @Override
-        public String toString() {
-            return "ALWAYS";
-        }
-    }
-
-    private static class ValueMatchResult implements MatchResult {
-        String value;
-        void setValue(String value) {
-            this.value = value;
-        }
-
-        String getValue() {
-            return value;
-        }
-
-        @Override
-        public String toString() {
-            return "VALUE";
-        }
-    }
-
     private static final CatchAllSegment CATCHALL = new CatchAllSegment();
 }
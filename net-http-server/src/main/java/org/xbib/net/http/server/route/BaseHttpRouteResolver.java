@@ -7,11 +7,9 @@ import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpMethod;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class BaseHttpRouteResolver<T> implements HttpRouteResolver<T> {
 
@@ -23,18 +21,28 @@ public class BaseHttpRouteResolver<T> implements HttpRouteResolver<T> {
 
     /**
      * This naive rsolver walks through all configured routes and tries to match them.
+     * Parameters and context are only created for matching routes.
      * @param httpRoute the route to match against
      * @param listener the listener where the results are going
      */
     @Override
     public void resolve(HttpRoute httpRoute, ResultListener<T> listener) {
+        List<String> context = null;
         for (Map.Entry<HttpRoute, T> entry : builder.routes) {
-            ParameterBuilder parameterBuilder = Parameter.builder();
-            boolean match = entry.getKey().matches(parameterBuilder, httpRoute);
-            if (match && listener != null) {
-                List<String> list = Arrays.stream(httpRoute.getPath().replaceFirst(builder.prefix, "").split("/"))
-                                .filter(s -> !s.isEmpty()).collect(Collectors.toList());
-                listener.onResult(new Result<>(entry.getValue(), list, parameterBuilder.build()));
+            HttpRoute route = entry.getKey();
+            if (route.matches(httpRoute) && listener != null) {
+                ParameterBuilder parameterBuilder = Parameter.builder();
+                PathSegments pathSegments = httpRoute instanceof BaseHttpRoute ?
+                        ((BaseHttpRoute) httpRoute).getPathSegments() : PathSegments.of(httpRoute.getPath());
+                if (route instanceof BaseHttpRoute) {
+                    ((BaseHttpRoute) route).addParameters(parameterBuilder, pathSegments);
+                } else {
+                    route.matches(parameterBuilder, httpRoute);
+                }
+                if (context == null) {
+                    context = pathSegments.context(builder.prefix);
+                }
+                listener.onResult(new Result<>(entry.getValue(), context, parameterBuilder.build()));
             }
         }
     }
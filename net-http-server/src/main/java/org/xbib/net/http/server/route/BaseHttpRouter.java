@@ -1,22 +1,35 @@
 package org.xbib.net.http.server.route;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Collection;
+import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.TreeSet;
 
-import org.xbib.datastructures.common.LinkedHashSetMultiMap;
-import org.xbib.datastructures.common.MultiMap;
 import org.xbib.net.URL;
 import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.HttpResponseStatus;
 import org.xbib.net.http.server.Application;
+import org.xbib.net.http.server.CompressionPolicy;
 import org.xbib.net.http.server.HttpDomain;
 import org.xbib.net.http.server.HttpException;
 import org.xbib.net.http.server.HttpHandler;
@@ -24,8 +37,10 @@ import org.xbib.net.http.server.HttpRequestBuilder;
 import org.xbib.net.http.server.HttpResponseBuilder;
 import org.xbib.net.http.server.HttpServerContext;
 import org.xbib.net.http.server.HttpService;
+import org.xbib.net.http.server.RequestBody;
 
 import static org.xbib.net.http.HttpResponseStatus.NOT_FOUND;
+import static org.xbib.net.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 
 public class BaseHttpRouter implements HttpRouter {
 
@@ -33,27 +48,31 @@ public class BaseHttpRouter implements HttpRouter {
 
     private final BaseHttpRouterBuilder builder;
 
-    private final MultiMap<String, HttpDomain> domains;
+    private final Map<String, DomainsByPort> domainsByHost;
+
+    private final DomainsByPort domainsByAnyHost;
 
     private final DomainsByAddress domainsByAddress;
 
+    private final Map<HttpAddress, Map<HttpMethod, HttpRouteResolver<HttpService>>> httpRouteResolvers;
+
     private final HttpRouteResolver<HttpService> httpRouteResolver;
 
+    private final Set<HttpDomain> domainsResolvedOnDispatch;
+
     private Application application;
 
     protected BaseHttpRouter(BaseHttpRouterBuilder builder) {
         this.builder = builder;
-        HttpRouteResolver.Builder<HttpService> httpRouteResolverBuilder = newHttpRouteResolverBuilder();
-        for (HttpDomain domain : builder.domains) {
-            for (HttpService httpService : domain.getServices()) {
-                logger.log(Level.FINE, "adding " + domain.getAddress() + " " + httpService.getMethods() + " " + httpService.getPathSpecification() + " " + httpService);
-                HttpRoute httpRoute = new BaseHttpRoute(domain.getAddress(), httpService.getMethods(), httpService.getPathSpecification(), false);
-                httpRouteResolverBuilder.add(httpRoute, httpService);
-            }
-        }
-        this.httpRouteResolver = httpRouteResolverBuilder.build();
-        this.domains = createDomains(builder.domains);
+        this.httpRouteResolvers = createHttpRouteResolvers(builder.domains);
+        this.httpRouteResolver = builder.routeCacheSize > 0 ?
+                new CachingHttpRouteResolver<>(this::resolve, builder.routeCacheSize, HttpService::isRouteCacheable) :
+                this::resolve;
+        Map<String, Map<Integer, NavigableSet<HttpDomain>>> candidates = createDomainCandidates(builder.domains);
+        this.domainsByHost = createDomainsByHost(candidates);
+        this.domainsByAnyHost = createDomainsByAnyHost(candidates);
         this.domainsByAddress = createAddresses(builder.domains);
+        this.domainsResolvedOnDispatch = createDomainsResolvedOnDispatch(builder.domains);
     }
 
     public static BaseHttpRouterBuilder builder() {
@@ -61,7 +80,7 @@ public class BaseHttpRouter implements HttpRouter {
     }
 
     public HttpRouteResolver.Builder<HttpService> newHttpRouteResolverBuilder() {
-        return BaseHttpRouteResolver.builder();
+        return builder.httpRouteResolverBuilder.get();
     }
 
     @Override
@@ -81,6 +100,23 @@ public class BaseHttpRouter implements HttpRouter {
 
     @Override
     public void route(HttpRequestBuilder requestBuilder, HttpResponseBuilder responseBuilder) {
+        route(requestBuilder, responseBuilder, Runnable::run);
+    }
+
+    /**
+     * Route a request. If the domain has services that are non-blocking or assigned to a lane, the route is
+     * resolved on the calling thread, and if all resolved services are non-blocking, the request is executed
+     * on the calling thread, without sessions and application modules. Otherwise the request is handed over
+     * to the executor lane of the first resolved service with a lane, or of the domain, or else to the given
+     * executor, where the context is created and the route is resolved if that did not happen yet.
+     * If a resolved service has a timeout, the request is cancelled and the executing thread is interrupted
+     * when the deadline passes. The request is also cancelled when the connection closes.
+     * @param requestBuilder the request builder
+     * @param responseBuilder the response builder
+     * @param executor the executor for requests that may block and are not assigned to a lane
+     */
+    @Override
+    public void route(HttpRequestBuilder requestBuilder, HttpResponseBuilder responseBuilder, Executor executor) {
         Objects.requireNonNull(application);
         Objects.requireNonNull(requestBuilder);
         Objects.requireNonNull(requestBuilder.getRequestURI());
@@ -90,61 +126,184 @@ public class BaseHttpRouter implements HttpRouter {
         if (httpDomain == null) {
             httpDomain = builder.domains.iterator().next();
         }
+        if (!domainsResolvedOnDispatch.contains(httpDomain)) {
+            Executor executorLane = findLane(httpDomain, List.of());
+            dispatch(httpDomain, requestBuilder, responseBuilder, null, executorLane != null ? executorLane : executor);
+            return;
+        }
+        List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults = resolveRoute(httpDomain, requestBuilder);
+        // a streamed body must not be read on the thread that receives it
+        RequestBody requestBody = requestBuilder.getRequestBody();
+        if (isNonBlocking(httpRouteResolverResults) && (requestBody == null || requestBody.isComplete())) {
+            HttpServerContext httpServerContext = application.createContext(httpDomain, requestBuilder, responseBuilder);
+            responseBuilder.setCompressionPolicy(findCompressionPolicy(httpRouteResolverResults));
+            routeNonBlocking(httpServerContext, httpRouteResolverResults);
+            return;
+        }
+        Executor executorLane = findLane(httpDomain, httpRouteResolverResults);
+        dispatch(httpDomain, requestBuilder, responseBuilder, httpRouteResolverResults,
+                executorLane != null ? executorLane : executor);
+    }
+
+    private void dispatch(HttpDomain httpDomain,
+                          HttpRequestBuilder requestBuilder,
+                          HttpResponseBuilder responseBuilder,
+                          List<HttpRouteResolver.Result<HttpService>> resolvedResults,
+                          Executor executor) {
+        // the deadline counts from dispatch, time in the queue of the executor is part of it
+        Instant dispatched = Instant.now();
+        Cancellation cancellation = new Cancellation();
+        responseBuilder.setCloseListener(cancellation::cancel);
+        Runnable runnable = () -> {
+            ScheduledFuture<?> deadline = null;
+            try {
+                HttpServerContext httpServerContext;
+                List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults;
+                try {
+                    httpRouteResolverResults = resolvedResults != null ? resolvedResults : resolveRoute(httpDomain, requestBuilder);
+                    httpServerContext = application.createContext(httpDomain, requestBuilder, responseBuilder);
+                    responseBuilder.setCompressionPolicy(findCompressionPolicy(httpRouteResolverResults));
+                } catch (RuntimeException e) {
+                    requestBuilder.release();
+                    throw e;
+                }
+                Duration timeout = findTimeout(httpRouteResolverResults);
+                if (timeout != null) {
+                    Instant instant = dispatched.plus(timeout);
+                    httpServerContext.setDeadline(instant);
+                    long delay = Duration.between(Instant.now(), instant).toNanos();
+                    if (delay > 0L) {
+                        deadline = DEADLINES.schedule(httpServerContext::cancel, delay, TimeUnit.NANOSECONDS);
+                    } else {
+                        httpServerContext.cancel();
+                    }
+                }
+                cancellation.attach(httpServerContext);
+                route(httpServerContext, httpRouteResolverResults);
+            } finally {
+                responseBuilder.setCloseListener(null);
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+            }
+        };
+        try {
+            executor.execute(runnable);
+        } catch (RuntimeException e) {
+            responseBuilder.setCloseListener(null);
+            requestBuilder.release();
+            throw e;
+        }
+    }
+
+    private List<HttpRouteResolver.Result<HttpService>> resolveRoute(HttpDomain httpDomain, HttpRequestBuilder requestBuilder) {
         List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults = new ArrayList<>();
-        HttpRoute httpRoute = new BaseHttpRoute(httpDomain.getAddress(), Set.of(requestBuilder.getMethod()), requestBuilder.getRequestPath(), true);
-        httpRouteResolver.resolve(httpRoute, httpRouteResolverResults::add);
-        HttpServerContext httpServerContext = application.createContext(httpDomain, requestBuilder, responseBuilder);
-        route(httpServerContext, httpRouteResolverResults);
+        if (requestBuilder.getMethod() != null) {
+            HttpRoute httpRoute = new BaseHttpRoute(httpDomain.getAddress(), METHODS.get(requestBuilder.getMethod()),
+                    requestBuilder.getRequestPath(), true);
+            httpRouteResolver.resolve(httpRoute, httpRouteResolverResults::add);
+        }
+        return httpRouteResolverResults;
     }
 
+    /**
+     * Execute a request with the full request lifecycle of the application, on a thread that may block.
+     * Only the handlers can be interrupted by a cancellation, the session is always loaded and written,
+     * and the response is always rendered.
+     * @param httpServerContext the server context
+     * @param httpRouteResolverResults the resolved services
+     */
     protected void route(HttpServerContext httpServerContext, List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults) {
         application.onOpen(httpServerContext);
         try {
-            if (httpServerContext.isFailed()) {
-                return;
+            httpServerContext.setExecutingThread(Thread.currentThread());
+            try {
+                execute(httpServerContext, httpRouteResolverResults, true);
+            } finally {
+                httpServerContext.setExecutingThread(null);
             }
-            if (httpRouteResolverResults.isEmpty()) {
-                logger.log(Level.FINE, "route resolver results is empty, generating a not found message");
-                routeStatus(NOT_FOUND, httpServerContext);
-                return;
-            }
-            for (HttpRouteResolver.Result<HttpService> httpRouteResolverResult : httpRouteResolverResults) {
-                try {
-                    // first: create the final request
-                    httpServerContext.setResolverResult(httpRouteResolverResult);
-                    HttpService httpService = httpRouteResolverResult.getValue();
+        } finally {
+            application.onClose(httpServerContext);
+            httpServerContext.request().release();
+        }
+    }
+
+    /**
+     * Execute a request of non-blocking services on the thread that received it. Sessions and application
+     * modules may block, so they are left out of the request lifecycle.
+     * @param httpServerContext the server context
+     * @param httpRouteResolverResults the resolved services
+     */
+    protected void routeNonBlocking(HttpServerContext httpServerContext, List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults) {
+        application.onOpenNonBlocking(httpServerContext);
+        try {
+            execute(httpServerContext, httpRouteResolverResults, false);
+        } finally {
+            application.onCloseNonBlocking(httpServerContext);
+            httpServerContext.request().release();
+        }
+    }
+
+    private void execute(HttpServerContext httpServerContext,
+                         List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults,
+                         boolean withModules) {
+        if (httpServerContext.isFailed()) {
+            return;
+        }
+        if (httpServerContext.isCancelled()) {
+            logger.log(Level.FINE, "request cancelled before execution, deadline = " + httpServerContext.getDeadline());
+            routeStatus(SERVICE_UNAVAILABLE, httpServerContext);
+            return;
+        }
+        if (httpRouteResolverResults.isEmpty()) {
+            logger.log(Level.FINE, "route resolver results is empty, generating a not found message");
+            routeStatus(NOT_FOUND, httpServerContext);
+            return;
+        }
+        for (HttpRouteResolver.Result<HttpService> httpRouteResolverResult : httpRouteResolverResults) {
+            try {
+                // first: create the final request
+                httpServerContext.setResolverResult(httpRouteResolverResult);
+                HttpService httpService = httpRouteResolverResult.getValue();
+                if (withModules) {
                     application.getModules().forEach(module -> module.onOpen(application, httpServerContext, httpService, httpServerContext.httpRequest()));
-                    // second: security check, authentication etc.
-                    if (httpService.getSecurityDomain() != null) {
-                        logger.log(Level.FINEST, () -> "handling security domain service " + httpService);
-                        for (HttpHandler httpHandler : httpService.getSecurityDomain().getHandlers()) {
-                            logger.log(Level.FINEST, () -> "handling security domain handler " + httpHandler);
-                            httpHandler.handle(httpServerContext);
-                        }
-                    }
-                    if (httpServerContext.isDone() || httpServerContext.isFailed()) {
-                        break;
+                }
+                // second: security check, authentication etc.
+                if (httpService.getSecurityDomain() != null) {
+                    logger.log(Level.FINEST, () -> "handling security domain service " + httpService);
+                    for (HttpHandler httpHandler : httpService.getSecurityDomain().getHandlers()) {
+                        logger.log(Level.FINEST, () -> "handling security domain handler " + httpHandler);
+                        httpHandler.handle(httpServerContext);
                     }
-                    // accept service and execute service
-                    httpServerContext.attributes().put("service", httpService);
+                }
+                if (httpServerContext.isDone() || httpServerContext.isFailed()) {
+                    break;
+                }
+                // accept service and execute service
+                httpServerContext.attributes().put("service", httpService);
+                if (withModules) {
                     application.getModules().forEach(module -> module.onOpen(application, httpServerContext, httpService));
-                    logger.log(Level.FINEST, () -> "handling service " + httpService);
-                    httpService.handle(httpServerContext);
-                    if (httpServerContext.isDone() || httpServerContext.isFailed()) {
-                        break;
-                    }
-                } catch (HttpException e) {
-                    logger.log(Level.SEVERE, e.getMessage(), e);
-                    routeException(e);
+                }
+                logger.log(Level.FINEST, () -> "handling service " + httpService);
+                httpService.handle(httpServerContext);
+                if (httpServerContext.isDone() || httpServerContext.isFailed() || httpServerContext.isCancelled()) {
                     break;
-                } catch (Throwable t) {
-                    logger.log(Level.SEVERE, t.getMessage(), t);
-                    routeToErrorHandler(httpServerContext, t);
+                }
+            } catch (HttpException e) {
+                logger.log(Level.SEVERE, e.getMessage(), e);
+                routeException(e);
+                break;
+            } catch (Throwable t) {
+                if (httpServerContext.isCancelled()) {
+                    // the thread was interrupted, nobody waits for an error page
+                    logger.log(Level.FINE, "request cancelled: " + t.getMessage(), t);
+                    httpServerContext.fail();
                     break;
                 }
+                logger.log(Level.SEVERE, t.getMessage(), t);
+                routeToErrorHandler(httpServerContext, t);
+                break;
             }
-        } finally {
-            application.onClose(httpServerContext);
         }
     }
 
@@ -171,23 +330,84 @@ public class BaseHttpRouter implements HttpRouter {
         routeStatus(HttpResponseStatus.INTERNAL_SERVER_ERROR, httpServerContext);
     }
 
+    /**
+     * Find the domain of a request by host and port, with a single lookup in the tables precomputed
+     * at build time. If no domain was configured for the host, fall back to domains bound to the
+     * IPv4 or IPv6 ANY address at the port.
+     * @param url the base URL of the request
+     * @return the domain, or null
+     */
     private HttpDomain findDomain(URL url) {
-        NavigableSet<HttpDomain> httpDomains = new TreeSet<>();
-        String hostAndPort = getHostAndPost(url);
-        if (domains.containsKey(hostAndPort)) {
-            httpDomains.addAll(domains.get(hostAndPort));
+        int port = url.getPort() != null ? url.getPort() : -1;
+        DomainsByPort domainsByPort = url.getHost() != null ? domainsByHost.get(url.getHost()) : null;
+        HttpDomain httpDomain = domainsByPort != null ? domainsByPort.get(port) : null;
+        return httpDomain != null ? httpDomain : domainsByAnyHost.get(port);
+    }
+
+    public HttpRouteResolver<HttpService> getHttpRouteResolver() {
+        return httpRouteResolver;
+    }
+
+    private void resolve(HttpRoute httpRoute, HttpRouteResolver.ResultListener<HttpService> listener) {
+        Map<HttpMethod, HttpRouteResolver<HttpService>> map = httpRouteResolvers.get(httpRoute.getHttpAddress());
+        HttpRouteResolver<HttpService> resolver = map != null ? map.get(httpRoute.getHttpMethods().iterator().next()) : null;
+        if (resolver != null) {
+            resolver.resolve(httpRoute, listener);
+        }
+    }
+
+    private Executor findLane(HttpDomain httpDomain, List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults) {
+        String lane = null;
+        for (HttpRouteResolver.Result<HttpService> httpRouteResolverResult : httpRouteResolverResults) {
+            lane = httpRouteResolverResult.getValue().getLane();
+            if (lane != null) {
+                break;
+            }
+        }
+        if (lane == null) {
+            lane = httpDomain.getLane();
+        }
+        if (lane == null) {
+            return null;
+        }
+        Executor executor = application.getLane(lane);
+        if (executor == null) {
+            logger.log(Level.WARNING, "unknown executor lane " + lane + ", using application executor");
+        }
+        return executor;
+    }
+
+    private static Duration findTimeout(List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults) {
+        Duration timeout = null;
+        for (HttpRouteResolver.Result<HttpService> httpRouteResolverResult : httpRouteResolverResults) {
+            Duration serviceTimeout = httpRouteResolverResult.getValue().getTimeout();
+            if (serviceTimeout != null && (timeout == null || serviceTimeout.compareTo(timeout) < 0)) {
+                timeout = serviceTimeout;
+            }
+        }
+        return timeout;
+    }
+
+    private static CompressionPolicy findCompressionPolicy(List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults) {
+        for (HttpRouteResolver.Result<HttpService> httpRouteResolverResult : httpRouteResolverResults) {
+            CompressionPolicy compressionPolicy = httpRouteResolverResult.getValue().getCompressionPolicy();
+            if (compressionPolicy != null) {
+                return compressionPolicy;
+            }
         }
-        // check if ANY address was used for bind
-        hostAndPort = "0.0.0.0:" + url.getPort();
-        if (domains.containsKey(hostAndPort)) {
-            httpDomains.addAll(domains.get(hostAndPort));
+        return null;
+    }
+
+    private static boolean isNonBlocking(List<HttpRouteResolver.Result<HttpService>> httpRouteResolverResults) {
+        if (httpRouteResolverResults.isEmpty()) {
+            return false;
         }
-        // check if IPv6 ANY address was used for bind
-        hostAndPort = ":::" + url.getPort();
-        if (domains.containsKey(hostAndPort)) {
-            httpDomains.addAll(domains.get(hostAndPort));
+        for (HttpRouteResolver.Result<HttpService> httpRouteResolverResult : httpRouteResolverResults) {
+            if (!httpRouteResolverResult.getValue().isNonBlocking()) {
+                return false;
+            }
         }
-        return httpDomains.isEmpty() ? null: httpDomains.first();
+        return true;
     }
 
     private HttpHandler getHandler(HttpResponseStatus httpResponseStatus) {
@@ -195,22 +415,133 @@ public class BaseHttpRouter implements HttpRouter {
                 builder.handlers.get(httpResponseStatus.code()) : builder.handlers.get(500);
     }
 
-    private static MultiMap<String, HttpDomain> createDomains(Collection<HttpDomain> domains) {
-        MultiMap<String, HttpDomain> map = new LinkedHashSetMultiMap<>();
+    /**
+     * Partition the routes by address and method, so each resolver only sees the routes that can match.
+     * @param domains the domains
+     * @return an immutable map of route resolvers by address and method
+     */
+    private Map<HttpAddress, Map<HttpMethod, HttpRouteResolver<HttpService>>> createHttpRouteResolvers(Collection<HttpDomain> domains) {
+        Map<HttpAddress, Map<HttpMethod, HttpRouteResolver.Builder<HttpService>>> builders = new HashMap<>();
+        for (HttpDomain domain : domains) {
+            for (HttpService httpService : domain.getServices()) {
+                logger.log(Level.FINE, "adding " + domain.getAddress() + " " + httpService.getMethods() + " " + httpService.getPathSpecification() + " " + httpService);
+                HttpRoute httpRoute = new BaseHttpRoute(domain.getAddress(), httpService.getMethods(), httpService.getPathSpecification(), false);
+                for (HttpMethod httpMethod : httpService.getMethods()) {
+                    builders.computeIfAbsent(domain.getAddress(), k -> new EnumMap<>(HttpMethod.class))
+                            .computeIfAbsent(httpMethod, k -> newHttpRouteResolverBuilder())
+                            .add(httpRoute, httpService);
+                }
+            }
+        }
+        Map<HttpAddress, Map<HttpMethod, HttpRouteResolver<HttpService>>> map = new HashMap<>();
+        for (Map.Entry<HttpAddress, Map<HttpMethod, HttpRouteResolver.Builder<HttpService>>> entry : builders.entrySet()) {
+            Map<HttpMethod, HttpRouteResolver<HttpService>> resolvers = new EnumMap<>(HttpMethod.class);
+            entry.getValue().forEach((httpMethod, httpRouteResolverBuilder) -> resolvers.put(httpMethod, httpRouteResolverBuilder.build()));
+            map.put(entry.getKey(), Collections.unmodifiableMap(resolvers));
+        }
+        return Map.copyOf(map);
+    }
+
+    /**
+     * Collect the domains by host and port. The names of a domain are strings in the form of "host:port"
+     * or "host". A name is indexed under every split into host and port that can be concatenated back
+     * to the name, port -1 stands for a name without port.
+     * @param domains the domains
+     * @return the domains by host and port, ordered by preference
+     */
+    private static Map<String, Map<Integer, NavigableSet<HttpDomain>>> createDomainCandidates(Collection<HttpDomain> domains) {
+        Map<String, Map<Integer, NavigableSet<HttpDomain>>> map = new HashMap<>();
         for (HttpDomain domain : domains) {
             HttpAddress httpAddress = domain.getAddress();
+            Set<String> names = new LinkedHashSet<>();
             if (httpAddress.getHostNames() != null) {
                 for (String name : httpAddress.getHostNames()) {
-                    map.put(name + ":" + httpAddress.getPort(), domain);
+                    names.add(name + ":" + httpAddress.getPort());
                 }
             }
-            for (String name : domain.getNames()) {
-                map.put(name, domain);
+            names.addAll(domain.getNames());
+            for (String name : names) {
+                addDomainCandidate(map, name, -1, domain);
+                for (int i = name.indexOf(':'); i >= 0; i = name.indexOf(':', i + 1)) {
+                    String suffix = name.substring(i + 1);
+                    if (!suffix.isEmpty() && suffix.length() <= 5 && suffix.chars().allMatch(Character::isDigit) &&
+                            String.valueOf(Integer.parseInt(suffix)).equals(suffix)) {
+                        addDomainCandidate(map, name.substring(0, i), Integer.parseInt(suffix), domain);
+                    }
+                }
             }
         }
         return map;
     }
 
+    private static void addDomainCandidate(Map<String, Map<Integer, NavigableSet<HttpDomain>>> map,
+                                           String host, int port, HttpDomain domain) {
+        map.computeIfAbsent(host, k -> new HashMap<>()).computeIfAbsent(port, k -> new TreeSet<>()).add(domain);
+    }
+
+    private static Map<String, DomainsByPort> createDomainsByHost(Map<String, Map<Integer, NavigableSet<HttpDomain>>> candidates) {
+        Map<String, DomainsByPort> map = new HashMap<>();
+        candidates.forEach((host, domainsByPort) -> {
+            Map<Integer, HttpDomain> winners = new HashMap<>();
+            domainsByPort.forEach((port, domains) -> {
+                NavigableSet<HttpDomain> set = new TreeSet<>(domains);
+                if (port >= 0) {
+                    set.addAll(getAnyHostCandidates(candidates, port));
+                }
+                winners.put(port, set.first());
+            });
+            map.put(host, new DomainsByPort(winners));
+        });
+        return Map.copyOf(map);
+    }
+
+    private static DomainsByPort createDomainsByAnyHost(Map<String, Map<Integer, NavigableSet<HttpDomain>>> candidates) {
+        Set<Integer> ports = new HashSet<>();
+        for (String host : ANY_HOSTS) {
+            if (candidates.containsKey(host)) {
+                ports.addAll(candidates.get(host).keySet());
+            }
+        }
+        Map<Integer, HttpDomain> winners = new HashMap<>();
+        for (Integer port : ports) {
+            if (port >= 0) {
+                winners.put(port, getAnyHostCandidates(candidates, port).first());
+            }
+        }
+        return new DomainsByPort(winners);
+    }
+
+    private static NavigableSet<HttpDomain> getAnyHostCandidates(Map<String, Map<Integer, NavigableSet<HttpDomain>>> candidates,
+                                                                 int port) {
+        NavigableSet<HttpDomain> set = new TreeSet<>();
+        for (String host : ANY_HOSTS) {
+            if (candidates.containsKey(host) && candidates.get(host).containsKey(port)) {
+                set.addAll(candidates.get(host).get(port));
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Collect the domains where the route must be known before a request is dispatched, because a service
+     * may run on the calling thread or on its own executor lane. For other domains, the route is resolved
+     * by the executor.
+     * @param domains the domains
+     * @return the domains, by identity
+     */
+    private static Set<HttpDomain> createDomainsResolvedOnDispatch(Collection<HttpDomain> domains) {
+        Set<HttpDomain> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (HttpDomain domain : domains) {
+            for (HttpService httpService : domain.getServices()) {
+                if (httpService.isNonBlocking() || httpService.getLane() != null) {
+                    set.add(domain);
+                    break;
+                }
+            }
+        }
+        return set;
+    }
+
     private static DomainsByAddress createAddresses(Collection<HttpDomain> domains) {
         DomainsByAddress map = new BaseDomainsByAddress();
         for (HttpDomain domain : domains) {
@@ -229,12 +560,84 @@ public class BaseHttpRouter implements HttpRouter {
     }
 
     /**
-     * Returns the host and port in notation "host:port" of the given URL.
-     *
-     * @param url the URL
-     * @return the host and port
+     * The winning domain for each port of a host, in parallel arrays for a lookup without boxing.
+     */
+    private static class DomainsByPort {
+
+        private final int[] ports;
+
+        private final HttpDomain[] domains;
+
+        DomainsByPort(Map<Integer, HttpDomain> map) {
+            this.ports = new int[map.size()];
+            this.domains = new HttpDomain[map.size()];
+            int i = 0;
+            for (Map.Entry<Integer, HttpDomain> entry : map.entrySet()) {
+                ports[i] = entry.getKey();
+                domains[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        HttpDomain get(int port) {
+            for (int i = 0; i < ports.length; i++) {
+                if (ports[i] == port) {
+                    return domains[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Cancels a dispatched request, also when it is cancelled before its context was created by the executor.
      */
-    private static String getHostAndPost(URL url) {
-        return url == null ? null : url.getPort() != null && url.getPort() != -1 ? url.getHost() + ":" + url.getPort() : url.getHost();
+    private static class Cancellation {
+
+        private HttpServerContext httpServerContext;
+
+        private boolean cancelled;
+
+        synchronized void attach(HttpServerContext httpServerContext) {
+            this.httpServerContext = httpServerContext;
+            if (cancelled) {
+                httpServerContext.cancel();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (httpServerContext != null) {
+                httpServerContext.cancel();
+            }
+        }
+    }
+
+    /**
+     * The hosts of the IPv4 and IPv6 ANY address binds, as in "0.0.0.0:port" and ":::port".
+     */
+    private static final String[] ANY_HOSTS = { "0.0.0.0", "::" };
+
+    private static final Map<HttpMethod, Set<HttpMethod>> METHODS = createMethods();
+
+    private static Map<HttpMethod, Set<HttpMethod>> createMethods() {
+        Map<HttpMethod, Set<HttpMethod>> map = new EnumMap<>(HttpMethod.class);
+        for (HttpMethod httpMethod : HttpMethod.values()) {
+            map.put(httpMethod, Set.of(httpMethod));
+        }
+        return map;
+    }
+
+    private static final ScheduledThreadPoolExecutor DEADLINES = createDeadlineScheduler();
+
+    private static ScheduledThreadPoolExecutor createDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "org-xbib-net-http-server-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // most requests complete before their deadline, do not keep the cancelled timers
+        scheduledThreadPoolExecutor.setRemoveOnCancelPolicy(true);
+        return scheduledThreadPoolExecutor;
     }
 }
@@ -2,16 +2,19 @@ package org.xbib.net.http.server.route;
 
 import org.xbib.net.http.server.HttpDomain;
 import org.xbib.net.http.server.HttpHandler;
+import org.xbib.net.http.server.HttpService;
 import org.xbib.net.http.server.handler.BadRequestHandler;
 import org.xbib.net.http.server.handler.ForbiddenHandler;
 import org.xbib.net.http.server.handler.InternalServerErrorHandler;
 import org.xbib.net.http.server.handler.NotFoundHandler;
 import org.xbib.net.http.server.handler.NotImplementedHandler;
+import org.xbib.net.http.server.handler.ServiceUnavailableHandler;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.xbib.net.http.server.handler.UnauthorizedHandler;
 import org.xbib.net.http.server.handler.VersionNotSupportedHandler;
@@ -22,8 +25,14 @@ public class BaseHttpRouterBuilder implements HttpRouterBuilder {
 
     protected final Map<Integer, HttpHandler> handlers;
 
+    protected Supplier<HttpRouteResolver.Builder<HttpService>> httpRouteResolverBuilder;
+
+    protected int routeCacheSize;
+
     protected BaseHttpRouterBuilder() {
         domains = new ArrayList<>();
+        httpRouteResolverBuilder = BaseHttpRouteResolver::builder;
+        routeCacheSize = 0;
         handlers = new HashMap<>();
         handlers.put(400, new BadRequestHandler());
         handlers.put(401, new UnauthorizedHandler());
@@ -31,6 +40,7 @@ public class BaseHttpRouterBuilder implements HttpRouterBuilder {
         handlers.put(404, new NotFoundHandler());
         handlers.put(500, new InternalServerErrorHandler());
         handlers.put(501, new NotImplementedHandler());
+        handlers.put(503, new ServiceUnavailableHandler());
         handlers.put(505, new VersionNotSupportedHandler());
     }
 
@@ -46,6 +56,29 @@ public class BaseHttpRouterBuilder implements HttpRouterBuilder {
         return this;
     }
 
+    /**
+     * Select the route resolver implementation, for example {@code RadixHttpRouteResolver::builder}
+     * for large route tables, or {@code CompiledHttpRouteResolver::builder} for route matchers
+     * generated as bytecode when the router is built.
+     * @param httpRouteResolverBuilder the supplier of route resolver builders
+     * @return this builder
+     */
+    public BaseHttpRouterBuilder setHttpRouteResolverBuilder(Supplier<HttpRouteResolver.Builder<HttpService>> httpRouteResolverBuilder) {
+        this.httpRouteResolverBuilder = httpRouteResolverBuilder;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of route resolution results kept in a cache, or 0 for no cache.
+     * Services that are not route cacheable are always resolved again.
+     * @param routeCacheSize the maximum number of cached results
+     * @return this builder
+     */
+    public BaseHttpRouterBuilder setRouteCacheSize(int routeCacheSize) {
+        this.routeCacheSize = routeCacheSize;
+        return this;
+    }
+
     @Override
     public BaseHttpRouter build() {
         if (domains.isEmpty()) {
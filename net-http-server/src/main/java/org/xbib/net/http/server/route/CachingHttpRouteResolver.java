@@ -0,0 +1,187 @@
+package org.xbib.net.http.server.route;
+
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A route resolver that keeps the results of another route resolver in a bounded cache,
+ * keyed by address, method and path of the requested route.
+ * Lookups do not lock, a hit only sets the referenced bit of the entry. When the cache is full,
+ * entries are evicted with the clock algorithm, an approximation of LRU: the clock hand sweeps the entries,
+ * clears the referenced bits, and evicts the first entry that was not referenced since the last sweep.
+ * The cache may briefly hold a few entries more than its maximum size while another thread is evicting.
+ * Results with a value that is not cacheable, because their resolution depends on more than the path,
+ * are never stored, and neither are paths without any route.
+ *
+ * @param <T> the route value type
+ */
+public class CachingHttpRouteResolver<T> implements HttpRouteResolver<T> {
+
+    private final HttpRouteResolver<T> httpRouteResolver;
+
+    private final Predicate<T> cacheable;
+
+    private final int maximumSize;
+
+    private final ConcurrentHashMap<Key, Entry<T>> cache;
+
+    private final ReentrantLock evictionLock;
+
+    private Iterator<Entry<T>> clockHand;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    public CachingHttpRouteResolver(HttpRouteResolver<T> httpRouteResolver, int maximumSize) {
+        this(httpRouteResolver, maximumSize, value -> true);
+    }
+
+    public CachingHttpRouteResolver(HttpRouteResolver<T> httpRouteResolver, int maximumSize, Predicate<T> cacheable) {
+        Objects.requireNonNull(httpRouteResolver, "resolver");
+        Objects.requireNonNull(cacheable, "cacheable");
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be positive");
+        }
+        this.httpRouteResolver = httpRouteResolver;
+        this.cacheable = cacheable;
+        this.maximumSize = maximumSize;
+        this.cache = new ConcurrentHashMap<>();
+        this.evictionLock = new ReentrantLock();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    @Override
+    public void resolve(HttpRoute httpRoute, ResultListener<T> listener) {
+        Key key = new Key(httpRoute.getHttpAddress(), httpRoute.getHttpMethods().iterator().next(), httpRoute.getPath());
+        Entry<T> entry = cache.get(key);
+        List<Result<T>> results;
+        if (entry != null) {
+            hits.increment();
+            // read before write, so hot entries are not written on every hit
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            results = entry.results;
+        } else {
+            misses.increment();
+            List<Result<T>> list = new ArrayList<>();
+            httpRouteResolver.resolve(httpRoute, list::add);
+            results = List.copyOf(list);
+            // misses are not cached, a scan of unknown paths must not evict the routes in use
+            if (!results.isEmpty() && results.stream().allMatch(result -> cacheable.test(result.getValue()))) {
+                cache.putIfAbsent(key, new Entry<>(results));
+                if (cache.size() > maximumSize) {
+                    evict();
+                }
+            }
+        }
+        if (listener != null) {
+            for (Result<T> result : results) {
+                listener.onResult(result);
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Move the clock hand until the cache is within its maximum size. Only one thread evicts at a time,
+     * other threads do not wait for it.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (cache.size() > maximumSize) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = cache.values().iterator();
+                    if (!clockHand.hasNext()) {
+                        return;
+                    }
+                }
+                Entry<T> entry = clockHand.next();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    clockHand.remove();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static class Entry<T> {
+
+        private final List<Result<T>> results;
+
+        private volatile boolean referenced;
+
+        Entry(List<Result<T>> results) {
+            this.results = results;
+        }
+    }
+
+    private static class Key {
+
+        private final HttpAddress httpAddress;
+
+        private final HttpMethod httpMethod;
+
+        private final String path;
+
+        private final int hashCode;
+
+        Key(HttpAddress httpAddress, HttpMethod httpMethod, String path) {
+            this.httpAddress = httpAddress;
+            this.httpMethod = httpMethod;
+            this.path = path;
+            this.hashCode = 31 * (31 * httpAddress.hashCode() + httpMethod.hashCode()) + path.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return httpMethod == key.httpMethod &&
+                    Objects.equals(path, key.path) &&
+                    Objects.equals(httpAddress, key.httpAddress);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
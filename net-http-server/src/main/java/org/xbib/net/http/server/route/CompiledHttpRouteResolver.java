@@ -0,0 +1,156 @@
+package org.xbib.net.http.server.route;
+
+import java.util.Set;
+import org.xbib.net.Parameter;
+import org.xbib.net.ParameterBuilder;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A route resolver that compiles the trie of {@link RadixHttpRouteResolver} into bytecode when it is built,
+ * one generated matcher class per address and method. The literal segments are selected by switch statements
+ * and the parameters are extracted without interpreting route segments.
+ * Matching follows the rules of {@link BaseHttpRoute#matches}, and results are delivered in the same
+ * order as {@link BaseHttpRouteResolver} would deliver them.
+ *
+ * @param <T> the route value type
+ */
+public class CompiledHttpRouteResolver<T> implements HttpRouteResolver<T> {
+
+    private final Builder<T> builder;
+
+    private final Map<HttpAddress, Map<HttpMethod, Compiled<T>>> matchers;
+
+    private CompiledHttpRouteResolver(Builder<T> builder, Map<HttpAddress, Map<HttpMethod, Compiled<T>>> matchers) {
+        this.builder = builder;
+        this.matchers = matchers;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Runs the generated matcher of the requested address and method and collects the matching routes.
+     * @param httpRoute the route to match against
+     * @param listener the listener where the results are going
+     */
+    @Override
+    public void resolve(HttpRoute httpRoute, ResultListener<T> listener) {
+        if (listener == null) {
+            return;
+        }
+        Map<HttpMethod, Compiled<T>> matchersByMethod = matchers.get(httpRoute.getHttpAddress());
+        if (matchersByMethod == null) {
+            return;
+        }
+        Compiled<T> compiled = matchersByMethod.get(httpRoute.getHttpMethods().iterator().next());
+        if (compiled == null) {
+            return;
+        }
+        PathSegments segments = httpRoute instanceof BaseHttpRoute ?
+                ((BaseHttpRoute) httpRoute).getPathSegments() : PathSegments.of(httpRoute.getPath());
+        BitSet matches = new BitSet(compiled.values.size());
+        compiled.matcher.match(segments, matches);
+        if (matches.isEmpty()) {
+            return;
+        }
+        List<String> context = segments.context(builder.prefix);
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            ParameterBuilder parameterBuilder = Parameter.builder();
+            compiled.matcher.parameters(i, segments, parameterBuilder);
+            listener.onResult(new BaseHttpRouteResolver.Result<>(compiled.values.get(i), context, parameterBuilder.build()));
+        }
+    }
+
+    public static class Builder<T> implements HttpRouteResolver.Builder<T> {
+
+        private final List<Map.Entry<HttpRoute, T>> routes;
+
+        private String prefix;
+
+        private boolean sort;
+
+        private Builder() {
+            this.prefix = "";
+            this.routes = new ArrayList<>();
+            this.sort = false;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpAddress httpAddress, HttpMethod httpMethod, String path, T value) {
+            add(new BaseHttpRoute(httpAddress, Set.of(httpMethod), prefix + path, false), value);
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpAddress httpAddress, Set<HttpMethod> httpMethods, String path, T value) {
+            add(new BaseHttpRoute(httpAddress, httpMethods, prefix + path, false), value);
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpRoute httpRoute, T value) {
+            routes.add(Map.entry(httpRoute, value));
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> sort(boolean sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        public HttpRouteResolver.Builder<T> setPrefix(String prefix) {
+            this.prefix = prefix;
+            return this;
+        }
+
+        @Override
+        public CompiledHttpRouteResolver<T> build() {
+            if (sort) {
+                routes.sort(Comparator.comparing((Map.Entry<HttpRoute, T> e) -> e.getKey().getSortKey()).reversed());
+            }
+            Map<HttpAddress, Map<HttpMethod, RouteTree<T>>> trees = new HashMap<>();
+            for (Map.Entry<HttpRoute, T> route : routes) {
+                HttpRoute httpRoute = route.getKey();
+                BaseHttpRoute baseHttpRoute = httpRoute instanceof BaseHttpRoute ? (BaseHttpRoute) httpRoute :
+                        new BaseHttpRoute(httpRoute.getHttpAddress(), httpRoute.getHttpMethods(), httpRoute.getPath(), false);
+                for (HttpMethod httpMethod : baseHttpRoute.getHttpMethods()) {
+                    trees.computeIfAbsent(baseHttpRoute.getHttpAddress(), k -> new HashMap<>())
+                            .computeIfAbsent(httpMethod, k -> new RouteTree<>())
+                            .insert(baseHttpRoute, route.getValue());
+                }
+            }
+            Map<HttpAddress, Map<HttpMethod, Compiled<T>>> matchers = new HashMap<>();
+            trees.forEach((httpAddress, map) -> map.forEach((httpMethod, tree) -> {
+                tree.build();
+                matchers.computeIfAbsent(httpAddress, k -> new HashMap<>())
+                        .put(httpMethod, new Compiled<>(tree));
+            }));
+            return new CompiledHttpRouteResolver<>(this, matchers);
+        }
+    }
+
+    private static class Compiled<T> {
+
+        private final CompiledRouteMatcher matcher;
+
+        private final List<T> values;
+
+        Compiled(RouteTree<T> tree) {
+            this.matcher = CompiledRouteMatcher.compile(tree);
+            this.values = new ArrayList<>(tree.size());
+            for (RouteTree.Entry<T> entry : tree.entries) {
+                values.add(entry.value);
+            }
+        }
+    }
+}
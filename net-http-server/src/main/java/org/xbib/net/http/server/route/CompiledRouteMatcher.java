@@ -0,0 +1,244 @@
+package org.xbib.net.http.server.route;
+
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+import org.xbib.net.ParameterBuilder;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A route matcher generated from a {@link RouteTree}. Every node of the tree becomes a method,
+ * the literal children of a node are selected by a switch over the hash code of the requested segment,
+ * and the parameters of every route are extracted by straight-line code.
+ */
+abstract class CompiledRouteMatcher {
+
+    String[] literals;
+
+    String[] names;
+
+    BaseHttpRoute.PatternSegment[] patterns;
+
+    CompiledRouteMatcher() {
+    }
+
+    /**
+     * Set the numbers of the routes matching the requested path.
+     * @param segments the segments of the requested path
+     * @param matches the bits of the matching routes
+     */
+    public abstract void match(PathSegments segments, BitSet matches);
+
+    /**
+     * Add the parameters of a matching route.
+     * @param index the route number
+     * @param segments the segments of the requested path
+     * @param parameterBuilder the parameter builder
+     */
+    public abstract void parameters(int index, PathSegments segments, ParameterBuilder parameterBuilder);
+
+    boolean glob(int i, String string) {
+        return patterns[i].matches(string);
+    }
+
+    static CompiledRouteMatcher compile(RouteTree<?> tree) {
+        Generator generator = new Generator();
+        generator.generate(tree);
+        String className = CompiledRouteMatcher.class.getName() + "$Generated" + COUNTER.incrementAndGet();
+        ClassPool classPool = new ClassPool(true);
+        classPool.appendClassPath(new LoaderClassPath(CompiledRouteMatcher.class.getClassLoader()));
+        try {
+            CtClass ctClass = classPool.makeClass(className, classPool.get(CompiledRouteMatcher.class.getName()));
+            ctClass.addConstructor(CtNewConstructor.defaultConstructor(ctClass));
+            // declare all methods before compiling the bodies, the methods call each other
+            List<CtMethod> ctMethods = new ArrayList<>();
+            for (String[] method : generator.methods) {
+                CtMethod ctMethod = CtNewMethod.make(method[0] + " { }", ctClass);
+                ctClass.addMethod(ctMethod);
+                ctMethods.add(ctMethod);
+            }
+            for (int i = 0; i < ctMethods.size(); i++) {
+                ctMethods.get(i).setBody(generator.methods.get(i)[1]);
+            }
+            byte[] bytecode = ctClass.toBytecode();
+            ctClass.detach();
+            // a hidden class is not registered in the class loader, it is unloaded together with the matcher,
+            // so rebuilding routers does not fill the metaspace
+            Class<?> cl = MethodHandles.lookup().defineHiddenClass(bytecode, true).lookupClass();
+            CompiledRouteMatcher matcher = (CompiledRouteMatcher) cl.getDeclaredConstructor().newInstance();
+            matcher.literals = generator.literals.toArray(new String[0]);
+            matcher.names = generator.names.toArray(new String[0]);
+            matcher.patterns = generator.patterns.toArray(new BaseHttpRoute.PatternSegment[0]);
+            return matcher;
+        } catch (NotFoundException | CannotCompileException | IOException | ReflectiveOperationException e) {
+            throw new IllegalStateException("unable to compile route matcher " + className, e);
+        }
+    }
+
+    /**
+     * Generates the Java source of the matcher methods, in the dialect understood by the javassist compiler.
+     * Large switches are split into methods over ranges of the keys, to keep every method small enough
+     * for the JIT compiler.
+     */
+    static class Generator {
+
+        private static final String SEGMENTS = PathSegments.class.getName();
+
+        private static final String NODE_PARAMS = SEGMENTS + " s, int d, java.util.BitSet m";
+
+        private static final String NODE_ARGS = "s, d, m";
+
+        private static final String PARAMETER_PARAMS = SEGMENTS + " s, " + ParameterBuilder.class.getName() + " p";
+
+        private static final String PARAMETER_ARGS = "s, p";
+
+        private static final int MAX_CASES = 64;
+
+        final List<String[]> methods;
+
+        final List<String> literals;
+
+        final List<String> names;
+
+        final List<BaseHttpRoute.PatternSegment> patterns;
+
+        private final Map<String, Integer> literalIndex;
+
+        private int counter;
+
+        Generator() {
+            this.methods = new ArrayList<>();
+            this.literals = new ArrayList<>();
+            this.names = new ArrayList<>();
+            this.patterns = new ArrayList<>();
+            this.literalIndex = new HashMap<>();
+        }
+
+        void generate(RouteTree<?> tree) {
+            StringBuilder sb = new StringBuilder("{ ");
+            for (RouteTree.Entry<?> entry : tree.globs) {
+                sb.append("if (glob(").append(pattern(entry.glob)).append(", s.getPath())) { m.set(")
+                        .append(entry.index).append("); } ");
+            }
+            sb.append(node(tree.root)).append("(s, 0, m); }");
+            methods.add(new String[] { "public void match(" + SEGMENTS + " s, java.util.BitSet m)", sb.toString() });
+            TreeMap<Integer, String> cases = new TreeMap<>();
+            for (RouteTree.Entry<?> entry : tree.entries) {
+                if (entry.parameterNames.length > 0) {
+                    StringBuilder body = new StringBuilder();
+                    for (int i = 0; i < entry.parameterNames.length; i++) {
+                        names.add(entry.parameterNames[i]);
+                        body.append("p.add(this.names[").append(names.size() - 1).append("], s.get(")
+                                .append(entry.parameterPositions[i]).append(")); ");
+                    }
+                    cases.put(entry.index, body.toString());
+                }
+            }
+            methods.add(new String[] { "public void parameters(int r, " + PARAMETER_PARAMS + ")",
+                    "{ " + select("r", PARAMETER_PARAMS, PARAMETER_ARGS, cases) + " }" });
+        }
+
+        private String node(RouteTree.Node<?> node) {
+            String name = "n" + counter++;
+            String[] method = new String[] { "public void " + name + "(" + NODE_PARAMS + ")", null };
+            methods.add(method);
+            StringBuilder sb = new StringBuilder("{ ");
+            for (RouteTree.Entry<?> entry : node.catchAll) {
+                sb.append("m.set(").append(entry.index).append("); ");
+            }
+            sb.append("if (d == s.size()) { ");
+            for (RouteTree.Entry<?> entry : node.terminal) {
+                sb.append("m.set(").append(entry.index).append("); ");
+            }
+            sb.append("return; } ");
+            if (!node.literals.isEmpty()) {
+                TreeMap<Integer, String> cases = new TreeMap<>();
+                for (Map.Entry<String, ? extends RouteTree.Node<?>> entry : node.literals.entrySet()) {
+                    RouteTree.Node<?> child = entry.getValue();
+                    StringBuilder condition = new StringBuilder();
+                    if (child.label.length > 1) {
+                        condition.append("d + ").append(child.label.length).append(" <= s.size() && ");
+                    }
+                    for (int i = 0; i < child.label.length; i++) {
+                        if (i > 0) {
+                            condition.append(" && ");
+                        }
+                        condition.append("s.equals(").append(i == 0 ? "d" : "d + " + i).append(", this.literals[")
+                                .append(literal(child.label[i])).append("])");
+                    }
+                    String body = "if (" + condition + ") { " + node(child) + "(s, d + " + child.label.length + ", m); } ";
+                    cases.merge(entry.getKey().hashCode() & Integer.MAX_VALUE, body, String::concat);
+                }
+                sb.append("int h = s.hashCode(d) & ").append(Integer.MAX_VALUE).append("; ")
+                        .append(select("h", NODE_PARAMS, NODE_ARGS, cases)).append(' ');
+            }
+            if (node.parameter != null) {
+                sb.append(node(node.parameter)).append("(s, d + 1, m); ");
+            }
+            if (!node.patterns.isEmpty()) {
+                sb.append("String g = s.get(d); ");
+                for (RouteTree.Node<?> patternNode : node.patterns.values()) {
+                    sb.append("if (glob(").append(pattern(patternNode.patternSegment)).append(", g)) { ")
+                            .append(node(patternNode)).append("(s, d + 1, m); } ");
+                }
+            }
+            method[1] = sb.append('}').toString();
+            return name;
+        }
+
+        /**
+         * A switch over non-negative keys. If there are too many cases, the keys are split into two ranges
+         * and every range is delegated to a method of its own.
+         */
+        private String select(String key, String params, String args, TreeMap<Integer, String> cases) {
+            if (cases.isEmpty()) {
+                return "";
+            }
+            if (cases.size() <= MAX_CASES) {
+                StringBuilder sb = new StringBuilder("switch (").append(key).append(") { ");
+                for (Map.Entry<Integer, String> entry : cases.entrySet()) {
+                    sb.append("case ").append(entry.getKey()).append(": ").append(entry.getValue()).append("break; ");
+                }
+                return sb.append("default: break; }").toString();
+            }
+            int pivot = new ArrayList<>(cases.keySet()).get(cases.size() / 2);
+            String lower = "s" + counter++;
+            String upper = "s" + counter++;
+            String declaration = "(" + params + ", int " + key + ")";
+            methods.add(new String[] { "public void " + lower + declaration,
+                    "{ " + select(key, params, args, new TreeMap<>(cases.headMap(pivot))) + " }" });
+            methods.add(new String[] { "public void " + upper + declaration,
+                    "{ " + select(key, params, args, new TreeMap<>(cases.tailMap(pivot))) + " }" });
+            return "if (" + key + " < " + pivot + ") { " + lower + "(" + args + ", " + key + "); } else { " +
+                    upper + "(" + args + ", " + key + "); }";
+        }
+
+        private int literal(String string) {
+            return literalIndex.computeIfAbsent(string, k -> {
+                literals.add(k);
+                return literals.size() - 1;
+            });
+        }
+
+        private int pattern(BaseHttpRoute.PatternSegment patternSegment) {
+            patterns.add(patternSegment);
+            return patterns.size() - 1;
+        }
+    }
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+}
@@ -15,5 +15,14 @@ public interface HttpRoute {
 
     boolean matches(ParameterBuilder parameterBuilder, HttpRoute requestedRoute);
 
+    /**
+     * Check if a requested route matches, without collecting path parameters.
+     * @param requestedRoute the requested route
+     * @return true if the requested route matches
+     */
+    default boolean matches(HttpRoute requestedRoute) {
+        return matches(null, requestedRoute);
+    }
+
     String getSortKey();
 }
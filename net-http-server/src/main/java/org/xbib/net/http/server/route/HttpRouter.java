@@ -9,6 +9,7 @@ import org.xbib.net.http.server.HttpResponseBuilder;
 import org.xbib.net.http.server.HttpServerContext;
 
 import java.util.Collection;
+import java.util.concurrent.Executor;
 
 public interface HttpRouter {
 
@@ -20,6 +21,17 @@ public interface HttpRouter {
 
     void route(HttpRequestBuilder requestBuilder, HttpResponseBuilder responseBuilder);
 
+    /**
+     * Route a request, handing the execution of the request over to an executor.
+     * A router may execute requests for non-blocking services directly on the calling thread.
+     * @param requestBuilder the request builder
+     * @param responseBuilder the response builder
+     * @param executor the executor for requests that may block
+     */
+    default void route(HttpRequestBuilder requestBuilder, HttpResponseBuilder responseBuilder, Executor executor) {
+        executor.execute(() -> route(requestBuilder, responseBuilder));
+    }
+
     void routeException(HttpException e);
 
     void routeStatus(HttpResponseStatus httpResponseStatus, HttpServerContext httpServerContext);
@@ -0,0 +1,152 @@
+package org.xbib.net.http.server.route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The non-empty, slash-separated segments of a path, kept as offsets into the original path string.
+ * Segments can be compared with strings without creating substrings.
+ */
+public final class PathSegments {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final String path;
+
+    private final int[] offsets;
+
+    private PathSegments(String path, int[] offsets) {
+        this.path = path;
+        this.offsets = offsets;
+    }
+
+    public static PathSegments of(String path) {
+        int count = count(path, 0);
+        if (count == 0) {
+            return new PathSegments(path, EMPTY);
+        }
+        int[] offsets = new int[count * 2];
+        int n = 0;
+        int start = -1;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                if (start >= 0) {
+                    offsets[n++] = start;
+                    offsets[n++] = i;
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            offsets[n++] = start;
+            offsets[n] = path.length();
+        }
+        return new PathSegments(path, offsets);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int size() {
+        return offsets.length / 2;
+    }
+
+    public int start(int i) {
+        return offsets[2 * i];
+    }
+
+    public int end(int i) {
+        return offsets[2 * i + 1];
+    }
+
+    public int length(int i) {
+        return offsets[2 * i + 1] - offsets[2 * i];
+    }
+
+    /**
+     * Compare a segment with a string.
+     * @param i the segment index
+     * @param string the string
+     * @return true if the segment equals the string
+     */
+    public boolean equals(int i, String string) {
+        int start = offsets[2 * i];
+        int length = offsets[2 * i + 1] - start;
+        return string.length() == length && path.regionMatches(start, string, 0, length);
+    }
+
+    /**
+     * The hash code of a segment, equal to the hash code of the segment as a string.
+     * @param i the segment index
+     * @return the hash code
+     */
+    public int hashCode(int i) {
+        int h = 0;
+        for (int j = offsets[2 * i]; j < offsets[2 * i + 1]; j++) {
+            h = 31 * h + path.charAt(j);
+        }
+        return h;
+    }
+
+    /**
+     * Returns a segment as a new string.
+     * @param i the segment index
+     * @return the segment string
+     */
+    public String get(int i) {
+        return path.substring(offsets[2 * i], offsets[2 * i + 1]);
+    }
+
+    /**
+     * Returns the segments after a leading prefix of the path, as strings.
+     * The prefix is a literal string. If the path does not start with the prefix, all segments are returned.
+     * @param prefix the prefix
+     * @return the list of segments after the prefix
+     */
+    public List<String> context(String prefix) {
+        int from = prefix != null && !prefix.isEmpty() && path.startsWith(prefix) ? prefix.length() : 0;
+        List<String> list = new ArrayList<>(count(path, from));
+        int start = -1;
+        for (int i = from; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                if (start >= 0) {
+                    list.add(path.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            list.add(path.substring(start));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size(); i++) {
+            sb.append('/').append(path, start(i), end(i));
+        }
+        return sb.toString();
+    }
+
+    private static int count(String path, int from) {
+        int count = 0;
+        boolean inSegment = false;
+        for (int i = from; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                inSegment = false;
+            } else if (!inSegment) {
+                inSegment = true;
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,138 @@
+package org.xbib.net.http.server.route;
+
+import java.util.Set;
+import org.xbib.net.Parameter;
+import org.xbib.net.ParameterBuilder;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A route resolver that indexes the route segments in a compressed trie, one trie per address and method.
+ * Lookup cost depends on the depth of the requested path, not on the number of configured routes.
+ * Matching follows the rules of {@link BaseHttpRoute#matches}, and results are delivered in the same
+ * order as {@link BaseHttpRouteResolver} would deliver them.
+ *
+ * @param <T> the route value type
+ */
+public class RadixHttpRouteResolver<T> implements HttpRouteResolver<T> {
+
+    private final Builder<T> builder;
+
+    private final Map<HttpAddress, Map<HttpMethod, RouteTree<T>>> trees;
+
+    private RadixHttpRouteResolver(Builder<T> builder, Map<HttpAddress, Map<HttpMethod, RouteTree<T>>> trees) {
+        this.builder = builder;
+        this.trees = trees;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Walks down the trie of the requested address and method and collects the matching routes.
+     * @param httpRoute the route to match against
+     * @param listener the listener where the results are going
+     */
+    @Override
+    public void resolve(HttpRoute httpRoute, ResultListener<T> listener) {
+        if (listener == null) {
+            return;
+        }
+        Map<HttpMethod, RouteTree<T>> treesByMethod = trees.get(httpRoute.getHttpAddress());
+        if (treesByMethod == null) {
+            return;
+        }
+        RouteTree<T> tree = treesByMethod.get(httpRoute.getHttpMethods().iterator().next());
+        if (tree == null) {
+            return;
+        }
+        PathSegments segments = httpRoute instanceof BaseHttpRoute ?
+                ((BaseHttpRoute) httpRoute).getPathSegments() : PathSegments.of(httpRoute.getPath());
+        BitSet matches = new BitSet(tree.size());
+        tree.match(httpRoute.getPath(), segments, matches);
+        if (matches.isEmpty()) {
+            return;
+        }
+        List<String> context = segments.context(builder.prefix);
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            RouteTree.Entry<T> entry = tree.entries.get(i);
+            ParameterBuilder parameterBuilder = Parameter.builder();
+            for (int j = 0; j < entry.parameterPositions.length; j++) {
+                parameterBuilder.add(entry.parameterNames[j], segments.get(entry.parameterPositions[j]));
+            }
+            listener.onResult(new BaseHttpRouteResolver.Result<>(entry.value, context, parameterBuilder.build()));
+        }
+    }
+
+    public static class Builder<T> implements HttpRouteResolver.Builder<T> {
+
+        private final List<Map.Entry<HttpRoute, T>> routes;
+
+        private String prefix;
+
+        private boolean sort;
+
+        private Builder() {
+            this.prefix = "";
+            this.routes = new ArrayList<>();
+            this.sort = false;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpAddress httpAddress, HttpMethod httpMethod, String path, T value) {
+            add(new BaseHttpRoute(httpAddress, Set.of(httpMethod), prefix + path, false), value);
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpAddress httpAddress, Set<HttpMethod> httpMethods, String path, T value) {
+            add(new BaseHttpRoute(httpAddress, httpMethods, prefix + path, false), value);
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> add(HttpRoute httpRoute, T value) {
+            routes.add(Map.entry(httpRoute, value));
+            return this;
+        }
+
+        @Override
+        public HttpRouteResolver.Builder<T> sort(boolean sort) {
+            this.sort = sort;
+            return this;
+        }
+
+        public HttpRouteResolver.Builder<T> setPrefix(String prefix) {
+            this.prefix = prefix;
+            return this;
+        }
+
+        @Override
+        public RadixHttpRouteResolver<T> build() {
+            if (sort) {
+                routes.sort(Comparator.comparing((Map.Entry<HttpRoute, T> e) -> e.getKey().getSortKey()).reversed());
+            }
+            Map<HttpAddress, Map<HttpMethod, RouteTree<T>>> trees = new HashMap<>();
+            for (Map.Entry<HttpRoute, T> route : routes) {
+                HttpRoute httpRoute = route.getKey();
+                BaseHttpRoute baseHttpRoute = httpRoute instanceof BaseHttpRoute ? (BaseHttpRoute) httpRoute :
+                        new BaseHttpRoute(httpRoute.getHttpAddress(), httpRoute.getHttpMethods(), httpRoute.getPath(), false);
+                for (HttpMethod httpMethod : baseHttpRoute.getHttpMethods()) {
+                    trees.computeIfAbsent(baseHttpRoute.getHttpAddress(), k -> new HashMap<>())
+                            .computeIfAbsent(httpMethod, k -> new RouteTree<>())
+                            .insert(baseHttpRoute, route.getValue());
+                }
+            }
+            trees.values().forEach(map -> map.values().forEach(RouteTree::build));
+            return new RadixHttpRouteResolver<>(this, trees);
+        }
+    }
+}
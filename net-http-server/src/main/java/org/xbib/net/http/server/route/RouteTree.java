@@ -0,0 +1,262 @@
+package org.xbib.net.http.server.route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compressed trie of route segments for one address and method.
+ * The routes are numbered in insertion order, matches are collected as bits of these numbers.
+ *
+ * @param <T> the route value type
+ */
+class RouteTree<T> {
+
+    final Node<T> root;
+
+    final List<Entry<T>> entries;
+
+    final List<Entry<T>> globs;
+
+    RouteTree() {
+        this.root = new Node<>(new String[0]);
+        this.entries = new ArrayList<>();
+        this.globs = new ArrayList<>();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void insert(BaseHttpRoute httpRoute, T value) {
+        List<BaseHttpRoute.RouteSegment> segments = httpRoute.getSegments();
+        List<Integer> positions = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Node<T> node = root;
+        boolean catchAll = false;
+        for (int i = 0; i < segments.size() && !catchAll; i++) {
+            BaseHttpRoute.RouteSegment segment = segments.get(i);
+            if (segment instanceof BaseHttpRoute.CatchAllSegment) {
+                catchAll = true;
+            } else if (segment instanceof BaseHttpRoute.StringSegment) {
+                String string = ((BaseHttpRoute.StringSegment) segment).getString();
+                node = node.literals.computeIfAbsent(string, k -> new Node<>(new String[] { k }));
+            } else if (segment instanceof BaseHttpRoute.ParameterSegment) {
+                positions.add(i);
+                names.add(((BaseHttpRoute.ParameterSegment) segment).getName());
+                if (node.parameter == null) {
+                    node.parameter = new Node<>(new String[0]);
+                }
+                node = node.parameter;
+            } else if (segment instanceof BaseHttpRoute.PatternSegment) {
+                BaseHttpRoute.PatternSegment patternSegment = (BaseHttpRoute.PatternSegment) segment;
+                node = node.patterns.computeIfAbsent(patternSegment.getPattern(), k -> {
+                    Node<T> n = new Node<>(new String[0]);
+                    n.patternSegment = patternSegment;
+                    return n;
+                });
+            }
+        }
+        Entry<T> entry = new Entry<>(entries.size(), value, positions, names);
+        entries.add(entry);
+        if (catchAll) {
+            node.catchAll.add(entry);
+        } else {
+            node.terminal.add(entry);
+        }
+        if (segments.size() == 1 && segments.get(0) instanceof BaseHttpRoute.PatternSegment) {
+            entry.glob = (BaseHttpRoute.PatternSegment) segments.get(0);
+            globs.add(entry);
+        }
+    }
+
+    /**
+     * Finish the tree after all routes are inserted.
+     */
+    void build() {
+        root.compress();
+        root.freeze();
+    }
+
+    /**
+     * Collect the numbers of the routes matching a path.
+     * @param path the path
+     * @param segments the segments of the path
+     * @param matches the bits of the matching routes
+     */
+    void match(String path, PathSegments segments, BitSet matches) {
+        // special case: single segment with pattern, the pattern is matched against the full path
+        for (Entry<T> entry : globs) {
+            if (entry.glob.matches(path)) {
+                matches.set(entry.index);
+            }
+        }
+        collect(root, segments, 0, matches);
+    }
+
+    private static <T> void collect(Node<T> node, PathSegments segments, int depth, BitSet matches) {
+        // a catch-all matches everything from here, even if there are no more requested segments
+        for (Entry<T> entry : node.catchAll) {
+            matches.set(entry.index);
+        }
+        if (depth == segments.size()) {
+            for (Entry<T> entry : node.terminal) {
+                matches.set(entry.index);
+            }
+            return;
+        }
+        Node<T> child = node.literal(segments, depth);
+        if (child != null && matchesLabel(child.label, segments, depth)) {
+            collect(child, segments, depth + child.label.length, matches);
+        }
+        if (node.parameter != null) {
+            collect(node.parameter, segments, depth + 1, matches);
+        }
+        if (!node.patterns.isEmpty()) {
+            String segment = segments.get(depth);
+            for (Node<T> patternNode : node.patterns.values()) {
+                if (patternNode.patternSegment.matches(segment)) {
+                    collect(patternNode, segments, depth + 1, matches);
+                }
+            }
+        }
+    }
+
+    private static boolean matchesLabel(String[] label, PathSegments segments, int depth) {
+        if (depth + label.length > segments.size()) {
+            return false;
+        }
+        // the first label segment is the key of the child and is already known to match
+        for (int i = 1; i < label.length; i++) {
+            if (!segments.equals(depth + i, label[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static class Node<T> {
+
+        String[] label;
+
+        Map<String, Node<T>> literals;
+
+        Node<T> parameter;
+
+        Map<String, Node<T>> patterns;
+
+        BaseHttpRoute.PatternSegment patternSegment;
+
+        List<Entry<T>> terminal;
+
+        List<Entry<T>> catchAll;
+
+        private String[] literalKeys;
+
+        private Node<T>[] literalNodes;
+
+        Node(String[] label) {
+            this.label = label;
+            this.literals = new HashMap<>();
+            this.patterns = new LinkedHashMap<>();
+            this.terminal = new ArrayList<>();
+            this.catchAll = new ArrayList<>();
+        }
+
+        /**
+         * Merge chains of literal nodes without branches or routes into a single node with a multi-segment label.
+         */
+        void compress() {
+            for (Node<T> child : literals.values()) {
+                while (child.isChain()) {
+                    Node<T> next = child.literals.values().iterator().next();
+                    String[] label = Arrays.copyOf(child.label, child.label.length + next.label.length);
+                    System.arraycopy(next.label, 0, label, child.label.length, next.label.length);
+                    child.label = label;
+                    child.literals = next.literals;
+                    child.parameter = next.parameter;
+                    child.patterns = next.patterns;
+                    child.terminal = next.terminal;
+                    child.catchAll = next.catchAll;
+                }
+                child.compress();
+            }
+            if (parameter != null) {
+                parameter.compress();
+            }
+            for (Node<T> patternNode : patterns.values()) {
+                patternNode.compress();
+            }
+        }
+
+        /**
+         * Build an open addressing table of the literal children, so a child can be found
+         * by a segment of the requested path without creating a string.
+         */
+        @SuppressWarnings("unchecked")
+        void freeze() {
+            int capacity = 1;
+            while (capacity < literals.size() * 2) {
+                capacity <<= 1;
+            }
+            literalKeys = new String[capacity];
+            literalNodes = (Node<T>[]) new Node<?>[capacity];
+            for (Map.Entry<String, Node<T>> entry : literals.entrySet()) {
+                int i = entry.getKey().hashCode() & (capacity - 1);
+                while (literalKeys[i] != null) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                literalKeys[i] = entry.getKey();
+                literalNodes[i] = entry.getValue();
+                entry.getValue().freeze();
+            }
+            if (parameter != null) {
+                parameter.freeze();
+            }
+            for (Node<T> patternNode : patterns.values()) {
+                patternNode.freeze();
+            }
+        }
+
+        Node<T> literal(PathSegments segments, int i) {
+            int mask = literalKeys.length - 1;
+            int pos = segments.hashCode(i) & mask;
+            while (literalKeys[pos] != null) {
+                if (segments.equals(i, literalKeys[pos])) {
+                    return literalNodes[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+            return null;
+        }
+
+        private boolean isChain() {
+            return literals.size() == 1 && parameter == null && patterns.isEmpty() &&
+                    terminal.isEmpty() && catchAll.isEmpty();
+        }
+    }
+
+    static class Entry<T> {
+
+        final int index;
+
+        final T value;
+
+        final int[] parameterPositions;
+
+        final String[] parameterNames;
+
+        BaseHttpRoute.PatternSegment glob;
+
+        Entry(int index, T value, List<Integer> positions, List<String> names) {
+            this.index = index;
+            this.value = value;
+            this.parameterPositions = positions.stream().mapToInt(Integer::intValue).toArray();
+            this.parameterNames = names.toArray(new String[0]);
+        }
+    }
+}
@@ -1,21 +1,50 @@
 package org.xbib.net.http.server.util;
 
+import java.time.Duration;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * A fixed thread pool with a bounded queue and admission control.
+ * Admission control follows the CoDel idea: the time a task spends in the queue is measured when the task starts.
+ * If this sojourn time stays above a target delay for a whole interval, the queue is a standing queue and the executor
+ * is overloaded. While overloaded, new tasks are rejected as long as there are queued tasks, so callers can answer
+ * early instead of letting the latency grow. The overload ends with the first task that was queued for less
+ * than the target delay.
+ */
 public class BlockingThreadPoolExecutor extends ThreadPoolExecutor {
 
     private final Logger logger = Logger.getLogger(BlockingThreadPoolExecutor.class.getName());
 
+    private final AtomicLong firstAboveTarget;
+
+    private final LongAdder rejected;
+
+    private final LongAdder waitCount;
+
+    private final LongAdder waitNanos;
+
+    private final AtomicLong maxWaitNanos;
+
+    private volatile long targetNanos;
+
+    private volatile long intervalNanos;
+
+    private volatile boolean overloaded;
+
     public BlockingThreadPoolExecutor(int nThreads, int maxQueue,
                                       ThreadFactory threadFactory) {
         this(nThreads, maxQueue, 60L, TimeUnit.SECONDS, threadFactory);
@@ -25,6 +54,12 @@ public class BlockingThreadPoolExecutor extends ThreadPoolExecutor {
                                       long keepAliveTime, TimeUnit timeUnit,
                                       ThreadFactory threadFactory) {
         super(nThreads, nThreads, keepAliveTime, timeUnit, createBlockingQueue(maxQueue), threadFactory);
+        this.firstAboveTarget = new AtomicLong();
+        this.rejected = new LongAdder();
+        this.waitCount = new LongAdder();
+        this.waitNanos = new LongAdder();
+        this.maxWaitNanos = new AtomicLong();
+        setRejectedExecutionHandler(new AbortPolicy());
         logger.log(Level.INFO, "blocking threadpool executor up with nThreads = " + nThreads +
                 " keepALiveTime = " + keepAliveTime +
                 " time unit = " + timeUnit +
@@ -32,16 +67,108 @@ public class BlockingThreadPoolExecutor extends ThreadPoolExecutor {
                 " thread factory = " + threadFactory);
     }
 
-    private static BlockingQueue<Runnable> createBlockingQueue(int max) {
-        return max == Integer.MAX_VALUE ? new SynchronousQueue<>(true) : new ArrayBlockingQueue<>(max);
+    /**
+     * Enable admission control by queue sojourn time.
+     * @param target the acceptable queue delay, or zero to disable admission control
+     * @param interval the time the queue delay must stay above the target before tasks are rejected
+     */
+    public void setLoadShedding(Duration target, Duration interval) {
+        this.targetNanos = target.toNanos();
+        this.intervalNanos = interval.toNanos();
+        this.overloaded = false;
+        firstAboveTarget.set(0L);
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * The number of tasks rejected, because the queue was full or the executor was overloaded.
+     * @return the number of rejected tasks
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * The number of tasks waiting in the queue.
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    /**
+     * The number of tasks that left the queue and started.
+     * @return the number of started tasks
+     */
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    /**
+     * The average time tasks spent in the queue before they started.
+     * @return the average queue wait time
+     */
+    public Duration getAverageWaitTime() {
+        long count = waitCount.sum();
+        return count > 0L ? Duration.ofNanos(waitNanos.sum() / count) : Duration.ZERO;
+    }
+
+    /**
+     * The longest time a task spent in the queue before it started.
+     * @return the maximum queue wait time
+     */
+    public Duration getMaxWaitTime() {
+        return Duration.ofNanos(maxWaitNanos.get());
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        if (overloaded && !getQueue().isEmpty()) {
+            reject(runnable);
+            return;
+        }
+        super.execute(new QueuedRunnable(runnable, System.nanoTime()));
+    }
+
+    /**
+     * Set the handler for rejected tasks. The default handler throws a {@link RejectedExecutionException}.
+     * @param handler the handler
+     */
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        super.setRejectedExecutionHandler((runnable, executor) -> {
+            rejected.increment();
+            handler.rejectedExecution(runnable instanceof QueuedRunnable ?
+                    ((QueuedRunnable) runnable).runnable : runnable, executor);
+        });
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        if (runnable instanceof QueuedRunnable) {
+            long now = System.nanoTime();
+            long sojourn = now - ((QueuedRunnable) runnable).enqueueNanos;
+            waitCount.increment();
+            waitNanos.add(sojourn);
+            maxWaitNanos.accumulateAndGet(sojourn, Math::max);
+            if (targetNanos > 0L) {
+                checkOverload(now, sojourn);
+            }
+        }
     }
 
     /*
      * Examine Throwable or Error of a thread after execution just to log them.
      */
     @Override
-    protected void afterExecute(Runnable runnable, Throwable terminationCause) {
-        super.afterExecute(runnable, terminationCause);
+    protected void afterExecute(Runnable queuedRunnable, Throwable terminationCause) {
+        super.afterExecute(queuedRunnable, terminationCause);
+        Runnable runnable = queuedRunnable instanceof QueuedRunnable ?
+                ((QueuedRunnable) queuedRunnable).runnable : queuedRunnable;
         logger.log(Level.FINE, "after dispatching " + runnable);
         Throwable throwable = terminationCause;
         if (throwable == null && runnable instanceof Future<?>) {
@@ -66,4 +193,52 @@ public class BlockingThreadPoolExecutor extends ThreadPoolExecutor {
             logger.log(Level.SEVERE, throwable.getMessage(), throwable);
         }
     }
+
+    private void checkOverload(long now, long sojourn) {
+        if (sojourn < targetNanos) {
+            firstAboveTarget.set(0L);
+            if (overloaded) {
+                overloaded = false;
+                logger.log(Level.INFO, "overload ended, queue delay = " + sojourn / 1000000L + " ms");
+            }
+        } else {
+            long first = firstAboveTarget.get();
+            if (first == 0L) {
+                firstAboveTarget.compareAndSet(0L, now + intervalNanos);
+            } else if (now - first >= 0L && !overloaded) {
+                overloaded = true;
+                logger.log(Level.WARNING, "overloaded, queue delay = " + sojourn / 1000000L + " ms, shedding load");
+            }
+        }
+    }
+
+    private void reject(Runnable runnable) {
+        getRejectedExecutionHandler().rejectedExecution(runnable, this);
+    }
+
+    private static BlockingQueue<Runnable> createBlockingQueue(int max) {
+        return max == Integer.MAX_VALUE ? new SynchronousQueue<>(true) : new ArrayBlockingQueue<>(max);
+    }
+
+    private static class QueuedRunnable implements Runnable {
+
+        private final Runnable runnable;
+
+        private final long enqueueNanos;
+
+        QueuedRunnable(Runnable runnable, long enqueueNanos) {
+            this.runnable = runnable;
+            this.enqueueNanos = enqueueNanos;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
+        }
+
+        @Override
+        public String toString() {
+            return runnable.toString();
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package org.xbib.net.http.server.util;
+
+import org.xbib.net.util.NamedThreadFactory;
+
+/**
+ * A named thread pool for a group of services, so that slow services can not starve the others.
+ * Every lane has its own threads and its own bounded queue, with queue depth and wait time metrics
+ * from {@link BlockingThreadPoolExecutor}.
+ */
+public class ExecutorLane extends BlockingThreadPoolExecutor {
+
+    private final String name;
+
+    public ExecutorLane(String name, int nThreads, int maxQueue) {
+        super(nThreads, maxQueue, new NamedThreadFactory("org-xbib-net-http-server-lane-" + name));
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "lane " + name +
+                " [threads = " + getPoolSize() +
+                ", active = " + getActiveCount() +
+                ", queued = " + getQueueDepth() +
+                ", average wait = " + getAverageWaitTime().toMillis() + " ms" +
+                ", max wait = " + getMaxWaitTime().toMillis() + " ms" +
+                ", rejected = " + getRejectedCount() + "]";
+    }
+}
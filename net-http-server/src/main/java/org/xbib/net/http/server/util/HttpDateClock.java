@@ -0,0 +1,70 @@
+package org.xbib.net.http.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The value of the HTTP Date header, shared by all responses. The value has a resolution of one second,
+ * so it is formatted at most once per second, by the first response in a new second.
+ */
+public final class HttpDateClock {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private static volatile Tick tick = new Tick(Instant.now().getEpochSecond());
+
+    private HttpDateClock() {
+    }
+
+    /**
+     * The current date for the Date header. The same string instance is returned during a second.
+     * @return the formatted current date
+     */
+    public static String getDate() {
+        return getDate(System.currentTimeMillis());
+    }
+
+    /**
+     * The current date for the Date header, as ASCII bytes. The array must not be modified.
+     * @return the formatted current date
+     */
+    public static byte[] getDateBytes() {
+        return getDateBytes(System.currentTimeMillis());
+    }
+
+    static String getDate(long currentTimeMillis) {
+        return current(currentTimeMillis).date;
+    }
+
+    static byte[] getDateBytes(long currentTimeMillis) {
+        return current(currentTimeMillis).bytes;
+    }
+
+    private static Tick current(long currentTimeMillis) {
+        Tick t = tick;
+        long second = currentTimeMillis / 1000L;
+        if (t.second != second) {
+            // concurrent updates in the same second format the same value, the last one wins
+            t = new Tick(second);
+            tick = t;
+        }
+        return t;
+    }
+
+    private static class Tick {
+
+        private final long second;
+
+        private final String date;
+
+        private final byte[] bytes;
+
+        Tick(long second) {
+            this.second = second;
+            this.date = FORMATTER.format(Instant.ofEpochSecond(second));
+            this.bytes = date.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
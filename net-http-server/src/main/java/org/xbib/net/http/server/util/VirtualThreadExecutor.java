@@ -0,0 +1,173 @@
+package org.xbib.net.http.server.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An executor that runs every task on a new virtual thread, with a limit of concurrently running tasks.
+ * Tasks over the limit wait on their virtual thread until a running task completes. If the number of running
+ * and waiting tasks would exceed the limit plus the maximum queue size, the task is rejected.
+ * The virtual thread API is looked up by reflection, so this class can be compiled and loaded on JDK 17,
+ * where {@link #isSupported()} returns false.
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger logger = Logger.getLogger(VirtualThreadExecutor.class.getName());
+
+    private final ExecutorService executorService;
+
+    private final Semaphore semaphore;
+
+    private final AtomicLong pending;
+
+    private final long maxPending;
+
+    public VirtualThreadExecutor(int nThreads, int maxQueue, String prefix) {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException("number of threads must be positive");
+        }
+        this.executorService = createExecutorService(prefix);
+        if (executorService == null) {
+            throw new UnsupportedOperationException("virtual threads are not supported");
+        }
+        this.semaphore = new Semaphore(nThreads, true);
+        this.pending = new AtomicLong();
+        this.maxPending = (long) nThreads + maxQueue;
+        logger.log(Level.INFO, "virtual thread executor up with nThreads = " + nThreads +
+                " maxQueue = " + maxQueue +
+                " prefix = " + prefix);
+    }
+
+    /**
+     * Check if the JDK supports virtual threads.
+     * @return true if virtual threads are supported
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new RejectedExecutionException("too many pending tasks, rejected " + runnable);
+        }
+        try {
+            executorService.execute(() -> {
+                try {
+                    semaphore.acquire();
+                    try {
+                        runnable.run();
+                    } finally {
+                        semaphore.release();
+                    }
+                    afterExecute(runnable);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.log(Level.FINE, e.getMessage(), e);
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * The number of tasks that are running or waiting for running.
+     * @return the number of pending tasks
+     */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return executorService.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return executorService.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executorService.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executorService.awaitTermination(timeout, unit);
+    }
+
+    /*
+     * Examine Throwable or Error of a task after execution just to log them.
+     */
+    private void afterExecute(Runnable runnable) {
+        logger.log(Level.FINE, "after dispatching " + runnable);
+        if (runnable instanceof Future<?>) {
+            Future<?> future = (Future<?>) runnable;
+            if (future.isDone() && !future.isCancelled()) {
+                try {
+                    future.get();
+                } catch (CancellationException | InterruptedException e) {
+                    logger.log(Level.FINE, e.getMessage(), e);
+                } catch (ExecutionException e) {
+                    logger.log(Level.SEVERE, e.getCause().getMessage(), e.getCause());
+                }
+            }
+        }
+    }
+
+    private static ExecutorService createExecutorService(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) method.invoke(null, threadFactory);
+        } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // virtual threads are a preview feature on JDK 19 and 20
+            if (e.getCause() instanceof UnsupportedOperationException) {
+                return null;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final boolean SUPPORTED = checkSupported();
+
+    private static boolean checkSupported() {
+        ExecutorService executorService = createExecutorService("check");
+        if (executorService != null) {
+            executorService.shutdown();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package org.xbib.net.http.server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionPolicyTest {
+
+    @Test
+    public void testDefaultMimeTypes() {
+        CompressionPolicy policy = new CompressionPolicy();
+        assertTrue(policy.isCompressible("text/html; charset=utf-8", 4096L));
+        assertTrue(policy.isCompressible("Application/JSON", 4096L));
+        assertTrue(policy.isCompressible("image/svg+xml", 4096L));
+        assertFalse(policy.isCompressible("image/png", 4096L));
+        assertFalse(policy.isCompressible("application/zip", 4096L));
+        assertFalse(policy.isCompressible(null, 4096L));
+    }
+
+    @Test
+    public void testMinimumSize() {
+        CompressionPolicy policy = new CompressionPolicy().setMinimumSize(1000);
+        assertFalse(policy.isCompressible("text/plain", 999L));
+        assertTrue(policy.isCompressible("text/plain", 1000L));
+        // unknown length of a streamed response
+        assertTrue(policy.isCompressible("text/plain", -1L));
+    }
+
+    @Test
+    public void testCustomMimeTypes() {
+        CompressionPolicy policy = new CompressionPolicy().setMimeTypes("application/*", "text/csv");
+        assertTrue(policy.isCompressible("application/octet-stream", 4096L));
+        assertTrue(policy.isCompressible("text/csv", 4096L));
+        assertFalse(policy.isCompressible("text/html", 4096L));
+    }
+
+    @Test
+    public void testDisabled() {
+        assertFalse(CompressionPolicy.disabled().isCompressible("text/html", 4096L));
+    }
+
+    @Test
+    public void testLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressionPolicy().setLevel(0));
+        assertThrows(IllegalArgumentException.class, () -> new CompressionPolicy().setLevel(10));
+    }
+}
@@ -0,0 +1,77 @@
+package org.xbib.net.http.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RequestBodyTest {
+
+    @Test
+    public void testMemory() throws IOException {
+        try (RequestBody requestBody = new RequestBody(1024, null)) {
+            requestBody.write(StandardCharsets.US_ASCII.encode("Hello "));
+            requestBody.write(StandardCharsets.US_ASCII.encode("World"));
+            requestBody.complete();
+            assertEquals(11L, requestBody.getLength());
+            assertEquals("Hello World", StandardCharsets.US_ASCII.decode(requestBody.toByteBuffer()).toString());
+        }
+    }
+
+    @Test
+    public void testSpill() throws IOException {
+        byte[] bytes = new byte[100000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        try (RequestBody requestBody = new RequestBody(1000, null)) {
+            for (int i = 0; i < bytes.length; i += 3000) {
+                requestBody.write(ByteBuffer.wrap(bytes, i, Math.min(3000, bytes.length - i)));
+            }
+            requestBody.complete();
+            assertArrayEquals(bytes, requestBody.toByteBuffer().array());
+            // every channel reads from the beginning
+            assertArrayEquals(bytes, requestBody.getInputStream().readAllBytes());
+        }
+    }
+
+    @Test
+    public void testReadWhileReceiving() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (RequestBody requestBody = new RequestBody(16, null)) {
+            Future<byte[]> future = executorService.submit(() -> requestBody.getInputStream().readAllBytes());
+            for (int i = 0; i < 10; i++) {
+                requestBody.write(StandardCharsets.US_ASCII.encode("chunk " + i + ";"));
+                Thread.sleep(5L);
+            }
+            requestBody.complete();
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                sb.append("chunk ").append(i).append(';');
+            }
+            assertEquals(sb.toString(), new String(future.get(5L, TimeUnit.SECONDS), StandardCharsets.US_ASCII));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFail() throws IOException {
+        try (RequestBody requestBody = new RequestBody(16, null)) {
+            requestBody.write(StandardCharsets.US_ASCII.encode("incomplete"));
+            requestBody.fail(new IOException("connection closed"));
+            ReadableByteChannel channel = requestBody.getChannel();
+            assertThrows(IOException.class, () -> channel.read(ByteBuffer.allocate(16)));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.xbib.net.http.server.resource.negotiate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EncodingNegotiatorTest {
+
+    private static final List<String> ENCODINGS = List.of("br", "zstd", "gzip");
+
+    @Test
+    public void testServerPreference() {
+        assertEquals(List.of("br", "gzip"), EncodingNegotiator.findEncodings("gzip, deflate, br", ENCODINGS));
+    }
+
+    @Test
+    public void testQuality() {
+        assertEquals(List.of("gzip", "br"), EncodingNegotiator.findEncodings("br;q=0.5, gzip", ENCODINGS));
+        assertEquals(List.of("gzip"), EncodingNegotiator.findEncodings("br;q=0, gzip;q=0.8", ENCODINGS));
+    }
+
+    @Test
+    public void testWildcard() {
+        assertEquals(List.of("zstd", "gzip"), EncodingNegotiator.findEncodings("*;q=0.5, br;q=0", ENCODINGS));
+        assertEquals(List.of("br", "zstd", "gzip"), EncodingNegotiator.findEncodings("*", ENCODINGS));
+    }
+
+    @Test
+    public void testNone() {
+        assertEquals(List.of(), EncodingNegotiator.findEncodings(null, ENCODINGS));
+        assertEquals(List.of(), EncodingNegotiator.findEncodings("identity", ENCODINGS));
+    }
+}
@@ -0,0 +1,42 @@
+package org.xbib.net.http.server.route.base;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.server.route.PathSegments;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PathSegmentsTest {
+
+    @Test
+    public void testSegments() {
+        PathSegments pathSegments = PathSegments.of("//a/bc//def/");
+        assertEquals(3, pathSegments.size());
+        assertEquals("a", pathSegments.get(0));
+        assertEquals("bc", pathSegments.get(1));
+        assertEquals("def", pathSegments.get(2));
+        assertTrue(pathSegments.equals(1, "bc"));
+        assertFalse(pathSegments.equals(1, "b"));
+        assertFalse(pathSegments.equals(1, "bcd"));
+        assertEquals("def".hashCode(), pathSegments.hashCode(2));
+        assertEquals("/a/bc/def", pathSegments.toString());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, PathSegments.of("").size());
+        assertEquals(0, PathSegments.of("/").size());
+        assertEquals(1, PathSegments.of("abc.jpg").size());
+    }
+
+    @Test
+    public void testContext() {
+        PathSegments pathSegments = PathSegments.of("/app/path/to");
+        assertEquals("[path, to]", pathSegments.context("/app").toString());
+        assertEquals("[app, path, to]", pathSegments.context("").toString());
+        assertEquals("[app, path, to]", pathSegments.context("/other").toString());
+        // the prefix is literal, not a regular expression
+        assertEquals("[app, path, to]", pathSegments.context("/a.p").toString());
+    }
+}
@@ -0,0 +1,156 @@
+package org.xbib.net.http.server.route.cache;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.route.BaseHttpRoute;
+import org.xbib.net.http.server.route.BaseHttpRouteResolver;
+import org.xbib.net.http.server.route.CachingHttpRouteResolver;
+import org.xbib.net.http.server.route.HttpRoute;
+import org.xbib.net.http.server.route.HttpRouteResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CachingHttpRouteResolverTest {
+
+    @Test
+    public void testCacheHit() {
+        HttpRouteResolver<Integer> resolver = BaseHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/a/{id}", 1)
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/a/**", 2)
+                .build();
+        CachingHttpRouteResolver<Integer> cachingResolver = new CachingHttpRouteResolver<>(resolver, 10);
+        for (int i = 0; i < 3; i++) {
+            HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/a/123");
+            List<Integer> list = new ArrayList<>();
+            cachingResolver.resolve(route, r -> {
+                if (r.getValue() == 1) {
+                    assertEquals("[id=123]", r.getParameter().allToString());
+                }
+                list.add(r.getValue());
+            });
+            assertEquals("[1, 2]", list.toString());
+        }
+        assertEquals(1L, cachingResolver.getMissCount());
+        assertEquals(2L, cachingResolver.getHitCount());
+        assertEquals(1, cachingResolver.size());
+    }
+
+    @Test
+    public void testCacheKeyedByMethod() {
+        HttpRouteResolver<Integer> resolver = BaseHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/a", 1)
+                .add(HttpAddress.http1("host"), HttpMethod.POST, "/a", 2)
+                .build();
+        CachingHttpRouteResolver<Integer> cachingResolver = new CachingHttpRouteResolver<>(resolver, 10);
+        List<Integer> list = new ArrayList<>();
+        cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/a"), r -> list.add(r.getValue()));
+        cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "/a"), r -> list.add(r.getValue()));
+        assertEquals("[1, 2]", list.toString());
+        assertEquals(2L, cachingResolver.getMissCount());
+    }
+
+    @Test
+    public void testCacheBounded() {
+        HttpRouteResolver<Integer> resolver = BaseHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/**", 1)
+                .build();
+        CachingHttpRouteResolver<Integer> cachingResolver = new CachingHttpRouteResolver<>(resolver, 4);
+        for (int i = 0; i < 100; i++) {
+            cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/" + i), r -> {});
+        }
+        assertEquals(4, cachingResolver.size());
+        assertEquals(100L, cachingResolver.getMissCount());
+    }
+
+    @Test
+    public void testReferencedEntryKept() {
+        HttpRouteResolver<Integer> resolver = BaseHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/**", 1)
+                .build();
+        CachingHttpRouteResolver<Integer> cachingResolver = new CachingHttpRouteResolver<>(resolver, 4);
+        for (int i = 0; i < 4; i++) {
+            cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/" + i), r -> {});
+        }
+        for (int i = 4; i < 100; i++) {
+            // keep "/0" referenced, it must survive every sweep of the clock hand
+            cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/0"), r -> {});
+            cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/" + i), r -> {});
+        }
+        assertEquals(96L, cachingResolver.getHitCount());
+        assertEquals(100L, cachingResolver.getMissCount());
+        assertEquals(4, cachingResolver.size());
+    }
+
+    @Test
+    public void testMissesDoNotEvictHits() {
+        HttpRouteResolver<Integer> resolver = BaseHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/a", 1)
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/b", 2)
+                .build();
+        CachingHttpRouteResolver<Integer> cachingResolver = new CachingHttpRouteResolver<>(resolver, 2);
+        cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/a"), r -> {});
+        cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/b"), r -> {});
+        for (int i = 0; i < 100; i++) {
+            List<Integer> list = new ArrayList<>();
+            cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/unknown/" + i),
+                    r -> list.add(r.getValue()));
+            assertEquals("[]", list.toString());
+        }
+        assertEquals(2, cachingResolver.size());
+        cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/a"), r -> {});
+        cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/b"), r -> {});
+        assertEquals(2L, cachingResolver.getHitCount());
+        assertEquals(102L, cachingResolver.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentResolve() throws Exception {
+        HttpRouteResolver<Integer> resolver = BaseHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/a/{id}", 1)
+                .build();
+        CachingHttpRouteResolver<Integer> cachingResolver = new CachingHttpRouteResolver<>(resolver, 16);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executorService.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        String id = String.valueOf(i % 32);
+                        cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/a/" + id),
+                                r -> assertEquals("[id=" + id + "]", r.getParameter().allToString()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30L, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(80000L, cachingResolver.getHitCount() + cachingResolver.getMissCount());
+    }
+
+    @Test
+    public void testNotCacheable() {
+        HttpRouteResolver<Integer> resolver = BaseHttpRouteResolver.<Integer>builder()
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/a", 1)
+                .add(HttpAddress.http1("host"), HttpMethod.GET, "/b", 2)
+                .build();
+        CachingHttpRouteResolver<Integer> cachingResolver = new CachingHttpRouteResolver<>(resolver, 10, value -> value != 2);
+        for (int i = 0; i < 2; i++) {
+            cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/a"), r -> {});
+            cachingResolver.resolve(new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, "/b"), r -> {});
+        }
+        assertEquals(1L, cachingResolver.getHitCount());
+        assertEquals(3L, cachingResolver.getMissCount());
+        assertEquals(1, cachingResolver.size());
+    }
+}
@@ -0,0 +1,79 @@
+package org.xbib.net.http.server.route.compiled;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.net.http.HttpAddress;
+import org.xbib.net.http.HttpMethod;
+import org.xbib.net.http.server.route.BaseHttpRoute;
+import org.xbib.net.http.server.route.BaseHttpRouteResolver;
+import org.xbib.net.http.server.route.CompiledHttpRouteResolver;
+import org.xbib.net.http.server.route.HttpRoute;
+import org.xbib.net.http.server.route.HttpRouteResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CompiledHttpRouteResolverTest {
+
+    @Test
+    public void testSameResultsAsBaseRouteResolver() {
+        String[] paths = {
+                "/", "/**", "/a", "/a/**", "/a/b", "/a/b/**", "/a/b/c", "/a/b/c/d/e",
+                "/a/**/c", "/a/{x}", "/a/{x}/c", "/{x}/{y}", "/a/glob:*.jpg", "glob:**.jpg", "glob:*.css",
+                "/static/js/app.js", "/static/js/{file}", "/static/**"
+        };
+        String[] requests = {
+                "/", "/a", "/a/b", "/a/b/c", "/a/b/c/d", "/a/b/c/d/e", "/a/x/c", "/a/pic.jpg",
+                "/b/c", "pic.jpg", "/x/y/pic.jpg", "main.css", "/static", "/static/js/app.js",
+                "/static/js/other.js", "/static/css/site.css", "/unknown/path/here"
+        };
+        for (boolean sort : new boolean[] { false, true }) {
+            HttpRouteResolver.Builder<Integer> baseBuilder = BaseHttpRouteResolver.builder();
+            HttpRouteResolver.Builder<Integer> compiledBuilder = CompiledHttpRouteResolver.builder();
+            for (int i = 0; i < paths.length; i++) {
+                baseBuilder.add(HttpAddress.http1("host"), HttpMethod.GET, paths[i], i);
+                compiledBuilder.add(HttpAddress.http1("host"), HttpMethod.GET, paths[i], i);
+            }
+            baseBuilder.add(HttpAddress.http1("host"), HttpMethod.POST, "/a", 100);
+            compiledBuilder.add(HttpAddress.http1("host"), HttpMethod.POST, "/a", 100);
+            baseBuilder.add(HttpAddress.http1("otherhost"), HttpMethod.GET, "/a", 200);
+            compiledBuilder.add(HttpAddress.http1("otherhost"), HttpMethod.GET, "/a", 200);
+            HttpRouteResolver<Integer> baseResolver = baseBuilder.sort(sort).build();
+            HttpRouteResolver<Integer> compiledResolver = compiledBuilder.sort(sort).build();
+            for (String request : requests) {
+                HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, request);
+                List<String> expected = new ArrayList<>();
+                baseResolver.resolve(route, r -> expected.add(r.getValue() + " " +
+                        r.getParameter().allToString() + " " + r.getContext()));
+                List<String> actual = new ArrayList<>();
+                compiledResolver.resolve(route, r -> actual.add(r.getValue() + " " +
+                        r.getParameter().allToString() + " " + r.getContext()));
+                assertEquals(expected, actual, "request " + request + " sort " + sort);
+            }
+        }
+    }
+
+    @Test
+    public void testManyRoutesSameResultsAsBaseRouteResolver() {
+        HttpRouteResolver.Builder<Integer> baseBuilder = BaseHttpRouteResolver.builder();
+        HttpRouteResolver.Builder<Integer> compiledBuilder = CompiledHttpRouteResolver.builder();
+        for (int i = 0; i < 1000; i++) {
+            String path = "/api/service" + i + "/{id}/items/{item}";
+            baseBuilder.add(HttpAddress.http1("host"), HttpMethod.GET, path, i);
+            compiledBuilder.add(HttpAddress.http1("host"), HttpMethod.GET, path, i);
+        }
+        HttpRouteResolver<Integer> baseResolver = baseBuilder.sort(true).build();
+        HttpRouteResolver<Integer> compiledResolver = compiledBuilder.sort(true).build();
+        for (int i = 0; i < 1000; i += 37) {
+            for (String request : new String[] { "/api/service" + i + "/1/items/2", "/api/service" + i + "/1/items" }) {
+                HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.GET, request);
+                List<String> expected = new ArrayList<>();
+                baseResolver.resolve(route, r -> expected.add(r.getValue() + " " + r.getParameter().allToString()));
+                List<String> actual = new ArrayList<>();
+                compiledResolver.resolve(route, r -> actual.add(r.getValue() + " " + r.getParameter().allToString()));
+                assertEquals(expected, actual, "request " + request);
+            }
+        }
+    }
+}
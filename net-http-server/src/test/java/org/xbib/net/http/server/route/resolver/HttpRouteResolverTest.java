@@ -1,22 +1,40 @@
-package org.xbib.net.http.server.route.base;
+package org.xbib.net.http.server.route.resolver;
 
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.xbib.net.http.HttpAddress;
 import org.xbib.net.http.HttpMethod;
 import org.xbib.net.http.server.route.BaseHttpRoute;
 import org.xbib.net.http.server.route.BaseHttpRouteResolver;
+import org.xbib.net.http.server.route.CompiledHttpRouteResolver;
 import org.xbib.net.http.server.route.HttpRoute;
 import org.xbib.net.http.server.route.HttpRouteResolver;
+import org.xbib.net.http.server.route.RadixHttpRouteResolver;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
-public class BaseHttpRouteResolverTest {
+/**
+ * The cases that every route resolver must pass. The resolvers are created by builder factories
+ * that take the path prefix.
+ */
+public class HttpRouteResolverTest {
 
-    @Test
-    public void testEmptyRouteResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    static Stream<Named<Function<String, HttpRouteResolver.Builder<Integer>>>> builders() {
+        return Stream.of(
+                Named.of("base", prefix -> BaseHttpRouteResolver.<Integer>builder().setPrefix(prefix)),
+                Named.of("radix", prefix -> RadixHttpRouteResolver.<Integer>builder().setPrefix(prefix)),
+                Named.of("compiled", prefix -> CompiledHttpRouteResolver.<Integer>builder().setPrefix(prefix)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testEmptyRouteResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/", 1)
                 .build();
@@ -26,9 +44,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testNoDefinedRouteResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testNoDefinedRouteResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .build();
         HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "/");
@@ -37,9 +56,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(0, atomicInteger.get());
     }
 
-    @Test
-    public void testEmptyRouteMatchResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testEmptyRouteMatchResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/", 1)
                 .build();
@@ -52,9 +72,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/path", 1)
                 .build();
@@ -67,9 +88,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteMismatchResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteMismatchResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/path1", 1)
                 .build();
@@ -82,9 +104,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(0, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteMismatchTooLongResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteMismatchTooLongResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/a", 1)
                 .build();
@@ -97,9 +120,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(0, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteCatchAllResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteCatchAllResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/**", 1)
                 .build();
@@ -112,9 +136,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteCatchAllLongPathResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteCatchAllLongPathResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/**", 1)
                 .build();
@@ -127,9 +152,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteJpegResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteJpegResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "glob:*.jpg", 1)
                 .build();
@@ -142,9 +168,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteGlobJpegResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteGlobJpegResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "glob:**.jpg", 1)
                 .build();
@@ -157,9 +184,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testSingleRouteParameterResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testSingleRouteParameterResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/{token}", 1)
                 .build();
@@ -173,9 +201,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testTwoRouteParameterResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testTwoRouteParameterResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/{token}/{key}", 1)
                 .build();
@@ -189,9 +218,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testMultiRouteResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testMultiRouteResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/a/**", 1)
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/a/b/**", 2)
@@ -206,9 +236,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testMultiRouteLongestFirstResolver() {
-        HttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testMultiRouteLongestFirstResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/a/**", 1)
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/a/b/c/**", 2)
@@ -228,9 +259,10 @@ public class BaseHttpRouteResolverTest {
         assertEquals(1, atomicInteger.get());
     }
 
-    @Test
-    public void testMultiRouteLongestFirstWithGlobFirstResolver() {
-        HttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testMultiRouteLongestFirstWithGlobFirstResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("");
         HttpRouteResolver<Integer> resolver = builder
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/a/**", 4)
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/a/b/c/**", 3)
@@ -254,11 +286,11 @@ public class BaseHttpRouteResolverTest {
         assertEquals(2, atomicInteger.get());
     }
 
-    @Test
-    public void testContextRouteResolver() {
-        BaseHttpRouteResolver.Builder<Integer> builder = BaseHttpRouteResolver.builder();
+    @ParameterizedTest
+    @MethodSource("builders")
+    public void testContextRouteResolver(Function<String, HttpRouteResolver.Builder<Integer>> newBuilder) {
+        HttpRouteResolver.Builder<Integer> builder = newBuilder.apply("/app");
         HttpRouteResolver<Integer> resolver = builder
-                .setPrefix("/app")
                 .add(HttpAddress.http1("host"), HttpMethod.POST, "/path", 1)
                 .build();
         HttpRoute route = new BaseHttpRoute(HttpAddress.http1("host"), HttpMethod.POST, "/app/path");
@@ -0,0 +1,91 @@
+package org.xbib.net.http.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BlockingThreadPoolExecutorTest {
+
+    @Test
+    public void testRejectWhenQueueFull() throws Exception {
+        BlockingThreadPoolExecutor executor = new BlockingThreadPoolExecutor(1, 1, Executors.defaultThreadFactory());
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(() -> await(latch));
+        executor.execute(() -> await(latch));
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        assertEquals(1L, executor.getRejectedCount());
+        latch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShedLoadOnStandingQueue() throws Exception {
+        BlockingThreadPoolExecutor executor = new BlockingThreadPoolExecutor(1, 100, Executors.defaultThreadFactory());
+        executor.setLoadShedding(Duration.ofMillis(5L), Duration.ofMillis(20L));
+        // a standing queue of slow tasks, every task waits longer than the target
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> sleep(10L));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (!executor.isOverloaded() && System.nanoTime() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertTrue(executor.isOverloaded());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        // after the queue is drained, requests are admitted and the overload ends
+        while (!executor.getQueue().isEmpty() || executor.getActiveCount() > 0) {
+            Thread.sleep(1L);
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(latch::countDown);
+        assertTrue(latch.await(5L, TimeUnit.SECONDS));
+        Thread.sleep(10L);
+        assertFalse(executor.isOverloaded());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueueMetrics() throws Exception {
+        ExecutorLane executor = new ExecutorLane("test", 1, 10);
+        CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(() -> await(latch));
+        executor.execute(() -> {});
+        executor.execute(() -> {});
+        assertEquals(2, executor.getQueueDepth());
+        Thread.sleep(20L);
+        latch.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(3L, executor.getWaitCount());
+        assertTrue(executor.getMaxWaitTime().toMillis() >= 20L);
+        assertTrue(executor.getAverageWaitTime().compareTo(executor.getMaxWaitTime()) <= 0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
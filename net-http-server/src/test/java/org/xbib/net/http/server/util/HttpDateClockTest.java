@@ -0,0 +1,42 @@
+package org.xbib.net.http.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpDateClockTest {
+
+    @Test
+    public void testDate() {
+        String date = HttpDateClock.getDate();
+        ZonedDateTime dateTime = ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME);
+        long seconds = Math.abs(dateTime.toEpochSecond() - System.currentTimeMillis() / 1000L);
+        assertTrue(seconds <= 1L);
+    }
+
+    @Test
+    public void testSameSecond() {
+        long millis = 1700000000000L;
+        String date = HttpDateClock.getDate(millis);
+        assertEquals("Tue, 14 Nov 2023 22:13:20 GMT", date);
+        assertSame(date, HttpDateClock.getDate(millis + 999L));
+        assertArrayEquals(date.getBytes(StandardCharsets.US_ASCII), HttpDateClock.getDateBytes(millis + 500L));
+    }
+
+    @Test
+    public void testNextSecond() {
+        long millis = 1700000000000L;
+        String date = HttpDateClock.getDate(millis);
+        String next = HttpDateClock.getDate(millis + 1000L);
+        assertEquals("Tue, 14 Nov 2023 22:13:21 GMT", next);
+        assertNotEquals(date, next);
+    }
+}
@@ -0,0 +1,54 @@
+package org.xbib.net.http.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadExecutorTest {
+
+    @Test
+    public void testUnsupported() {
+        if (!VirtualThreadExecutor.isSupported()) {
+            assertThrows(UnsupportedOperationException.class, () -> new VirtualThreadExecutor(1, 1, "test"));
+        }
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        if (!VirtualThreadExecutor.isSupported()) {
+            return;
+        }
+        VirtualThreadExecutor executor = new VirtualThreadExecutor(2, 2, "test");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                completed.incrementAndGet();
+            });
+        }
+        // two running, two waiting: the next task exceeds the queue
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(4, completed.get());
+        assertTrue(maxRunning.get() <= 2);
+        assertEquals(0, executor.getPendingCount());
+    }
+}
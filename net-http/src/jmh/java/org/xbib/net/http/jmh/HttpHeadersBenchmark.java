@@ -0,0 +1,139 @@
+package org.xbib.net.http.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xbib.datastructures.common.Pair;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Header benchmark, comparing the indexed {@link HttpHeaders} with the former list-based implementation.
+ * Every operation fills the headers of a typical browser request, probes them like a request passing
+ * the server does, and sets the response headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpHeadersBenchmark {
+
+    @Param({ "0", "10", "40" })
+    public int extraHeaders;
+
+    private List<Pair<String, String>> requestHeaders;
+
+    @Setup
+    public void setup() {
+        requestHeaders = new ArrayList<>();
+        requestHeaders.add(Pair.of("Host", "localhost:8008"));
+        requestHeaders.add(Pair.of("User-Agent", "Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/115.0"));
+        requestHeaders.add(Pair.of("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8"));
+        requestHeaders.add(Pair.of("Accept-Language", "de,en-US;q=0.7,en;q=0.3"));
+        requestHeaders.add(Pair.of("Accept-Encoding", "gzip, deflate, br"));
+        requestHeaders.add(Pair.of("Connection", "keep-alive"));
+        requestHeaders.add(Pair.of("Cookie", "SESS=0123456789abcdef"));
+        requestHeaders.add(Pair.of("Upgrade-Insecure-Requests", "1"));
+        requestHeaders.add(Pair.of("Cache-Control", "max-age=0"));
+        for (int i = 0; i < extraHeaders; i++) {
+            requestHeaders.add(Pair.of("X-Extra-Header-" + i, Integer.toString(i)));
+        }
+    }
+
+    @Benchmark
+    public void indexed(Blackhole blackhole) {
+        HttpHeaders headers = new HttpHeaders();
+        requestHeaders.forEach(e -> headers.add(e.getKey(), e.getValue()));
+        probe(blackhole, headers.get(HttpHeaderNames.HOST), headers.get(HttpHeaderNames.COOKIE),
+                headers.get(HttpHeaderNames.ACCEPT_ENCODING), headers.containsHeader(HttpHeaderNames.CONTENT_LENGTH),
+                headers.containsHeader(HttpHeaderNames.TRANSFER_ENCODING), headers.getAll(HttpHeaderNames.ACCEPT));
+        HttpHeaders responseHeaders = new HttpHeaders();
+        respond(responseHeaders::containsHeader, responseHeaders::set);
+        blackhole.consume(responseHeaders);
+    }
+
+    @Benchmark
+    public void list(Blackhole blackhole) {
+        ListHeaders headers = new ListHeaders();
+        requestHeaders.forEach(e -> headers.add(e.getKey(), e.getValue()));
+        probe(blackhole, headers.get(HttpHeaderNames.HOST), headers.get(HttpHeaderNames.COOKIE),
+                headers.get(HttpHeaderNames.ACCEPT_ENCODING), headers.containsHeader(HttpHeaderNames.CONTENT_LENGTH),
+                headers.containsHeader(HttpHeaderNames.TRANSFER_ENCODING), headers.getAll(HttpHeaderNames.ACCEPT));
+        ListHeaders responseHeaders = new ListHeaders();
+        respond(responseHeaders::containsHeader, responseHeaders::set);
+        blackhole.consume(responseHeaders);
+    }
+
+    private static void probe(Blackhole blackhole, Object... values) {
+        for (Object value : values) {
+            blackhole.consume(value);
+        }
+    }
+
+    private static void respond(Predicate<String> contains, BiConsumer<String, String> set) {
+        String[][] headers = {
+                { HttpHeaderNames.CONTENT_TYPE, "text/html; charset=utf-8" },
+                { HttpHeaderNames.CONTENT_LENGTH, "1024" },
+                { HttpHeaderNames.DATE, "Tue, 3 Jun 2008 11:05:30 GMT" },
+                { HttpHeaderNames.SERVER, "benchmark" },
+                { HttpHeaderNames.CACHE_CONTROL, "no-cache" }
+        };
+        for (String[] header : headers) {
+            if (!contains.test(header[0])) {
+                set.accept(header[0], header[1]);
+            }
+        }
+    }
+
+    /**
+     * The list-based header implementation before the index was added.
+     */
+    private static class ListHeaders {
+
+        private final List<Pair<String, String>> list = new ArrayList<>();
+
+        void add(String name, String value) {
+            list.add(Pair.of(name, value));
+        }
+
+        void set(String name, String value) {
+            List<Pair<String, String>> list = this.list.stream()
+                    .filter(e -> !e.getKey().equalsIgnoreCase(name)).collect(Collectors.toList());
+            this.list.clear();
+            this.list.addAll(list);
+            add(name, value);
+        }
+
+        boolean containsHeader(String name) {
+            return list.stream().anyMatch(e -> e.getKey().equalsIgnoreCase(name));
+        }
+
+        String get(String name) {
+            return list.stream().filter(e -> e.getKey().equalsIgnoreCase(name))
+                    .map(Pair::getValue).findFirst().orElse(null);
+        }
+
+        List<String> getAll(String name) {
+            return list.stream().filter(e -> e.getKey().equalsIgnoreCase(name))
+                    .map(Pair::getValue).collect(Collectors.toList());
+        }
+    }
+}
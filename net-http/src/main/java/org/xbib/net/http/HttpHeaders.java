@@ -3,22 +3,46 @@ package org.xbib.net.http;
 import org.xbib.datastructures.common.Pair;
 import org.xbib.net.Headers;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 /**
+ * HTTP headers in insertion order. Header names are case-insensitive. The entries are indexed by a hash
+ * table over the ASCII case-insensitive hash of the name, so lookups do not scan all entries.
+ * Names equal to the constants of {@link HttpHeaderNames} are replaced by the constants.
+ * The entry list and the index are allocated when the first header is added, so subclasses that keep
+ * the headers elsewhere do not allocate them.
  */
 public class HttpHeaders implements Headers {
 
-    private final List<Pair<String, String>> list;
+    private static final Map<String, String> NAMES = createNames();
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private List<Pair<String, String>> list;
+
+    private List<Pair<String, String>> entries;
+
+    private Node[] table;
 
     public HttpHeaders() {
-        this.list = new ArrayList<>();
     }
 
+    /**
+     * Create headers backed by a list. Headers added to or removed from these headers are added to or
+     * removed from the list. The list must not be changed in other ways than by these headers or by
+     * {@link #entries()}, or lookups by name may miss entries.
+     * @param list the header entries
+     */
     public HttpHeaders(List<Pair<String, String>> list) {
         this.list = list;
+        reindex();
     }
 
     public static HttpHeaders of(List<Pair<String, String>> list) {
@@ -33,61 +57,279 @@ public class HttpHeaders implements Headers {
 
     public HttpHeaders add(CharSequence name, String value) {
         if (name != null && value != null) {
-            list.add(Pair.of(name.toString(), value));
+            add0(name.toString(), value);
         }
         return this;
     }
 
     public HttpHeaders add(CharSequence name, Iterable<?> values) {
+        String k = name.toString();
         values.forEach(v -> {
             if (v != null) {
-                list.add(Pair.of(name.toString(), v.toString()));
+                add0(k, v.toString());
             }
         });
         return this;
     }
 
+    /**
+     * Replace all headers of a name, regardless of the case of the name.
+     * @param name the header name
+     * @param value the header value
+     * @return these headers
+     */
     public HttpHeaders set(CharSequence name, String value) {
         if (name != null && value != null) {
-            List<Pair<String, String>> list = this.list.stream()
-                    .filter(e -> !e.getKey().equalsIgnoreCase(name.toString())).collect(Collectors.toList());
-            this.list.clear();
-            this.list.addAll(list);
+            remove0(name.toString(), true);
         }
         return add(name, value);
     }
 
     public boolean containsHeader(CharSequence name) {
-        String k = name.toString();
-        Pair<String, String> me = list.stream().filter(e -> e.getKey().equalsIgnoreCase(k)).findFirst().orElse(null);
-        return me != null;
+        return find(name.toString()) != null;
     }
 
+    /**
+     * Remove the headers with exactly this name. Unlike lookups and {@link #set}, the case of the name
+     * must match.
+     * @param name the header name
+     */
     public void remove(CharSequence name) {
-        this.list.removeIf(pair -> pair.getKey().equals(name.toString()));
+        remove0(name.toString(), false);
     }
 
     @Override
     public String get(CharSequence header) {
-        String k = header.toString();
-        return list.stream().filter(e -> e.getKey().equalsIgnoreCase(k))
-                .map(Pair::getValue).findFirst().orElse(null);
+        Node node = find(header.toString());
+        return node != null ? node.pair.getValue() : null;
     }
 
     @Override
     public List<String> getAll(CharSequence header) {
-        String k = header.toString();
-        return list.stream().filter(e -> e.getKey().equalsIgnoreCase(k))
-                .map(Pair::getValue).collect(Collectors.toList());
+        List<String> values = new ArrayList<>();
+        if (table != null) {
+            String k = header.toString();
+            int hash = hash(k);
+            for (Node node = table[hash & (table.length - 1)]; node != null; node = node.next) {
+                if (node.hash == hash && matches(node.pair.getKey(), k)) {
+                    values.add(node.pair.getValue());
+                }
+            }
+        }
+        return values;
     }
 
+    /**
+     * The header entries in insertion order. Changes of the list change the headers. Each change of the
+     * list rebuilds the index, so the methods of the headers are the faster way to change them.
+     * @return the header entries
+     */
     @Override
     public List<Pair<String, String>> entries() {
-        return list;
+        if (entries == null) {
+            entries = new Entries();
+        }
+        return entries;
     }
 
     @Override
     public String toString() {
-        return list.toString();
+        return list != null ? list.toString() : "[]";
+    }
+
+    private void add0(String name, String value) {
+        String k = NAMES.getOrDefault(name, name);
+        Pair<String, String> pair = Pair.of(k, value);
+        if (list == null) {
+            list = new ArrayList<>();
+        }
+        list.add(pair);
+        if (table == null) {
+            table = new Node[INITIAL_CAPACITY];
+        } else if (list.size() > table.length * 3 / 4) {
+            resize();
+            return;
+        }
+        insert(new Node(hash(k), pair));
+    }
+
+    private void remove0(String name, boolean ignoreCase) {
+        if (table == null) {
+            return;
+        }
+        int hash = hash(name);
+        int i = hash & (table.length - 1);
+        Node prev = null;
+        boolean removed = false;
+        for (Node node = table[i]; node != null; node = node.next) {
+            if (node.hash == hash && (ignoreCase ? matches(node.pair.getKey(), name) : node.pair.getKey().equals(name))) {
+                if (prev == null) {
+                    table[i] = node.next;
+                } else {
+                    prev.next = node.next;
+                }
+                removed = true;
+            } else {
+                prev = node;
+            }
+        }
+        if (removed) {
+            list.removeIf(pair -> ignoreCase ? matches(pair.getKey(), name) : pair.getKey().equals(name));
+        }
+    }
+
+    private Node find(String name) {
+        if (table == null) {
+            return null;
+        }
+        int hash = hash(name);
+        for (Node node = table[hash & (table.length - 1)]; node != null; node = node.next) {
+            if (node.hash == hash && matches(node.pair.getKey(), name)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Append a node to its bucket, so the nodes of a bucket keep the insertion order.
+     */
+    private void insert(Node node) {
+        int i = node.hash & (table.length - 1);
+        Node last = table[i];
+        if (last == null) {
+            table[i] = node;
+        } else {
+            while (last.next != null) {
+                last = last.next;
+            }
+            last.next = node;
+        }
+    }
+
+    private void resize() {
+        table = new Node[table.length * 2];
+        for (Pair<String, String> pair : list) {
+            insert(new Node(hash(pair.getKey()), pair));
+        }
+    }
+
+    private void reindex() {
+        if (list == null || list.isEmpty()) {
+            table = null;
+            return;
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (list.size() > capacity * 3 / 4) {
+            capacity *= 2;
+        }
+        table = new Node[capacity];
+        for (Pair<String, String> pair : list) {
+            insert(new Node(hash(pair.getKey()), pair));
+        }
+    }
+
+    private static boolean matches(String name, String other) {
+        return name == other || name.equalsIgnoreCase(other);
+    }
+
+    /**
+     * A hash code of the name that ignores the case of ASCII letters, like Netty's {@code AsciiString}.
+     */
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static Map<String, String> createNames() {
+        Map<String, String> map = new HashMap<>();
+        for (Field field : HttpHeaderNames.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    String name = (String) field.get(null);
+                    map.put(name, name);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        return map;
+    }
+
+    private static class Node {
+
+        private final int hash;
+
+        private final Pair<String, String> pair;
+
+        private Node next;
+
+        Node(int hash, Pair<String, String> pair) {
+            this.hash = hash;
+            this.pair = pair;
+        }
+    }
+
+    /**
+     * A view of the entries that keeps the index up to date when the list is changed.
+     */
+    private class Entries extends AbstractList<Pair<String, String>> {
+
+        @Override
+        public Pair<String, String> get(int index) {
+            if (list == null) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return list.get(index);
+        }
+
+        @Override
+        public int size() {
+            return list != null ? list.size() : 0;
+        }
+
+        @Override
+        public Pair<String, String> set(int index, Pair<String, String> element) {
+            Pair<String, String> pair = get(index);
+            list.set(index, Objects.requireNonNull(element));
+            reindex();
+            return pair;
+        }
+
+        @Override
+        public void add(int index, Pair<String, String> element) {
+            Objects.requireNonNull(element);
+            if (list == null) {
+                list = new ArrayList<>();
+            }
+            list.add(index, element);
+            modCount++;
+            reindex();
+        }
+
+        @Override
+        public Pair<String, String> remove(int index) {
+            Pair<String, String> pair = get(index);
+            list.remove(index);
+            modCount++;
+            reindex();
+            return pair;
+        }
+
+        @Override
+        public void clear() {
+            if (list != null) {
+                list.clear();
+                modCount++;
+            }
+            table = null;
+        }
     }
 }
@@ -0,0 +1,106 @@
+package org.xbib.net.http.test;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.datastructures.common.Pair;
+import org.xbib.net.http.HttpHeaderNames;
+import org.xbib.net.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpHeadersTest {
+
+    @Test
+    public void testCaseInsensitive() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Type", "text/plain");
+        assertTrue(headers.containsHeader("content-type"));
+        assertTrue(headers.containsHeader(HttpHeaderNames.CONTENT_TYPE));
+        assertEquals("text/plain", headers.get("CONTENT-TYPE"));
+        assertNull(headers.get("content-length"));
+        assertFalse(headers.containsHeader("content-length"));
+    }
+
+    @Test
+    public void testOrder() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("a", "1");
+        headers.add("b", "2");
+        headers.add("A", "3");
+        assertEquals("1", headers.get("a"));
+        assertEquals(List.of("1", "3"), headers.getAll("a"));
+        assertEquals("a", headers.entries().get(0).getKey());
+        assertEquals("b", headers.entries().get(1).getKey());
+        assertEquals("A", headers.entries().get(2).getKey());
+    }
+
+    @Test
+    public void testSetAndRemove() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("a", "1");
+        headers.add("b", "2");
+        headers.add("A", "3");
+        headers.set("a", "4");
+        assertEquals(List.of("4"), headers.getAll("A"));
+        assertEquals(2, headers.entries().size());
+        assertEquals("b", headers.entries().get(0).getKey());
+        // remove matches the exact name
+        headers.remove("B");
+        assertTrue(headers.containsHeader("b"));
+        headers.remove("b");
+        assertFalse(headers.containsHeader("b"));
+        assertEquals(1, headers.entries().size());
+    }
+
+    @Test
+    public void testEntriesChangeHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("a", "1");
+        headers.entries().add(Pair.of("b", "2"));
+        assertEquals("2", headers.get("B"));
+        headers.entries().set(0, Pair.of("c", "3"));
+        assertNull(headers.get("a"));
+        assertEquals("3", headers.get("c"));
+        headers.entries().removeIf(e -> e.getKey().equals("b"));
+        assertFalse(headers.containsHeader("b"));
+        assertEquals(1, headers.entries().size());
+    }
+
+    @Test
+    public void testListIsWrapped() {
+        List<Pair<String, String>> list = new ArrayList<>();
+        list.add(Pair.of("Content-Type", "text/plain"));
+        HttpHeaders headers = HttpHeaders.of(list);
+        assertEquals("text/plain", headers.get("content-type"));
+        headers.add("content-length", "0");
+        assertEquals(2, list.size());
+        headers.set("CONTENT-TYPE", "text/html");
+        assertEquals(2, list.size());
+        assertEquals("text/html", list.get(1).getValue());
+    }
+
+    @Test
+    public void testResize() {
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < 1000; i++) {
+            headers.add("X-Header-" + i, Integer.toString(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.toString(i), headers.get("x-header-" + i));
+        }
+        assertEquals(1000, headers.entries().size());
+    }
+
+    @Test
+    public void testInternedNames() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(new String("content-type"), "text/plain");
+        assertSame(HttpHeaderNames.CONTENT_TYPE, headers.entries().get(0).getKey());
+    }
+}